@@ -0,0 +1,350 @@
+package com.github.datnm23.accountservice.bulkimport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.datnm23.accountservice.cache.EmailMembershipFilter;
+import com.github.datnm23.accountservice.cache.NegativeLookupCache;
+import com.github.datnm23.accountservice.client.PasswordHasher;
+import com.github.datnm23.accountservice.client.SecurityServiceClient.HashResult;
+import com.github.datnm23.accountservice.config.AppConstants;
+import com.github.datnm23.accountservice.dto.BulkImportResultDTO;
+import com.github.datnm23.accountservice.dto.UserCreateDTO;
+import com.github.datnm23.accountservice.entity.EmailVerificationToken;
+import com.github.datnm23.accountservice.entity.User;
+import com.github.datnm23.accountservice.entity.UserProfile;
+import com.github.datnm23.accountservice.event.UserCreatedEvent;
+import com.github.datnm23.accountservice.event.UserDomainEvent;
+import com.github.datnm23.accountservice.event.UserEmailVerificationRequestedEvent;
+import com.github.datnm23.accountservice.mapper.UserMapper;
+import com.github.datnm23.accountservice.outbox.UserEventOutbox;
+import com.github.datnm23.accountservice.repository.EmailVerificationTokenRepository;
+import com.github.datnm23.accountservice.repository.UniqueViolations;
+import com.github.datnm23.accountservice.repository.UserRepository;
+import com.github.datnm23.accountservice.search.UserIndexChangedEvent;
+import com.github.datnm23.accountservice.security.SignedVerificationTokens;
+import com.github.datnm23.accountservice.statics.AccountStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.InputStream;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Import user hàng loạt từ file CSV/NDJSON được stream lên.
+ * <p>
+ * File được xử lý theo lô {@code app.import.chunk-size} dòng, mỗi lô:
+ * <ol>
+ *     <li>validate bằng chính constraint của {@link UserCreateDTO}, loại email trùng trong file;</li>
+ *     <li>kiểm tra trùng với DB bằng một query {@code IN} ({@link UserRepository#findExistingEmails});</li>
+ *     <li>hash mật khẩu bất đồng bộ qua {@link PasswordHasher} (batch endpoint của security-service); trong lúc lô này
+ *     đang hash, lô trước được insert;</li>
+ *     <li>insert user, profile và token xác thực trong một transaction (JDBC batch của Hibernate,
+ *     {@code hibernate.jdbc.batch_size}); nếu lô vi phạm unique (trùng với request đăng ký đồng thời) thì insert lại
+ *     từng dòng để chỉ dòng trùng bị báo lỗi;</li>
+ *     <li>event của cả lô được ghi vào outbox bằng một JDBC batch trong cùng transaction ({@link UserEventOutbox}).</li>
+ * </ol>
+ * Lỗi được báo theo số dòng trong file; một dòng lỗi không làm hỏng cả lô.
+ */
+@Service
+@Slf4j
+public class BulkUserImportService {
+
+    private final UserRepository userRepository;
+    private final EmailVerificationTokenRepository tokenRepository;
+    private final SignedVerificationTokens signedVerificationTokens;
+    private final UserMapper userMapper;
+    private final PasswordHasher passwordHasher;
+    private final UserEventOutbox userEventOutbox;
+    private final EmailMembershipFilter emailMembershipFilter;
+    private final NegativeLookupCache negativeLookupCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final TransactionTemplate chunkTx;
+    private final MeterRegistry meterRegistry;
+
+    private final int chunkSize;
+    private final int maxReportedErrors;
+    private final long tokenExpirationMinutes;
+
+    private final Counter createdRows;
+    private final Counter failedRows;
+
+    public BulkUserImportService(UserRepository userRepository,
+                                 EmailVerificationTokenRepository tokenRepository,
+                                 SignedVerificationTokens signedVerificationTokens,
+                                 UserMapper userMapper,
+                                 PasswordHasher passwordHasher,
+                                 UserEventOutbox userEventOutbox,
+                                 EmailMembershipFilter emailMembershipFilter,
+                                 NegativeLookupCache negativeLookupCache,
+                                 ApplicationEventPublisher eventPublisher,
+                                 Validator validator,
+                                 ObjectMapper objectMapper,
+                                 EntityManager entityManager,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.import.chunk-size:500}") int chunkSize,
+                                 @Value("${app.import.max-reported-errors:1000}") int maxReportedErrors,
+                                 @Value("${app.email.verification.token.expiration-minutes:1440}") long tokenExpirationMinutes) {
+        this.userRepository = userRepository;
+        this.tokenRepository = tokenRepository;
+        this.signedVerificationTokens = signedVerificationTokens;
+        this.userMapper = userMapper;
+        this.passwordHasher = passwordHasher;
+        this.userEventOutbox = userEventOutbox;
+        this.emailMembershipFilter = emailMembershipFilter;
+        this.negativeLookupCache = negativeLookupCache;
+        this.eventPublisher = eventPublisher;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.chunkTx = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+        this.tokenExpirationMinutes = tokenExpirationMinutes;
+        this.createdRows = Counter.builder("user.import.rows").tag("result", "created").register(meterRegistry);
+        this.failedRows = Counter.builder("user.import.rows").tag("result", "failed").register(meterRegistry);
+    }
+
+    /**
+     * @param csv true nếu body là CSV, false nếu là NDJSON
+     */
+    public BulkImportResultDTO importUsers(InputStream in, boolean csv, boolean sendVerificationEmail) {
+        long start = System.nanoTime();
+        UserImportReader reader = new UserImportReader(in, csv, objectMapper);
+        ImportReport report = new ImportReport(maxReportedErrors);
+        // Email đã gặp trong file: đủ nhỏ để giữ trọn (vài chục nghìn chuỗi) và bắt được trùng lặp giữa các lô
+        Set<String> seenEmails = new HashSet<>();
+
+        // Pipeline hai tầng: lô N đang hash (I/O tới security-service) trong khi lô N-1 được insert và gửi event.
+        // An toàn vì các lô không thể trùng email với nhau (seenEmails)
+        Chunk inFlight = null;
+        List<UserImportReader.Row> rows;
+        while (!(rows = reader.next(chunkSize)).isEmpty()) {
+            report.totalRows += rows.size();
+            Chunk chunk = prepare(rows, seenEmails, report);
+            if (inFlight != null) {
+                complete(inFlight, sendVerificationEmail, report);
+            }
+            inFlight = chunk;
+        }
+        if (inFlight != null) {
+            complete(inFlight, sendVerificationEmail, report);
+        }
+
+        long durationMillis = (System.nanoTime() - start) / 1_000_000;
+        double rowsPerSecond = durationMillis == 0 ? report.totalRows : report.totalRows * 1000.0 / durationMillis;
+        log.info("Bulk import finished: {} rows, {} created, {} failed in {} ms ({} rows/s)",
+                report.totalRows, report.created, report.failed, durationMillis, String.format("%.1f", rowsPerSecond));
+        return new BulkImportResultDTO(report.totalRows, report.created, report.failed, durationMillis, rowsPerSecond,
+                report.errors, report.errorsTruncated);
+    }
+
+    private Chunk prepare(List<UserImportReader.Row> rows, Set<String> seenEmails, ImportReport report) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        // 1. Validate + trùng trong file
+        List<Pending> pending = new ArrayList<>(rows.size());
+        for (UserImportReader.Row row : rows) {
+            if (row.parseError() != null) {
+                report.fail(row.lineNumber(), null, row.parseError());
+                continue;
+            }
+            UserCreateDTO dto = row.user();
+            Set<ConstraintViolation<UserCreateDTO>> violations = validator.validate(dto);
+            if (!violations.isEmpty()) {
+                report.fail(row.lineNumber(), dto.getEmail(), violations.stream()
+                        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                continue;
+            }
+            String emailKey = dto.getEmail().toLowerCase(Locale.ROOT);
+            if (!seenEmails.add(emailKey)) {
+                report.fail(row.lineNumber(), dto.getEmail(), "Duplicate email in file");
+                continue;
+            }
+            pending.add(new Pending(row.lineNumber(), dto, emailKey));
+        }
+        if (pending.isEmpty()) return new Chunk(pending, CompletableFuture.completedFuture(List.of()), sample);
+
+        // 2. Trùng với DB: một query cho cả lô
+        Set<String> existing = new HashSet<>(userRepository.findExistingEmails(
+                pending.stream().map(p -> p.emailKey).toList()));
+        pending.removeIf(p -> {
+            if (existing.contains(p.emailKey)) {
+                report.fail(p.lineNumber, p.dto.getEmail(), "Email address already in use");
+                return true;
+            }
+            return false;
+        });
+
+        // 3. Bắt đầu hash; kết quả được chờ trong complete()
+        return new Chunk(pending, passwordHasher.hashAll(pending.stream().map(p -> p.dto.getPassword()).toList()), sample);
+    }
+
+    private void complete(Chunk chunk, boolean sendVerificationEmail, ImportReport report) {
+        List<HashResult> hashes = chunk.hashes().join();
+        List<Pending> pending = new ArrayList<>(chunk.pending().size());
+        for (int i = 0; i < chunk.pending().size(); i++) {
+            Pending p = chunk.pending().get(i);
+            HashResult hash = hashes.get(i);
+            if (hash.isSuccess()) {
+                p.passwordHash = hash.hashedPassword();
+                pending.add(p);
+            } else {
+                report.fail(p.lineNumber, p.dto.getEmail(), "Password hashing failed: " + hash.error());
+            }
+        }
+        try {
+            if (!pending.isEmpty()) {
+                insertAndPublish(pending, sendVerificationEmail, report);
+            }
+        } finally {
+            chunk.sample().stop(meterRegistry.timer("user.import.chunk.duration"));
+        }
+    }
+
+    private void insertAndPublish(List<Pending> pending, boolean sendVerificationEmail, ImportReport report) {
+        // 4. Insert theo batch (kèm event vào outbox); lô lỗi unique thì thử lại từng dòng
+        List<Pending> inserted;
+        try {
+            chunkTx.executeWithoutResult(status -> insert(pending, sendVerificationEmail));
+            inserted = pending;
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Bulk insert of {} users hit a constraint violation, retrying row by row", pending.size());
+            inserted = new ArrayList<>(pending.size());
+            for (Pending p : pending) {
+                try {
+                    chunkTx.executeWithoutResult(status -> insert(List.of(p), sendVerificationEmail));
+                    inserted.add(p);
+                } catch (DataIntegrityViolationException rowError) {
+                    if (UniqueViolations.isViolationOf(rowError, UniqueViolations.USER_EMAIL)) {
+                        report.fail(p.lineNumber, p.dto.getEmail(), "Email address already in use");
+                    } else {
+                        log.warn("Import of line {} failed: {}", p.lineNumber, rowError.getMostSpecificCause().getMessage());
+                        report.fail(p.lineNumber, p.dto.getEmail(), "Could not save user");
+                    }
+                }
+            }
+        }
+
+        // 5. Sau commit: cập nhật filter/cache cục bộ
+        for (Pending p : inserted) {
+            emailMembershipFilter.add(p.user.getEmail());
+            negativeLookupCache.invalidate(AppConstants.CACHE_USER_BY_ID, p.user.getUserId());
+            negativeLookupCache.invalidate(AppConstants.CACHE_USER_BY_EMAIL, p.emailKey);
+            negativeLookupCache.invalidate(AppConstants.CACHE_PROFILE_BY_USER_ID, p.user.getUserId());
+            eventPublisher.publishEvent(new UserIndexChangedEvent(p.user.getUserId()));
+        }
+        report.created += inserted.size();
+        createdRows.increment(inserted.size());
+    }
+
+    private void insert(List<Pending> pending, boolean sendVerificationEmail) {
+        OffsetDateTime tokenExpiry = OffsetDateTime.now().plusMinutes(tokenExpirationMinutes);
+        List<User> users = new ArrayList<>(pending.size());
+        boolean signedTokens = signedVerificationTokens.isEnabled();
+        List<EmailVerificationToken> tokens = new ArrayList<>(signedTokens ? 0 : pending.size());
+        for (Pending p : pending) {
+            User user = userMapper.toUser(p.dto);
+            user.setPasswordHash(p.passwordHash);
+            user.setStatus(AccountStatus.PENDING_VERIFICATION);
+            user.setEmailVerified(false);
+            user.updateActiveStatus();
+            user.setUserProfile(new UserProfile());
+            users.add(user);
+            p.user = user;
+            if (!signedTokens) {
+                p.verificationToken = UUID.randomUUID().toString();
+                tokens.add(new EmailVerificationToken(p.verificationToken, tokenExpiry, user));
+            }
+        }
+        // Flush qua repository (không qua EntityManager) để lỗi unique được dịch thành DataIntegrityViolationException
+        // ngay tại đây và insertAndPublish thử lại từng dòng
+        userRepository.saveAllAndFlush(users);
+        if (signedTokens) {
+            // Token ký không cần dòng trong bảng; userId có sau khi persist
+            if (sendVerificationEmail) {
+                pending.forEach(p -> p.verificationToken = signedVerificationTokens.issue(
+                        p.user.getUserId(), p.user.getVerificationNonce(), tokenExpiry.toInstant()));
+            }
+        } else {
+            tokenRepository.saveAllAndFlush(tokens);
+        }
+        // clear để persistence context không phình theo số lô
+        entityManager.clear();
+
+        List<UserDomainEvent> events = new ArrayList<>(pending.size() * 2);
+        for (Pending p : pending) {
+            User user = p.user;
+            events.add(new UserCreatedEvent(user.getUserId(), user.getEmail(), user.getFirstName(), user.getLastName()));
+            if (sendVerificationEmail) {
+                events.add(new UserEmailVerificationRequestedEvent(
+                        user.getUserId(), user.getEmail(), user.getFullName(), p.verificationToken));
+            }
+        }
+        userEventOutbox.appendAll(events);
+    }
+
+    private record Chunk(List<Pending> pending, CompletableFuture<List<HashResult>> hashes, Timer.Sample sample) {
+    }
+
+    private static final class Pending {
+        final long lineNumber;
+        final UserCreateDTO dto;
+        final String emailKey;
+        String passwordHash;
+        User user;
+        String verificationToken;
+
+        Pending(long lineNumber, UserCreateDTO dto, String emailKey) {
+            this.lineNumber = lineNumber;
+            this.dto = dto;
+            this.emailKey = emailKey;
+        }
+    }
+
+    private final class ImportReport {
+        final int maxErrors;
+        final List<BulkImportResultDTO.RowError> errors = new ArrayList<>();
+        long totalRows;
+        long created;
+        long failed;
+        boolean errorsTruncated;
+
+        ImportReport(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        void fail(long row, String email, String message) {
+            failed++;
+            failedRows.increment();
+            if (errors.size() < maxErrors) {
+                errors.add(new BulkImportResultDTO.RowError(row, email, message));
+            } else {
+                errorsTruncated = true;
+            }
+        }
+    }
+}
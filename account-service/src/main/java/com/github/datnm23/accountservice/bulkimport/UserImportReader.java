@@ -0,0 +1,150 @@
+package com.github.datnm23.accountservice.bulkimport;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.datnm23.accountservice.dto.UserCreateDTO;
+import com.github.datnm23.accountservice.exception.InvalidImportFileException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Đọc file import từng dòng (không nạp cả file vào bộ nhớ).
+ * <ul>
+ *     <li>CSV: dòng đầu là header, cần các cột {@code email,password,firstName,lastName} (thứ tự tuỳ ý).
+ *     Hỗ trợ ô có dấu nháy kép theo RFC 4180, nhưng không hỗ trợ xuống dòng bên trong ô.</li>
+ *     <li>NDJSON: mỗi dòng là một object JSON có các trường của {@link UserCreateDTO}.</li>
+ * </ul>
+ * Dòng không đọc được vẫn được trả về (với {@code parseError}) để báo lỗi đúng số dòng.
+ */
+class UserImportReader {
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("email", "password", "firstname", "lastname");
+
+    record Row(long lineNumber, UserCreateDTO user, String parseError) {
+    }
+
+    private final BufferedReader reader;
+    private final boolean csv;
+    private final ObjectMapper objectMapper;
+    private Map<String, Integer> columns;
+    private long lineNumber;
+
+    UserImportReader(InputStream in, boolean csv, ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.csv = csv;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return tối đa {@code max} dòng tiếp theo (bỏ qua dòng trống); danh sách rỗng khi hết file
+     */
+    List<Row> next(int max) {
+        List<Row> rows = new ArrayList<>(max);
+        try {
+            if (csv && columns == null && !readHeader()) {
+                return rows;
+            }
+            String line;
+            while (rows.size() < max && (line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) continue;
+                rows.add(csv ? parseCsvRow(line) : parseJsonRow(line));
+            }
+            return rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean readHeader() throws IOException {
+        String header = reader.readLine();
+        if (header == null) return false;
+        lineNumber++;
+        // Bỏ BOM của file CSV xuất từ Excel
+        if (header.startsWith("\uFEFF")) header = header.substring(1);
+        columns = new HashMap<>();
+        List<String> names = splitCsv(header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(required)) {
+                throw new InvalidImportFileException("CSV header is missing column '" + required + "'");
+            }
+        }
+        return true;
+    }
+
+    private Row parseCsvRow(String line) {
+        List<String> cells;
+        try {
+            cells = splitCsv(line);
+        } catch (IllegalArgumentException e) {
+            return new Row(lineNumber, null, e.getMessage());
+        }
+        UserCreateDTO user = new UserCreateDTO();
+        user.setEmail(cell(cells, "email"));
+        user.setPassword(cell(cells, "password"));
+        user.setFirstName(cell(cells, "firstname"));
+        user.setLastName(cell(cells, "lastname"));
+        return new Row(lineNumber, user, null);
+    }
+
+    private Row parseJsonRow(String line) {
+        try {
+            return new Row(lineNumber, objectMapper.readValue(line, UserCreateDTO.class), null);
+        } catch (JsonProcessingException e) {
+            return new Row(lineNumber, null, "Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private String cell(List<String> cells, String column) {
+        int index = columns.get(column);
+        if (index >= cells.size()) return null;
+        String value = cells.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    static List<String> splitCsv(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"' && current.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        cells.add(current.toString());
+        return cells;
+    }
+}
@@ -0,0 +1,122 @@
+package com.github.datnm23.accountservice.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter cho chuỗi, an toàn khi nhiều thread cùng thêm phần tử.
+ * {@link #mightContain} trả về false nghĩa là chắc chắn không có; true nghĩa là "có thể có".
+ */
+public class BloomFilter {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final AtomicLongArray bits;
+    private final long numBits;
+    private final int numHashes;
+    private final AtomicLong insertions;
+
+    private BloomFilter(AtomicLongArray bits, int numHashes, long insertions) {
+        this.bits = bits;
+        this.numBits = (long) bits.length() * Long.SIZE;
+        this.numHashes = numHashes;
+        this.insertions = new AtomicLong(insertions);
+    }
+
+    public static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE, (m + Long.SIZE - 1) / Long.SIZE);
+        int k = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+        return new BloomFilter(new AtomicLongArray(words), k, 0);
+    }
+
+    public void put(String value) {
+        long[] hashes = hash(value);
+        for (int i = 0; i < numHashes; i++) {
+            long index = Math.floorMod(hashes[0] + i * hashes[1], numBits);
+            setBit(index);
+        }
+        insertions.incrementAndGet();
+    }
+
+    public boolean mightContain(String value) {
+        long[] hashes = hash(value);
+        for (int i = 0; i < numHashes; i++) {
+            long index = Math.floorMod(hashes[0] + i * hashes[1], numBits);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long approximateElementCount() {
+        return insertions.get();
+    }
+
+    public long bitSize() {
+        return numBits;
+    }
+
+    // Xác suất false positive ước lượng từ tỉ lệ bit đã bật: (bitsSet / m)^k
+    public double expectedFalsePositiveRate() {
+        long set = 0;
+        for (int i = 0; i < bits.length(); i++) {
+            set += Long.bitCount(bits.get(i));
+        }
+        return Math.pow((double) set / numBits, numHashes);
+    }
+
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 4 + 8 + 4 + bits.length() * 8);
+        buffer.putInt(FORMAT_VERSION).putInt(numHashes).putLong(insertions.get()).putInt(bits.length());
+        for (int i = 0; i < bits.length(); i++) {
+            buffer.putLong(bits.get(i));
+        }
+        return buffer.array();
+    }
+
+    public static BloomFilter fromBytes(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        int version = buffer.getInt();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported bloom filter format version: " + version);
+        }
+        int numHashes = buffer.getInt();
+        long insertions = buffer.getLong();
+        AtomicLongArray bits = new AtomicLongArray(buffer.getInt());
+        for (int i = 0; i < bits.length(); i++) {
+            bits.set(i, buffer.getLong());
+        }
+        return new BloomFilter(bits, numHashes, insertions);
+    }
+
+    private void setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current & mask) != 0) return;
+        } while (!bits.compareAndSet(word, current, current | mask));
+    }
+
+    // Double hashing (Kirsch-Mitzenmacher): FNV-1a 64-bit rồi trộn bằng SplitMix64 để có hai hash độc lập
+    private static long[] hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        return new long[]{mix(h), mix(h ^ 0x9E3779B97F4A7C15L) | 1L};
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -3,7 +3,11 @@ package com.github.datnm23.accountservice.cache;
 public enum CacheKey {
     USER("user:%s"),                     // id
     OAUTH("oauth:providers:%s:%s"),      // provider, externalId
-    RATE_LIMIT("ratelimit:account:%s");  // ip
+    RATE_LIMIT("ratelimit:account:%s:%s"), // scope, subject (ip / email)
+    NEGATIVE("negative:%s:%s"),          // cacheName, key
+    EMAIL_FILTER_SNAPSHOT("filter:email:snapshot"),
+    EMAIL_FILTER_CHANNEL("filter:email:added"),
+    SEARCH_INDEX_CHANNEL("search:index:changed");
 
     private final String pattern;
 
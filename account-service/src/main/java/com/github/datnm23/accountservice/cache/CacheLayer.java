@@ -0,0 +1,12 @@
+package com.github.datnm23.accountservice.cache;
+
+import org.springframework.cache.Cache;
+
+/**
+ * Một lớp bọc (decorator) áp dụng lên cache Redis khi {@link LayeredCacheManager} khởi tạo cache.
+ * Trả về chính cache đầu vào nếu lớp này không áp dụng cho cache đó.
+ */
+@FunctionalInterface
+public interface CacheLayer {
+    Cache decorate(Cache cache);
+}
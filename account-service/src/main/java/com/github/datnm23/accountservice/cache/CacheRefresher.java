@@ -0,0 +1,98 @@
+package com.github.datnm23.accountservice.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Nạp lại entry cache ở background cho {@link RefreshAheadCache}.
+ * <p>
+ * Loader được đăng ký tường minh theo tên cache (không dùng lại loader {@code Callable} của {@code @Cacheable},
+ * vì invocation đó thuộc request đã kết thúc) và luôn đọc từ primary: transaction không read-only nên không bị
+ * route sang replica có thể đang trễ.
+ * Executor có số thread và hàng đợi giới hạn: khi đầy, yêu cầu refresh bị bỏ qua và entry
+ * hết hạn bình thường.
+ */
+@Component
+@Slf4j
+public class CacheRefresher {
+
+    private final Map<String, Function<Object, Object>> loaders = new ConcurrentHashMap<>();
+    private final TransactionTemplate primaryTx;
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+
+    public CacheRefresher(PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.cache.refresh-ahead.threads:2}") int threads,
+                          @Value("${app.cache.refresh-ahead.queue-capacity:1000}") int queueCapacity) {
+        this.primaryTx = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cache-refresh-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        meterRegistry.gauge("cache.refresh.ahead.queue.size", executor, e -> e.getQueue().size());
+    }
+
+    public void register(String cacheName, Function<Object, Object> loader) {
+        loaders.put(cacheName, loader);
+    }
+
+    public boolean hasLoader(String cacheName) {
+        return loaders.containsKey(cacheName);
+    }
+
+    /**
+     * @param onLoaded nhận giá trị mới (null nếu bản ghi không còn tồn tại)
+     * @return false nếu không có loader hoặc executor đã đầy
+     */
+    boolean submit(String cacheName, Object key, Consumer<Object> onLoaded, Runnable onFailed) {
+        Function<Object, Object> loader = loaders.get(cacheName);
+        if (loader == null) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                Timer.Sample sample = Timer.start(meterRegistry);
+                try {
+                    Object value = primaryTx.execute(status -> loader.apply(key));
+                    onLoaded.accept(value);
+                } catch (Exception e) {
+                    log.warn("Refresh-ahead failed for {}::{}", cacheName, key, e);
+                    onFailed.run();
+                } finally {
+                    sample.stop(meterRegistry.timer("cache.refresh.ahead.latency", "cache", cacheName));
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
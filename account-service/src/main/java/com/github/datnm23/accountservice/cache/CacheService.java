@@ -1,6 +1,9 @@
 package com.github.datnm23.accountservice.cache;
 
 import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface CacheService {
@@ -11,8 +14,18 @@ public interface CacheService {
     <T> Optional<T> get(CacheKey key, Class<T> type, Object... keyArgs);
 
     //Đặt một giá trị vào Redis với key và TTL chỉ định.
-    <T> void set(CacheKey key, Duration ttl, T value);
+    <T> void set(CacheKey key, Duration ttl, T value, Object... keyArgs);
 
     //Xóa một key (và giá trị tương ứng) khỏi Redis.
     boolean delete(CacheKey key, Object... keyArgs);
+
+    //Lấy nhiều giá trị trong một round trip (MGET). Kết quả theo đúng thứ tự keyArgs, miss là Optional.empty().
+    //Mỗi phần tử của keyArgs là tham số của key; dùng Object[] khi key cần nhiều tham số.
+    <T> List<Optional<T>> getAll(CacheKey key, Class<T> type, Collection<?> keyArgs);
+
+    //Ghi nhiều giá trị với cùng TTL trong một pipeline. Key của map là tham số key (hoặc Object[]).
+    <T> void setAll(CacheKey key, Duration ttl, Map<?, T> values);
+
+    //Xóa nhiều key trong một lệnh DEL, trả về số key đã xóa.
+    long deleteAll(CacheKey key, Collection<?> keyArgs);
 }
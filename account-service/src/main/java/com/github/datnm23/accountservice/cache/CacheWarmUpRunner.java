@@ -0,0 +1,215 @@
+package com.github.datnm23.accountservice.cache;
+
+import com.github.datnm23.accountservice.config.AppConstants;
+import com.github.datnm23.accountservice.dto.UserDTO;
+import com.github.datnm23.accountservice.dto.UserProfileDTO;
+import com.github.datnm23.accountservice.entity.User;
+import com.github.datnm23.accountservice.mapper.UserMapper;
+import com.github.datnm23.accountservice.mapper.UserProfileMapper;
+import com.github.datnm23.accountservice.repository.UserRepository;
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.appinfo.InstanceInfo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Làm nóng {@code userCache} và {@code userProfileCache} lúc khởi động từ các user đăng nhập gần đây nhất.
+ * <p>
+ * Instance đăng ký với Eureka ở trạng thái STARTING ({@code eureka.instance.initial-status}) và chỉ chuyển
+ * sang UP sau khi warm-up xong hoặc hết time budget, nên gateway không route traffic vào cache rỗng.
+ * Chạy trong ApplicationRunner nên readiness probe của Spring Boot cũng chờ warm-up.
+ * Mọi lỗi trong warm-up chỉ được log: instance vẫn lên UP như bình thường.
+ * <p>
+ * User được đọc tuần tự theo keyset (lastLoginAt, userId) trên index, mỗi lô một query không kèm COUNT; việc ghi Redis
+ * của các lô chạy song song ({@code parallelism}) với hàng đợi nhỏ nên việc đọc không chạy quá xa việc ghi.
+ */
+@Component
+@Order(0)
+@Slf4j
+public class CacheWarmUpRunner implements ApplicationRunner {
+
+    private final UserRepository userRepository;
+    private final UserMapper userMapper;
+    private final UserProfileMapper userProfileMapper;
+    private final RedisCacheBulkWriter bulkWriter;
+    private final TransactionTemplate primaryTx;
+    private final ObjectProvider<ApplicationInfoManager> applicationInfoManager;
+    private final MeterRegistry meterRegistry;
+
+    private final boolean enabled;
+    private final int maxUsers;
+    private final int batchSize;
+    private final int parallelism;
+    private final Duration timeBudget;
+    private final Duration activeWithin;
+
+    private final AtomicLong usersLoaded = new AtomicLong();
+    private final AtomicLong targetUsers = new AtomicLong();
+
+    public CacheWarmUpRunner(UserRepository userRepository,
+                             UserMapper userMapper,
+                             UserProfileMapper userProfileMapper,
+                             RedisCacheBulkWriter bulkWriter,
+                             PlatformTransactionManager transactionManager,
+                             ObjectProvider<ApplicationInfoManager> applicationInfoManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.cache.warm-up.enabled:true}") boolean enabled,
+                             @Value("${app.cache.warm-up.max-users:50000}") int maxUsers,
+                             @Value("${app.cache.warm-up.batch-size:500}") int batchSize,
+                             @Value("${app.cache.warm-up.parallelism:4}") int parallelism,
+                             @Value("${app.cache.warm-up.time-budget:30s}") Duration timeBudget,
+                             @Value("${app.cache.warm-up.active-within:7d}") Duration activeWithin) {
+        this.userRepository = userRepository;
+        this.userMapper = userMapper;
+        this.userProfileMapper = userProfileMapper;
+        this.bulkWriter = bulkWriter;
+        // Không read-only: dữ liệu ghi vào Redis cho cả TTL nên không đọc từ replica có thể đang trễ
+        this.primaryTx = new TransactionTemplate(transactionManager);
+        this.applicationInfoManager = applicationInfoManager;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maxUsers = maxUsers;
+        this.batchSize = batchSize;
+        this.parallelism = Math.max(1, parallelism);
+        this.timeBudget = timeBudget;
+        this.activeWithin = activeWithin;
+
+        Gauge.builder("cache.warmup.users.loaded", usersLoaded, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("cache.warmup.progress", this, CacheWarmUpRunner::progress).register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            if (enabled && maxUsers > 0) {
+                warmUp();
+            }
+        } catch (Exception e) {
+            log.error("Cache warm-up failed, continuing startup with cold caches", e);
+        } finally {
+            markUp();
+        }
+    }
+
+    private void warmUp() throws InterruptedException {
+        targetUsers.set(maxUsers);
+        OffsetDateTime since = OffsetDateTime.now().minus(activeWithin);
+        long deadline = System.nanoTime() + timeBudget.toNanos();
+        Counter userEntries = entriesCounter(AppConstants.CACHE_USER_BY_ID);
+        Counter profileEntries = entriesCounter(AppConstants.CACHE_PROFILE_BY_USER_ID);
+
+        log.info("Warming up user caches: up to {} users active since {}, batch {}, parallelism {}, budget {}",
+                maxUsers, since, batchSize, parallelism, timeBudget);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        // Hàng đợi đầy thì thread đọc tự ghi lô đó: không đọc trước quá parallelism lô
+        ThreadPoolExecutor writers = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(parallelism), runnable -> {
+                    Thread thread = new Thread(runnable, "cache-warmup");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            Batch batch = null;
+            int remaining = maxUsers;
+            while (remaining > 0 && System.nanoTime() < deadline) {
+                int limit = Math.min(batchSize, remaining);
+                try {
+                    batch = readBatch(since, batch, limit);
+                } catch (Exception e) {
+                    // Keyset không bỏ qua được lô lỗi: dừng, các lô đã đọc vẫn được ghi
+                    log.warn("Cache warm-up read failed after {} users, stopping", maxUsers - remaining, e);
+                    break;
+                }
+                if (batch.users().isEmpty()) break;
+                Batch toWrite = batch;
+                writers.execute(() -> writeBatch(toWrite, userEntries, profileEntries));
+                remaining -= batch.fetched();
+                if (batch.fetched() < limit) break;
+            }
+            writers.shutdown();
+            long left = deadline - System.nanoTime();
+            if (!writers.awaitTermination(Math.max(0, left), TimeUnit.NANOSECONDS)) {
+                log.warn("Cache warm-up exceeded time budget {}, stopping", timeBudget);
+            }
+        } finally {
+            writers.shutdownNow();
+            sample.stop(meterRegistry.timer("cache.warmup.duration"));
+        }
+        log.info("Cache warm-up finished: {} users loaded", usersLoaded.get());
+    }
+
+    // Lô kế tiếp sau vị trí cuối của lô trước (null: lô đầu)
+    private Batch readBatch(OffsetDateTime since, Batch previous, int limit) {
+        return primaryTx.execute(status -> {
+            List<User> content = previous == null
+                    ? userRepository.findRecentLoginsFirstPage(since, PageRequest.ofSize(limit))
+                    : userRepository.findRecentLoginsAfter(since, previous.lastLoginAt(), previous.lastUserId(),
+                            PageRequest.ofSize(limit));
+            Map<UUID, UserDTO> users = new LinkedHashMap<>();
+            Map<UUID, UserProfileDTO> profiles = new LinkedHashMap<>();
+            for (User user : content) {
+                users.put(user.getUserId(), userMapper.toUserDTO(user));
+                if (user.getProfile() != null) {
+                    profiles.put(user.getUserId(), userProfileMapper.toUserProfileDTO(user.getProfile()));
+                }
+            }
+            User last = content.isEmpty() ? null : content.get(content.size() - 1);
+            return new Batch(users, profiles, content.size(),
+                    last == null ? null : last.getLastLoginAt(), last == null ? null : last.getUserId());
+        });
+    }
+
+    private void writeBatch(Batch batch, Counter userEntries, Counter profileEntries) {
+        try {
+            userEntries.increment(bulkWriter.putAllIfAbsent(AppConstants.CACHE_USER_BY_ID, batch.users(),
+                    value -> ((UserDTO) value).getVersion()));
+            profileEntries.increment(bulkWriter.putAllIfAbsent(AppConstants.CACHE_PROFILE_BY_USER_ID, batch.profiles()));
+            usersLoaded.addAndGet(batch.users().size());
+        } catch (Exception e) {
+            log.warn("Cache warm-up batch write failed", e);
+        }
+    }
+
+    private record Batch(Map<UUID, UserDTO> users, Map<UUID, UserProfileDTO> profiles, int fetched,
+                         OffsetDateTime lastLoginAt, UUID lastUserId) {
+    }
+
+    private void markUp() {
+        ApplicationInfoManager infoManager = applicationInfoManager.getIfAvailable();
+        if (infoManager != null) {
+            infoManager.setInstanceStatus(InstanceInfo.InstanceStatus.UP);
+        }
+    }
+
+    private Counter entriesCounter(String cacheName) {
+        return Counter.builder("cache.warmup.entries").tag("cache", cacheName).register(meterRegistry);
+    }
+
+    private double progress() {
+        long target = targetUsers.get();
+        return target == 0 ? 0.0 : Math.min(1.0, (double) usersLoaded.get() / target);
+    }
+}
@@ -0,0 +1,276 @@
+package com.github.datnm23.accountservice.cache;
+
+import com.github.datnm23.accountservice.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Bộ lọc membership cho email đã đăng ký, giữ trong bộ nhớ để trả lời "chắc chắn chưa tồn tại"
+ * mà không cần query {@code existsByEmailIgnoreCase} (LOWER(email) không dùng được idx_user_email).
+ *
+ * <ul>
+ *   <li>Khởi động: nạp snapshot từ Redis rồi quét bù các user tạo sau snapshot; không có snapshot thì
+ *   stream toàn bộ bảng users.</li>
+ *   <li>Email mới được thêm cục bộ và phát qua Redis pub/sub cho các instance khác.</li>
+ *   <li>Bloom filter không xoá được phần tử: khi số bản ghi bị xoá hẳn vượt ngưỡng thì filter được rebuild.</li>
+ *   <li>Trước khi ghi snapshot, filter quét bù từ DB các user tạo từ lần quét trước: instance lỡ message pub/sub
+ *   (mất kết nối Redis) không ghi đè snapshot chung bằng filter thiếu email.</li>
+ * </ul>
+ * Khi chưa sẵn sàng (đang rebuild lần đầu) hoặc bị tắt, {@link #mightContain} luôn trả về true để đi xuống DB.
+ */
+@Component
+@Slf4j
+public class EmailMembershipFilter implements MessageListener {
+
+    // Lùi mốc quét bù để không bỏ sót user có created_at trước lúc snapshot nhưng commit sau đó
+    private static final Duration CATCH_UP_SKEW = Duration.ofMinutes(5);
+
+    private final UserRepository userRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final TransactionTemplate readOnlyTx;
+
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final double rebuildRemovalRatio;
+
+    private final AtomicReference<BloomFilter> filter = new AtomicReference<>();
+    private final AtomicReference<BloomFilter> building = new AtomicReference<>();
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+    private final AtomicLong removalsSinceBuild = new AtomicLong();
+    // Mọi user tạo trước mốc này (trừ CATCH_UP_SKEW) đã nằm trong filter
+    private volatile Instant caughtUpAt;
+
+    private final Counter positiveAnswers;
+    private final Counter falsePositives;
+    private final Counter definitelyAbsent;
+
+    public EmailMembershipFilter(UserRepository userRepository,
+                                 StringRedisTemplate redisTemplate,
+                                 ObjectProvider<RedisMessageListenerContainer> listenerContainer,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.registration.email-filter.enabled:true}") boolean enabled,
+                                 @Value("${app.registration.email-filter.expected-insertions:1000000}") long expectedInsertions,
+                                 @Value("${app.registration.email-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                                 @Value("${app.registration.email-filter.rebuild-removal-ratio:0.1}") double rebuildRemovalRatio) {
+        this.userRepository = userRepository;
+        this.redisTemplate = redisTemplate;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rebuildRemovalRatio = rebuildRemovalRatio;
+
+        this.positiveAnswers = Counter.builder("email.filter.answers").tag("result", "maybe-present").register(meterRegistry);
+        this.definitelyAbsent = Counter.builder("email.filter.answers").tag("result", "absent").register(meterRegistry);
+        this.falsePositives = Counter.builder("email.filter.false.positives").register(meterRegistry);
+        Gauge.builder("email.filter.size", filter, f -> f.get() == null ? 0 : f.get().approximateElementCount())
+                .register(meterRegistry);
+        Gauge.builder("email.filter.bits", filter, f -> f.get() == null ? 0 : f.get().bitSize())
+                .register(meterRegistry);
+        Gauge.builder("email.filter.false.positive.rate.expected", filter,
+                        f -> f.get() == null ? 0 : f.get().expectedFalsePositiveRate())
+                .register(meterRegistry);
+        Gauge.builder("email.filter.false.positive.rate.observed", this, EmailMembershipFilter::observedFalsePositiveRate)
+                .register(meterRegistry);
+
+        if (enabled) {
+            listenerContainer.getObject()
+                    .addMessageListener(this, new ChannelTopic(CacheKey.EMAIL_FILTER_CHANNEL.format()));
+        }
+    }
+
+    /**
+     * @return false nếu email chắc chắn chưa tồn tại; true nếu có thể tồn tại (cần kiểm tra DB).
+     */
+    public boolean mightContain(String email) {
+        BloomFilter current = filter.get();
+        if (!enabled || current == null || email == null) {
+            return true;
+        }
+        boolean maybe = current.mightContain(normalize(email));
+        (maybe ? positiveAnswers : definitelyAbsent).increment();
+        return maybe;
+    }
+
+    // Gọi khi filter nói "có thể có" nhưng DB xác nhận không có
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    public void add(String email) {
+        if (!enabled || email == null) return;
+        String normalized = normalize(email);
+        addLocal(normalized);
+        try {
+            redisTemplate.convertAndSend(CacheKey.EMAIL_FILTER_CHANNEL.format(), normalized);
+        } catch (Exception e) {
+            log.error("Failed to broadcast email filter update", e);
+        }
+    }
+
+    // Gọi khi bản ghi users bị xoá hẳn (purge); filter được rebuild khi số lần xoá vượt ngưỡng
+    public void recordRemovals(long count) {
+        BloomFilter current = filter.get();
+        if (!enabled || current == null || count <= 0) return;
+        long removals = removalsSinceBuild.addAndGet(count);
+        if (removals > current.approximateElementCount() * rebuildRemovalRatio) {
+            rebuildFromDatabase();
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        addLocal(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (!enabled) return;
+        if (!loadSnapshot()) {
+            rebuildFromDatabase();
+        }
+    }
+
+    public void rebuildFromDatabase() {
+        if (!rebuilding.compareAndSet(false, true)) return;
+        long started = System.nanoTime();
+        try {
+            BloomFilter fresh = BloomFilter.create(expectedInsertions, falsePositiveRate);
+            building.set(fresh);
+            Instant scanStarted = Instant.now();
+            readOnlyTx.executeWithoutResult(status -> {
+                try (Stream<String> emails = userRepository.streamAllEmails()) {
+                    emails.forEach(fresh::put);
+                }
+            });
+            filter.set(fresh);
+            caughtUpAt = scanStarted;
+            removalsSinceBuild.set(0);
+            log.info("Email filter rebuilt with {} entries in {} ms",
+                    fresh.approximateElementCount(), Duration.ofNanos(System.nanoTime() - started).toMillis());
+        } catch (Exception e) {
+            log.error("Failed to rebuild email filter, lookups fall back to the database", e);
+        } finally {
+            building.set(null);
+            rebuilding.set(false);
+        }
+        saveSnapshot();
+    }
+
+    @Scheduled(fixedDelayString = "${app.registration.email-filter.snapshot-interval-ms:600000}",
+            initialDelayString = "${app.registration.email-filter.snapshot-interval-ms:600000}")
+    public void saveSnapshot() {
+        BloomFilter current = filter.get();
+        if (!enabled || current == null || caughtUpAt == null) return;
+        if (!rebuilding.compareAndSet(false, true)) return;
+        try {
+            // Quét bù trước khi ghi: snapshot luôn chứa mọi user tạo trước takenAt, kể cả khi instance này lỡ message
+            Instant takenAt = Instant.now();
+            catchUp(current, caughtUpAt);
+            caughtUpAt = takenAt;
+            byte[] body = current.toBytes();
+            byte[] snapshot = ByteBuffer.allocate(Long.BYTES + body.length)
+                    .putLong(takenAt.toEpochMilli())
+                    .put(body)
+                    .array();
+            byte[] key = CacheKey.EMAIL_FILTER_SNAPSHOT.format().getBytes(StandardCharsets.UTF_8);
+            redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.stringCommands().set(key, snapshot));
+            log.debug("Email filter snapshot saved ({} bytes)", snapshot.length);
+        } catch (Exception e) {
+            log.error("Failed to save email filter snapshot", e);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private boolean loadSnapshot() {
+        if (!rebuilding.compareAndSet(false, true)) return false;
+        try {
+            byte[] key = CacheKey.EMAIL_FILTER_SNAPSHOT.format().getBytes(StandardCharsets.UTF_8);
+            byte[] snapshot = redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands().get(key));
+            if (snapshot == null || snapshot.length <= Long.BYTES) {
+                return false;
+            }
+            long takenAt = ByteBuffer.wrap(snapshot).getLong();
+            BloomFilter restored = BloomFilter.fromBytes(Arrays.copyOfRange(snapshot, Long.BYTES, snapshot.length));
+            // Nhận email từ pub/sub ngay từ bây giờ, trong lúc quét bù (message đến lúc này không bị mất)
+            building.set(restored);
+            Instant scanStarted = Instant.now();
+            catchUp(restored, Instant.ofEpochMilli(takenAt));
+            filter.set(restored);
+            caughtUpAt = scanStarted;
+            log.info("Email filter restored from snapshot taken at {} ({} entries)",
+                    Instant.ofEpochMilli(takenAt), restored.approximateElementCount());
+            return true;
+        } catch (Exception e) {
+            log.warn("Could not restore email filter snapshot, rebuilding from database: {}", e.getMessage());
+            return false;
+        } finally {
+            building.set(null);
+            rebuilding.set(false);
+        }
+    }
+
+    private void catchUp(BloomFilter target, Instant since) {
+        OffsetDateTime from = since.minus(CATCH_UP_SKEW).atOffset(ZoneOffset.UTC);
+        readOnlyTx.executeWithoutResult(status -> {
+            try (Stream<String> emails = userRepository.streamEmailsCreatedSince(from)) {
+                emails.forEach(target::put);
+            }
+        });
+    }
+
+    private void addLocal(String normalized) {
+        BloomFilter current = filter.get();
+        if (current != null) {
+            current.put(normalized);
+        }
+        BloomFilter pending = building.get();
+        if (pending != null) {
+            pending.put(normalized);
+        }
+    }
+
+    private double observedFalsePositiveRate() {
+        double positives = positiveAnswers.count();
+        return positives == 0 ? 0 : falsePositives.count() / positives;
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.datnm23.accountservice.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import org.springframework.data.redis.cache.RedisCacheManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * CacheManager bọc {@link RedisCacheManager}: mỗi cache Redis được đi qua lần lượt các {@link CacheLayer}
+ * (layer đầu tiên nằm sát Redis nhất). Transaction-aware được xử lý ở đây thay vì ở RedisCacheManager
+ * để các layer cũng chỉ ghi/xoá sau khi transaction commit.
+ */
+public class LayeredCacheManager extends AbstractTransactionSupportingCacheManager {
+
+    private final RedisCacheManager redisCacheManager;
+    private final List<CacheLayer> layers;
+
+    public LayeredCacheManager(RedisCacheManager redisCacheManager, List<CacheLayer> layers) {
+        this.redisCacheManager = redisCacheManager;
+        this.layers = List.copyOf(layers);
+    }
+
+    public RedisCacheManager getRedisCacheManager() {
+        return redisCacheManager;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        // RedisCacheManager không phải bean riêng nên phải tự khởi tạo các cache cấu hình sẵn (TTL riêng...)
+        redisCacheManager.afterPropertiesSet();
+        super.afterPropertiesSet();
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return redisCacheManager.getCacheNames().stream()
+                .map(redisCacheManager::getCache)
+                .filter(Objects::nonNull)
+                .map(this::applyLayers)
+                .toList();
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        Cache cache = redisCacheManager.getCache(name);
+        return cache != null ? applyLayers(cache) : null;
+    }
+
+    private Cache applyLayers(Cache cache) {
+        Cache decorated = cache;
+        for (CacheLayer layer : layers) {
+            decorated = layer.decorate(decorated);
+        }
+        return decorated;
+    }
+}
@@ -0,0 +1,183 @@
+package com.github.datnm23.accountservice.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cache hai tầng: L1 trong process (Caffeine, giới hạn số entry + TTL) đứng trước L2 (Redis).
+ * Đọc: L1 -> L2 -> loader, giá trị đọc được từ L2 được nạp vào L1.
+ * Ghi/xoá: luôn đi xuống L2, xoá L1 cục bộ và phát invalidation cho các instance khác
+ * (L1 chỉ được nạp lại từ L2 ở lần đọc kế tiếp).
+ */
+public class NearCache implements Cache {
+
+    private final Cache l2;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> l1;
+    private final NearCacheInvalidationBus invalidationBus;
+
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+
+    public NearCache(Cache l2, long maxEntries, Duration ttl,
+                     NearCacheInvalidationBus invalidationBus, MeterRegistry meterRegistry) {
+        this.l2 = l2;
+        this.l1 = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .build();
+        this.invalidationBus = invalidationBus;
+        this.l1Hits = requests(meterRegistry, "l1", "hit");
+        this.l1Misses = requests(meterRegistry, "l1", "miss");
+        this.l2Hits = requests(meterRegistry, "l2", "hit");
+        this.l2Misses = requests(meterRegistry, "l2", "miss");
+        Gauge.builder("cache.near.l1.size", l1, c -> c.estimatedSize())
+                .tag("cache", getName())
+                .register(meterRegistry);
+        invalidationBus.register(this);
+    }
+
+    private Counter requests(MeterRegistry registry, String tier, String result) {
+        return Counter.builder("cache.near.requests")
+                .tag("cache", getName())
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    @Override
+    public String getName() {
+        return l2.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return l2.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        Object local = l1.getIfPresent(localKey);
+        if (local != null) {
+            l1Hits.increment();
+            return new SimpleValueWrapper(local);
+        }
+        l1Misses.increment();
+
+        ValueWrapper remote = l2.get(key);
+        if (remote == null) {
+            l2Misses.increment();
+            return null;
+        }
+        l2Hits.increment();
+        if (remote.get() != null) {
+            l1.put(localKey, remote.get());
+        }
+        return remote;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        Object local = l1.getIfPresent(localKey);
+        if (local != null) {
+            l1Hits.increment();
+            return (T) local;
+        }
+        l1Misses.increment();
+
+        AtomicBoolean loaded = new AtomicBoolean(false);
+        T value = l2.get(key, () -> {
+            loaded.set(true);
+            return valueLoader.call();
+        });
+        (loaded.get() ? l2Misses : l2Hits).increment();
+        if (value != null) {
+            l1.put(localKey, value);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        l2.put(key, value);
+        invalidate(key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = l2.putIfAbsent(key, value);
+        invalidate(key);
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        l2.evict(key);
+        invalidate(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = l2.evictIfPresent(key);
+        invalidate(key);
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        l2.clear();
+        invalidateLocal();
+        invalidationBus.publishClear(getName());
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = l2.invalidate();
+        invalidateLocal();
+        invalidationBus.publishClear(getName());
+        return invalidated;
+    }
+
+    void invalidateLocal(String localKey) {
+        l1.invalidate(localKey);
+    }
+
+    void invalidateLocal() {
+        l1.invalidateAll();
+    }
+
+    private void invalidate(Object key) {
+        String localKey = localKey(key);
+        l1.invalidate(localKey);
+        invalidationBus.publishEvict(getName(), localKey);
+    }
+
+    // Key Redis cũng được convert sang String (UUID, email) nên dùng cùng dạng cho L1 và message invalidation
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.datnm23.accountservice.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Phát/nhận thông báo invalidation L1 giữa các instance qua Redis pub/sub.
+ * Định dạng message: {@code <instanceId>|<E|C>|<cacheName>|<key>} (E = evict một key, C = clear cả cache).
+ */
+@Slf4j
+public class NearCacheInvalidationBus implements MessageListener {
+
+    private static final String OP_EVICT = "E";
+    private static final String OP_CLEAR = "C";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<String, NearCache> caches = new ConcurrentHashMap<>();
+
+    public NearCacheInvalidationBus(StringRedisTemplate redisTemplate,
+                                    RedisMessageListenerContainer listenerContainer,
+                                    String channel) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        listenerContainer.addMessageListener(this, new ChannelTopic(channel));
+    }
+
+    void register(NearCache cache) {
+        caches.put(cache.getName(), cache);
+    }
+
+    void publishEvict(String cacheName, String key) {
+        publish(OP_EVICT, cacheName, key);
+    }
+
+    void publishClear(String cacheName) {
+        publish(OP_CLEAR, cacheName, "");
+    }
+
+    private void publish(String op, String cacheName, String key) {
+        try {
+            redisTemplate.convertAndSend(channel, String.join("|", instanceId, op, cacheName, key));
+        } catch (Exception e) {
+            // Các instance khác sẽ tự hết hạn L1 theo TTL cục bộ
+            log.error("Failed to publish near-cache invalidation for {}::{}", cacheName, key, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 4);
+        if (parts.length < 4 || instanceId.equals(parts[0])) {
+            return;
+        }
+        NearCache cache = caches.get(parts[2]);
+        if (cache == null) {
+            return;
+        }
+        if (OP_CLEAR.equals(parts[1])) {
+            cache.invalidateLocal();
+        } else {
+            cache.invalidateLocal(parts[3]);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.datnm23.accountservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Cache kết quả "không tồn tại" (negative caching) cho các lookup theo id/email.
+ * {@code @Cacheable} không cache exception nên các method ném UserNotFoundException/ProfileNotFoundException
+ * tự kiểm tra ở đây trước khi xuống DB. TTL ngắn, cấu hình riêng với TTL của cache dương.
+ * Mọi lỗi Redis đều fail-open (coi như chưa biết, đi tiếp xuống DB).
+ */
+@Component
+@Slf4j
+public class NegativeLookupCache {
+
+    private static final String MARKER = "1";
+
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final Duration ttl;
+    private final Counter hits;
+
+    public NegativeLookupCache(StringRedisTemplate redisTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.cache.negative.enabled:true}") boolean enabled,
+                               @Value("${app.cache.negative.ttl:30s}") Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.hits = Counter.builder("cache.negative.hits").register(meterRegistry);
+    }
+
+    public boolean isKnownMissing(String cacheName, Object key) {
+        if (!enabled || key == null) return false;
+        try {
+            boolean missing = Boolean.TRUE.equals(redisTemplate.hasKey(key(cacheName, key)));
+            if (missing) {
+                hits.increment();
+            }
+            return missing;
+        } catch (Exception e) {
+            log.error("Redis EXISTS failed for negative entry {}::{}", cacheName, key, e);
+            return false;
+        }
+    }
+
+    public void markMissing(String cacheName, Object key) {
+        if (!enabled || key == null) return;
+        try {
+            redisTemplate.opsForValue().set(key(cacheName, key), MARKER, ttl);
+        } catch (Exception e) {
+            log.error("Redis SET failed for negative entry {}::{}", cacheName, key, e);
+        }
+    }
+
+    /**
+     * Xoá negative entry ngay và xoá lại sau khi transaction hiện tại commit, để một lookup chạy song song
+     * trước commit không thể đánh dấu lại "không tồn tại" cho bản ghi vừa tạo/khôi phục.
+     */
+    public void invalidate(String cacheName, Object key) {
+        if (!enabled || key == null) return;
+        delete(cacheName, key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    delete(cacheName, key);
+                }
+            });
+        }
+    }
+
+    private void delete(String cacheName, Object key) {
+        try {
+            redisTemplate.delete(key(cacheName, key));
+        } catch (Exception e) {
+            log.error("Redis DEL failed for negative entry {}::{}", cacheName, key, e);
+        }
+    }
+
+    private static String key(String cacheName, Object key) {
+        return CacheKey.NEGATIVE.format(cacheName, key);
+    }
+}
@@ -0,0 +1,93 @@
+package com.github.datnm23.accountservice.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.util.ByteUtils;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Ghi hàng loạt entry vào một cache Redis của Spring Cache trong một pipeline (SET NX + TTL),
+ * dùng đúng key prefix, serializer và TTL của {@link RedisCacheConfiguration} tương ứng để
+ * {@code @Cacheable} đọc lại được như entry do chính nó ghi.
+ * <p>
+ * Ghi thẳng xuống Redis, không đi qua các {@link CacheLayer} (near cache, single-flight...).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RedisCacheBulkWriter {
+
+    private final CacheManager cacheManager;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * @return số entry thực sự được ghi (key đã tồn tại thì giữ nguyên giá trị mới hơn do traffic thật ghi)
+     */
+    public int putAllIfAbsent(String cacheName, Map<?, ?> entries) {
+        return putAllIfAbsent(cacheName, entries, value -> null);
+    }
+
+    /**
+     * Như {@link #putAllIfAbsent(String, Map)}, đồng thời ghi key version của {@link VersionedCache}
+     * (cũng NX) cho các giá trị có version.
+     */
+    public int putAllIfAbsent(String cacheName, Map<?, ?> entries, Function<Object, Long> versionOf) {
+        if (entries.isEmpty()) return 0;
+        RedisCacheConfiguration config = cacheConfiguration(cacheName);
+        String keyPrefix = config.getKeyPrefixFor(cacheName);
+
+        List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            RedisStringCommands commands = connection.stringCommands();
+            entries.forEach((key, value) -> {
+                if (key == null || value == null) return;
+                byte[] rawKey = ByteUtils.getBytes(config.getKeySerializationPair().write(keyPrefix + key));
+                byte[] rawValue = ByteUtils.getBytes(config.getValueSerializationPair().write(value));
+                Duration ttl = config.getTtlFunction().getTimeToLive(key, value);
+                boolean persistent = ttl == null || ttl.isZero() || ttl.isNegative();
+                commands.set(rawKey, rawValue, persistent ? Expiration.persistent() : Expiration.from(ttl),
+                        RedisStringCommands.SetOption.ifAbsent());
+                Long version = versionOf.apply(value);
+                if (version != null) {
+                    byte[] rawVersionKey = ByteUtils.getBytes(config.getKeySerializationPair()
+                            .write(VersionedCache.versionKey(keyPrefix + key)));
+                    commands.set(rawVersionKey, String.valueOf(version).getBytes(StandardCharsets.UTF_8),
+                            persistent ? Expiration.persistent() : Expiration.from(ttl.multipliedBy(2)),
+                            RedisStringCommands.SetOption.ifAbsent());
+                }
+            });
+            return null;
+        });
+        // Mỗi entry có thể có thêm một SET cho key version: chỉ đếm kết quả SET của key giá trị
+        int written = 0;
+        int index = 0;
+        for (Map.Entry<?, ?> entry : entries.entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null) continue;
+            if (Boolean.TRUE.equals(results.get(index++))) written++;
+            if (versionOf.apply(entry.getValue()) != null) index++;
+        }
+        return written;
+    }
+
+    private RedisCacheConfiguration cacheConfiguration(String cacheName) {
+        CacheManager target = cacheManager instanceof LayeredCacheManager layered ? layered.getRedisCacheManager() : cacheManager;
+        Cache cache = target.getCache(cacheName);
+        if (!(cache instanceof RedisCache redisCache)) {
+            throw new IllegalStateException("Cache '" + cacheName + "' is not backed by Redis");
+        }
+        return redisCache.getCacheConfiguration();
+    }
+}
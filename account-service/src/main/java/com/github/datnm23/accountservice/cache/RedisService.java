@@ -1,12 +1,26 @@
 package com.github.datnm23.accountservice.cache;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
@@ -14,7 +28,20 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 @Slf4j
 public class RedisService implements CacheService {
+    // Giới hạn số lệnh trong một pipeline để không giữ buffer quá lớn trên connection dùng chung
+    private static final int PIPELINE_CHUNK_SIZE = 500;
+
+    // INCR và PEXPIRE trong cùng một script: key luôn có TTL kể cả khi process chết giữa hai lệnh.
+    // Key cũ bị mất TTL (PTTL = -1) cũng được gắn lại TTL ở lần tăng tiếp theo.
+    private static final RedisScript<Long> INCR_WITH_TTL_SCRIPT = new DefaultRedisScript<>(
+            "local c = redis.call('INCR', KEYS[1]) " +
+            "if redis.call('PTTL', KEYS[1]) < 0 then redis.call('PEXPIRE', KEYS[1], ARGV[1]) end " +
+            "return c",
+            Long.class);
+
     private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MeterRegistry meterRegistry;
 
     private ValueOperations<String, Object> ops() {
         return redisTemplate.opsForValue();
@@ -24,11 +51,16 @@ public class RedisService implements CacheService {
         return k.format(args);
     }
 
+    // Phần tử Object[] được trải ra thành nhiều tham số của key
+    private String batchKey(CacheKey k, Object arg) {
+        return arg instanceof Object[] args ? k.format(args) : k.format(arg);
+    }
+
     @Override
-    public <T> void set(CacheKey k, Duration ttl, T val) {
+    public <T> void set(CacheKey k, Duration ttl, T val, Object... args) {
         if (val == null) return;
         try {
-            ops().set(key(k), val, ttl);
+            ops().set(key(k, args), val, ttl);
         } catch (Exception e) {
             log.error("Redis SET failed for key {}", k, e);
         }
@@ -60,10 +92,7 @@ public class RedisService implements CacheService {
     public long incr(CacheKey k, Duration ttl, Object... args) {
         String realKey = key(k, args);
         try {
-            Long c = ops().increment(realKey);
-            if (c != null && c == 1L) { // lần đầu
-                redisTemplate.expire(realKey, ttl.toMillis(), TimeUnit.MILLISECONDS);
-            }
+            Long c = stringRedisTemplate.execute(INCR_WITH_TTL_SCRIPT, List.of(realKey), String.valueOf(ttl.toMillis()));
             return c == null ? -1L : c;
         } catch (Exception e) {
             log.error("Redis INCR failed for key {}", realKey, e);
@@ -71,7 +100,86 @@ public class RedisService implements CacheService {
         }
     }
 
-    private String key(CacheKey k) {
-        return k.format();
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> List<Optional<T>> getAll(CacheKey k, Class<T> type, Collection<?> args) {
+        if (args.isEmpty()) return List.of();
+        List<String> keys = args.stream().map(arg -> batchKey(k, arg)).toList();
+        List<Optional<T>> results = new ArrayList<>(keys.size());
+        long start = System.nanoTime();
+        try {
+            List<Object> values = ops().multiGet(keys);
+            for (int i = 0; i < keys.size(); i++) {
+                Object v = values != null ? values.get(i) : null;
+                results.add((v != null && type.isInstance(v)) ? Optional.of((T) v) : Optional.empty());
+            }
+        } catch (Exception e) {
+            log.error("Redis MGET failed for {} keys of {}", keys.size(), k, e);
+            return Collections.nCopies(keys.size(), Optional.empty());
+        } finally {
+            recordBatch("mget", k, keys.size(), start);
+        }
+        long hits = results.stream().filter(Optional::isPresent).count();
+        meterRegistry.counter("cache.batch.keys", "op", "mget", "key", k.name(), "result", "hit").increment(hits);
+        meterRegistry.counter("cache.batch.keys", "op", "mget", "key", k.name(), "result", "miss").increment(keys.size() - hits);
+        return results;
+    }
+
+    @Override
+    public <T> void setAll(CacheKey k, Duration ttl, Map<?, T> values) {
+        List<Map.Entry<String, T>> entries = new ArrayList<>(values.size());
+        values.forEach((arg, val) -> {
+            if (val != null) entries.add(Map.entry(batchKey(k, arg), val));
+        });
+        if (entries.isEmpty()) return;
+        long start = System.nanoTime();
+        try {
+            for (int from = 0; from < entries.size(); from += PIPELINE_CHUNK_SIZE) {
+                List<Map.Entry<String, T>> chunk = entries.subList(from, Math.min(from + PIPELINE_CHUNK_SIZE, entries.size()));
+                redisTemplate.executePipelined(new SessionCallback<Object>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Object execute(RedisOperations operations) throws DataAccessException {
+                        ValueOperations<String, Object> pipelinedOps = operations.opsForValue();
+                        chunk.forEach(entry -> pipelinedOps.set(entry.getKey(), entry.getValue(), ttl));
+                        return null;
+                    }
+                });
+            }
+        } catch (Exception e) {
+            log.error("Redis pipelined SET failed for {} keys of {}", entries.size(), k, e);
+        } finally {
+            recordBatch("mset", k, entries.size(), start);
+        }
+    }
+
+    @Override
+    public long deleteAll(CacheKey k, Collection<?> args) {
+        if (args.isEmpty()) return 0L;
+        List<String> keys = args.stream().map(arg -> batchKey(k, arg)).toList();
+        long start = System.nanoTime();
+        try {
+            Long deleted = redisTemplate.delete(keys);
+            return deleted == null ? 0L : deleted;
+        } catch (Exception e) {
+            log.error("Redis DEL failed for {} keys of {}", keys.size(), k, e);
+            return 0L;
+        } finally {
+            recordBatch("del", k, keys.size(), start);
+        }
+    }
+
+    private void recordBatch(String op, CacheKey k, int size, long startNanos) {
+        Timer.builder("cache.batch.latency")
+                .tag("op", op)
+                .tag("key", k.name())
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("cache.batch.size")
+                .tag("op", op)
+                .tag("key", k.name())
+                .register(meterRegistry)
+                .record(size);
     }
 }
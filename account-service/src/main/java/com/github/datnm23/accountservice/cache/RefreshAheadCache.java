@@ -0,0 +1,242 @@
+package com.github.datnm23.accountservice.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Refresh-ahead cho entry được đọc nhiều: khi entry đã vào đoạn cuối TTL ({@code refreshFraction}) và có ít nhất
+ * {@code minHits} lượt đọc trên instance này, nó được nạp lại ở background qua {@link CacheRefresher}
+ * trong khi caller vẫn nhận giá trị hiện tại.
+ * <p>
+ * Thời điểm refresh được rải ngẫu nhiên theo XFetch (probabilistic early expiration): mỗi lượt đọc refresh khi
+ * {@code remaining <= delta * beta * -ln(U)}, U ~ Uniform(0,1). Entry càng gần hết hạn và càng được đọc nhiều thì
+ * càng sớm được refresh, các instance không cùng lúc dồn xuống DB.
+ * <p>
+ * Hạn của entry được theo dõi cục bộ: lấy bằng PTTL ở lượt đọc đầu tiên, cập nhật lại mỗi lần ghi.
+ */
+@Slf4j
+public class RefreshAheadCache implements Cache {
+
+    // delta tối thiểu = 1/10 cửa sổ refresh, để việc rải refresh có tác dụng cả khi DB trả về trong vài ms
+    private static final int MIN_DELTA_DIVISOR = 10;
+    private static final long UNKNOWN = -1L;
+
+    private final Cache delegate;
+    private final StringRedisTemplate redisTemplate;
+    private final String redisKeyPrefix;
+    private final long ttlMillis;
+    private final long windowMillis;
+    private final int minHits;
+    private final double beta;
+    private final CacheRefresher refresher;
+    private final com.github.benmanes.caffeine.cache.Cache<String, EntryMeta> metadata;
+
+    private final Counter scheduled;
+    private final Counter rejected;
+    private final Counter refreshed;
+    private final Counter evicted;
+    private final Counter failed;
+    // EWMA thời gian nạp lại (ms), dùng làm delta của XFetch
+    private volatile double loadMillisEwma;
+
+    public RefreshAheadCache(Cache delegate, StringRedisTemplate redisTemplate, String redisKeyPrefix,
+                             Duration ttl, double refreshFraction, int minHits, double beta, long maxTrackedEntries,
+                             CacheRefresher refresher, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.redisTemplate = redisTemplate;
+        this.redisKeyPrefix = redisKeyPrefix;
+        this.ttlMillis = ttl.toMillis();
+        this.windowMillis = (long) (ttlMillis * refreshFraction);
+        this.minHits = minHits;
+        this.beta = beta;
+        this.refresher = refresher;
+        this.metadata = Caffeine.newBuilder()
+                .maximumSize(maxTrackedEntries)
+                .expireAfterWrite(ttl)
+                .build();
+        this.scheduled = refreshes(meterRegistry, "scheduled");
+        this.rejected = refreshes(meterRegistry, "rejected");
+        this.refreshed = refreshes(meterRegistry, "refreshed");
+        this.evicted = refreshes(meterRegistry, "evicted");
+        this.failed = refreshes(meterRegistry, "failed");
+    }
+
+    private Counter refreshes(MeterRegistry registry, String result) {
+        return Counter.builder("cache.refresh.ahead")
+                .tag("cache", getName())
+                .tag("result", result)
+                .register(registry);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper value = delegate.get(key);
+        if (value != null) {
+            onHit(key);
+        }
+        return value;
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        T value = delegate.get(key, type);
+        if (value != null) {
+            onHit(key);
+        }
+        return value;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = delegate.get(key);
+        if (cached != null) {
+            onHit(key);
+            @SuppressWarnings("unchecked")
+            T value = (T) cached.get();
+            return value;
+        }
+        T value = delegate.get(key, valueLoader);
+        track(key);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        track(key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, value);
+        if (existing == null) {
+            track(key);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        metadata.invalidate(String.valueOf(key));
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        metadata.invalidate(String.valueOf(key));
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        metadata.invalidateAll();
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        metadata.invalidateAll();
+        return delegate.invalidate();
+    }
+
+    private void track(Object key) {
+        metadata.put(String.valueOf(key), new EntryMeta(System.currentTimeMillis() + ttlMillis));
+    }
+
+    private void onHit(Object key) {
+        if (windowMillis <= 0 || !refresher.hasLoader(getName())) {
+            return;
+        }
+        EntryMeta meta = metadata.get(String.valueOf(key), this::fetchMeta);
+        if (meta == null || meta.expiresAt == UNKNOWN) {
+            return;
+        }
+        int hits = meta.hits.incrementAndGet();
+        long remaining = meta.expiresAt - System.currentTimeMillis();
+        if (hits < minHits || remaining > windowMillis || !shouldRefreshEarly(remaining)) {
+            return;
+        }
+        if (!meta.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.nanoTime();
+        boolean submitted = refresher.submit(getName(), key,
+                value -> onRefreshed(key, value, start),
+                () -> {
+                    failed.increment();
+                    meta.refreshing.set(false);
+                });
+        if (submitted) {
+            scheduled.increment();
+        } else {
+            rejected.increment();
+            meta.refreshing.set(false);
+        }
+    }
+
+    private boolean shouldRefreshEarly(long remainingMillis) {
+        if (remainingMillis <= 0) {
+            return true;
+        }
+        double delta = Math.max(loadMillisEwma, (double) windowMillis / MIN_DELTA_DIVISOR);
+        double u = 1.0 - ThreadLocalRandom.current().nextDouble(); // (0, 1]
+        return remainingMillis <= delta * beta * -Math.log(u);
+    }
+
+    private void onRefreshed(Object key, Object value, long startNanos) {
+        double loadMillis = (System.nanoTime() - startNanos) / 1_000_000.0;
+        loadMillisEwma = loadMillisEwma == 0 ? loadMillis : 0.8 * loadMillisEwma + 0.2 * loadMillis;
+        if (value == null) {
+            // Bản ghi không còn (đã xoá...): bỏ entry thay vì giữ giá trị cũ tới hết TTL
+            delegate.evict(key);
+            metadata.invalidate(String.valueOf(key));
+            evicted.increment();
+            return;
+        }
+        delegate.put(key, value);
+        track(key);
+        refreshed.increment();
+    }
+
+    // Entry được ghi trước khi instance này khởi động (hoặc bởi instance khác): hỏi Redis TTL còn lại
+    private EntryMeta fetchMeta(String key) {
+        try {
+            Long pttl = redisTemplate.getExpire(redisKeyPrefix + key, TimeUnit.MILLISECONDS);
+            return new EntryMeta(pttl != null && pttl > 0 ? System.currentTimeMillis() + pttl : UNKNOWN);
+        } catch (Exception e) {
+            log.error("Redis PTTL failed for {}{}", redisKeyPrefix, key, e);
+            return new EntryMeta(UNKNOWN);
+        }
+    }
+
+    private static final class EntryMeta {
+        final long expiresAt;
+        final AtomicInteger hits = new AtomicInteger();
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        EntryMeta(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.github.datnm23.accountservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Gộp các lần cache miss đồng thời cho cùng một key thành một lần gọi loader.
+ * <ul>
+ *   <li>Trong một JVM: request đầu tiên nạp dữ liệu, các request khác chờ trên cùng một future.</li>
+ *   <li>Giữa các instance: khoá Redis ngắn hạn (SET NX PX); instance không giữ khoá sẽ poll cache
+ *   cho đến khi giá trị xuất hiện, hết thời gian chờ thì tự nạp.</li>
+ * </ul>
+ * Chỉ có tác dụng với {@link #get(Object, Callable)}, tức các {@code @Cacheable} chạy ở chế độ sync
+ * (xem {@link SingleFlightCacheOperationPostProcessor}).
+ */
+@Slf4j
+public class SingleFlightCache implements Cache {
+
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final Cache delegate;
+    private final StringRedisTemplate redisTemplate;
+    private final String lockPrefix;
+    private final Duration lockTtl;
+    private final Duration waitTimeout;
+    private final Duration pollInterval;
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter loads;
+    private final Counter collapsedLocal;
+    private final Counter collapsedRemote;
+
+    public SingleFlightCache(Cache delegate, StringRedisTemplate redisTemplate, String lockPrefix,
+                             Duration lockTtl, Duration waitTimeout, Duration pollInterval,
+                             MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.redisTemplate = redisTemplate;
+        this.lockPrefix = lockPrefix;
+        this.lockTtl = lockTtl;
+        this.waitTimeout = waitTimeout;
+        this.pollInterval = pollInterval;
+        this.loads = loads(meterRegistry, "loaded");
+        this.collapsedLocal = loads(meterRegistry, "collapsed-local");
+        this.collapsedRemote = loads(meterRegistry, "collapsed-remote");
+    }
+
+    private Counter loads(MeterRegistry registry, String outcome) {
+        return Counter.builder("cache.single.flight")
+                .tag("cache", getName())
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = delegate.get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+
+        String flightKey = String.valueOf(key);
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(flightKey, mine);
+        if (leader != null) {
+            collapsedLocal.increment();
+            return (T) awaitLeader(leader, key, valueLoader);
+        }
+
+        try {
+            Object value = loadOnce(key, flightKey, valueLoader);
+            mine.complete(value);
+            return (T) value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, mine);
+        }
+    }
+
+    private Object awaitLeader(CompletableFuture<Object> leader, Object key, Callable<?> valueLoader) {
+        try {
+            return leader.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new ValueRetrievalException(key, valueLoader, e.getCause());
+        } catch (TimeoutException e) {
+            log.warn("Timed out waiting for in-flight load of {}::{}, loading directly", getName(), key);
+            return load(key, valueLoader);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    private Object loadOnce(Object key, String flightKey, Callable<?> valueLoader) {
+        String lockKey = lockPrefix + getName() + "::" + flightKey;
+        String token = UUID.randomUUID().toString();
+        Boolean acquired = tryLock(lockKey, token);
+
+        if (Boolean.FALSE.equals(acquired)) {
+            // Instance khác đang nạp key này: chờ giá trị xuất hiện trong cache
+            long deadline = System.nanoTime() + waitTimeout.toNanos();
+            while (System.nanoTime() < deadline) {
+                sleep(key, valueLoader);
+                ValueWrapper cached = delegate.get(key);
+                if (cached != null) {
+                    collapsedRemote.increment();
+                    return cached.get();
+                }
+                acquired = tryLock(lockKey, token);
+                if (!Boolean.FALSE.equals(acquired)) {
+                    break;
+                }
+            }
+        }
+
+        try {
+            if (Boolean.TRUE.equals(acquired)) {
+                // Double-check: instance giữ khoá trước có thể vừa ghi xong
+                ValueWrapper cached = delegate.get(key);
+                if (cached != null) {
+                    collapsedRemote.increment();
+                    return cached.get();
+                }
+            }
+            return load(key, valueLoader);
+        } finally {
+            if (Boolean.TRUE.equals(acquired)) {
+                unlock(lockKey, token);
+            }
+        }
+    }
+
+    private Object load(Object key, Callable<?> valueLoader) {
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        loads.increment();
+        if (value != null) {
+            delegate.put(key, value);
+        }
+        return value;
+    }
+
+    // null = Redis lỗi: bỏ qua khoá phân tán, chỉ còn gộp trong JVM
+    private Boolean tryLock(String lockKey, String token) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(lockKey, token, lockTtl));
+        } catch (Exception e) {
+            log.error("Redis SET NX failed for lock {}", lockKey, e);
+            return null;
+        }
+    }
+
+    private void unlock(String lockKey, String token) {
+        try {
+            redisTemplate.execute(UNLOCK_SCRIPT, List.of(lockKey), token);
+        } catch (Exception e) {
+            log.error("Redis unlock failed for lock {}", lockKey, e);
+        }
+    }
+
+    private void sleep(Object key, Callable<?> valueLoader) {
+        try {
+            Thread.sleep(pollInterval.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+}
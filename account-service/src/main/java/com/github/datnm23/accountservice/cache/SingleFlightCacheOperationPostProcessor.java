@@ -0,0 +1,83 @@
+package com.github.datnm23.accountservice.cache;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cache.interceptor.CacheInterceptor;
+import org.springframework.cache.interceptor.CacheOperation;
+import org.springframework.cache.interceptor.CacheOperationSource;
+import org.springframework.cache.interceptor.CacheableOperation;
+import org.springframework.core.MethodClassKey;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chuyển các {@code @Cacheable} của những cache được chỉ định sang chế độ sync mà không phải sửa annotation,
+ * để Spring gọi {@code Cache.get(key, loader)} và {@link SingleFlightCache} gộp được các lần miss.
+ * <p>
+ * Chế độ sync không cho phép {@code unless}, nên điều kiện {@code unless = "#result == null"} bị bỏ đi:
+ * các method này ném exception thay vì trả về null, và {@link SingleFlightCache} không ghi giá trị null.
+ */
+public class SingleFlightCacheOperationPostProcessor implements BeanPostProcessor {
+
+    private final Set<String> cacheNames;
+
+    public SingleFlightCacheOperationPostProcessor(Set<String> cacheNames) {
+        this.cacheNames = Set.copyOf(cacheNames);
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof CacheInterceptor interceptor && interceptor.getCacheOperationSource() != null) {
+            interceptor.setCacheOperationSource(new SyncingSource(interceptor.getCacheOperationSource()));
+        }
+        return bean;
+    }
+
+    private final class SyncingSource implements CacheOperationSource {
+
+        private final CacheOperationSource delegate;
+        private final Map<MethodClassKey, Collection<CacheOperation>> rewritten = new ConcurrentHashMap<>();
+
+        private SyncingSource(CacheOperationSource delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean isCandidateClass(Class<?> targetClass) {
+            return delegate.isCandidateClass(targetClass);
+        }
+
+        @Override
+        public Collection<CacheOperation> getCacheOperations(Method method, Class<?> targetClass) {
+            Collection<CacheOperation> operations = delegate.getCacheOperations(method, targetClass);
+            if (operations == null || operations.size() != 1) {
+                return operations;
+            }
+            return rewritten.computeIfAbsent(new MethodClassKey(method, targetClass), k -> rewrite(operations));
+        }
+
+        private Collection<CacheOperation> rewrite(Collection<CacheOperation> operations) {
+            CacheOperation operation = operations.iterator().next();
+            if (!(operation instanceof CacheableOperation cacheable)
+                    || cacheable.isSync()
+                    || cacheable.getCacheNames().size() != 1
+                    || !cacheNames.containsAll(cacheable.getCacheNames())) {
+                return operations;
+            }
+            CacheableOperation.Builder builder = new CacheableOperation.Builder();
+            builder.setName(cacheable.getName());
+            builder.setCacheNames(cacheable.getCacheNames().toArray(String[]::new));
+            builder.setKey(cacheable.getKey());
+            builder.setKeyGenerator(cacheable.getKeyGenerator());
+            builder.setCacheManager(cacheable.getCacheManager());
+            builder.setCacheResolver(cacheable.getCacheResolver());
+            builder.setCondition(cacheable.getCondition());
+            builder.setSync(true);
+            return List.of(builder.build());
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.datnm23.accountservice.cache;
+
+import com.github.datnm23.accountservice.config.AppConstants;
+import com.github.datnm23.accountservice.mapper.UserMapper;
+import com.github.datnm23.accountservice.repository.UserRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Đăng ký loader refresh-ahead cho các cache user. Loader chạy trong transaction (đọc từ primary) của
+ * {@link CacheRefresher}; trả về null khi user không còn để entry bị xoá khỏi cache.
+ * <p>
+ * {@code oauthProviderCache} chưa có method {@code @Cacheable} nào đọc nên chưa có loader.
+ */
+@Component
+public class UserCacheRefreshLoaders {
+
+    public UserCacheRefreshLoaders(CacheRefresher cacheRefresher, UserRepository userRepository, UserMapper userMapper) {
+        cacheRefresher.register(AppConstants.CACHE_USER_BY_ID, key -> userRepository.findById((UUID) key)
+                .map(userMapper::toUserDTO)
+                .orElse(null));
+    }
+}
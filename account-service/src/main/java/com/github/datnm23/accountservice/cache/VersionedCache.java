@@ -0,0 +1,153 @@
+package com.github.datnm23.accountservice.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.util.ByteUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+/**
+ * Ghi cache kiểu compare-and-set theo version của entity ({@code @Version}): mỗi entry có một key phụ
+ * {@code <key>::ver} giữ version đã ghi, và một giá trị mang version cũ hơn không bao giờ ghi đè được giá trị mới hơn
+ * (ví dụ {@code getUserById} đọc DB trước một lần update nhưng ghi cache sau {@code @CachePut} của update đó).
+ * <p>
+ * Phải là layer nằm ngay trên {@link RedisCache}: giá trị được serialize bằng chính cấu hình của cache đó.
+ * Key version sống gấp đôi TTL của entry và được giữ lại khi evict, để một lần nạp cũ đang dở dang
+ * không ghi lại được sau khi entry bị xoá.
+ */
+@Slf4j
+public class VersionedCache implements Cache {
+
+    public static final String VERSION_SUFFIX = "::ver";
+
+    // KEYS[1] = key giá trị, KEYS[2] = key version; ARGV[1] = version, ARGV[2] = giá trị, ARGV[3] = TTL (ms), 0 = không hết hạn
+    // Trả về 1 nếu đã ghi, 0 nếu version hiện có mới hơn
+    private static final RedisScript<Long> COMPARE_AND_SET_SCRIPT = new DefaultRedisScript<>(
+            "local current = redis.call('GET', KEYS[2]) " +
+            "if current and tonumber(current) > tonumber(ARGV[1]) then return 0 end " +
+            "local ttl = tonumber(ARGV[3]) " +
+            "if ttl > 0 then " +
+            "  redis.call('SET', KEYS[1], ARGV[2], 'PX', ttl) " +
+            "  redis.call('SET', KEYS[2], ARGV[1], 'PX', ttl * 2) " +
+            "else " +
+            "  redis.call('SET', KEYS[1], ARGV[2]) " +
+            "  redis.call('SET', KEYS[2], ARGV[1]) " +
+            "end " +
+            "return 1",
+            Long.class);
+
+    private static final RedisSerializer<Long> RESULT_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
+    private final RedisCache delegate;
+    private final RedisCacheConfiguration config;
+    private final StringRedisTemplate redisTemplate;
+    private final Function<Object, Long> versionOf;
+
+    public VersionedCache(RedisCache delegate, StringRedisTemplate redisTemplate, Function<Object, Long> versionOf) {
+        this.delegate = delegate;
+        this.config = delegate.getCacheConfiguration();
+        this.redisTemplate = redisTemplate;
+        this.versionOf = versionOf;
+    }
+
+    public static String versionKey(String redisKey) {
+        return redisKey + VERSION_SUFFIX;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = delegate.get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Long version = value != null ? versionOf.apply(value) : null;
+        if (version == null) {
+            delegate.put(key, value);
+            return;
+        }
+        String redisKey = config.getKeyPrefixFor(getName()) + key;
+        Duration ttl = config.getTtlFunction().getTimeToLive(key, value);
+        long ttlMillis = ttl == null || ttl.isNegative() ? 0L : ttl.toMillis();
+        byte[] rawValue = ByteUtils.getBytes(config.getValueSerializationPair().write(value));
+        try {
+            Long written = redisTemplate.execute(COMPARE_AND_SET_SCRIPT, RedisSerializer.byteArray(), RESULT_SERIALIZER,
+                    List.of(redisKey, versionKey(redisKey)),
+                    String.valueOf(version).getBytes(StandardCharsets.UTF_8), rawValue,
+                    String.valueOf(ttlMillis).getBytes(StandardCharsets.UTF_8));
+            if (!Long.valueOf(1L).equals(written)) {
+                log.debug("Skipped stale write of {}::{} at version {}", getName(), key, version);
+            }
+        } catch (Exception e) {
+            log.error("Redis versioned SET failed for {}::{}", getName(), key, e);
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.datnm23.accountservice.cache.codec;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializer giá trị cache dạng nhị phân cho các kiểu có {@link CacheValueCodec}; các kiểu khác
+ * (và mọi entry JSON cũ đã có trong Redis) đi qua serializer JSON {@code fallback}.
+ * <p>
+ * Layout: {@code MAGIC | typeId | schemaVersion | flags | [originalLength nếu nén] | body}.
+ * Body lớn hơn {@code compressionThreshold} byte được nén LZ4. Byte đầu {@code MAGIC} không thể là
+ * byte đầu của một JSON hợp lệ nên hai định dạng phân biệt được mà không cần cờ riêng.
+ * <p>
+ * Khi {@code writeBinary = false} serializer chỉ ghi JSON nhưng vẫn đọc được cả hai định dạng:
+ * dùng cho giai đoạn rollout khi còn instance cũ chỉ hiểu JSON.
+ */
+public class BinaryCacheValueSerializer implements RedisSerializer<Object> {
+
+    static final byte MAGIC = (byte) 0xB1;
+    private static final int FLAG_LZ4 = 1;
+    private static final int HEADER_LENGTH = 4;
+
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4FastDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+
+    private final RedisSerializer<Object> fallback;
+    private final boolean writeBinary;
+    private final int compressionThreshold;
+    private final Map<Class<?>, CacheValueCodec<?>> codecsByType = new HashMap<>();
+    private final Map<Integer, CacheValueCodec<?>> codecsById = new HashMap<>();
+
+    public BinaryCacheValueSerializer(List<CacheValueCodec<?>> codecs, RedisSerializer<Object> fallback,
+                                      boolean writeBinary, int compressionThreshold) {
+        this.fallback = fallback;
+        this.writeBinary = writeBinary;
+        this.compressionThreshold = compressionThreshold;
+        for (CacheValueCodec<?> codec : codecs) {
+            if (codecsById.put(codec.typeId(), codec) != null) {
+                throw new IllegalArgumentException("Duplicate cache codec type id: " + codec.typeId());
+            }
+            codecsByType.put(codec.type(), codec);
+        }
+    }
+
+    public static List<CacheValueCodec<?>> defaultCodecs() {
+        return List.of(new UserDTOCodec(), new UserProfileDTOCodec(), new UserDetailDTOCodec());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public byte[] serialize(Object value) throws SerializationException {
+        CacheValueCodec<Object> codec = value == null ? null : (CacheValueCodec<Object>) codecsByType.get(value.getClass());
+        if (!writeBinary || codec == null) {
+            return fallback.serialize(value);
+        }
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+            codec.write(value, new DataOutputStream(body));
+            byte[] raw = body.toByteArray();
+
+            boolean compress = raw.length > compressionThreshold;
+            byte[] payload = compress ? COMPRESSOR.compress(raw) : raw;
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + (compress ? Integer.BYTES : 0) + payload.length);
+            buffer.put(MAGIC)
+                    .put((byte) codec.typeId())
+                    .put((byte) codec.schemaVersion())
+                    .put((byte) (compress ? FLAG_LZ4 : 0));
+            if (compress) {
+                buffer.putInt(raw.length);
+            }
+            return buffer.put(payload).array();
+        } catch (IOException e) {
+            throw new SerializationException("Could not write " + value.getClass().getSimpleName(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return fallback.deserialize(bytes);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.get();
+        int typeId = Byte.toUnsignedInt(buffer.get());
+        int schemaVersion = Byte.toUnsignedInt(buffer.get());
+        int flags = buffer.get();
+        CacheValueCodec<?> codec = codecsById.get(typeId);
+        if (codec == null) {
+            throw new SerializationException("Unknown cache codec type id: " + typeId);
+        }
+        if (schemaVersion > codec.schemaVersion()) {
+            // Entry do instance mới hơn ghi: coi như lỗi đọc, Spring sẽ nạp lại từ DB
+            throw new SerializationException("Unsupported schema version " + schemaVersion + " for " + codec.type().getSimpleName());
+        }
+        try {
+            byte[] body;
+            if ((flags & FLAG_LZ4) != 0) {
+                int originalLength = buffer.getInt();
+                byte[] compressed = new byte[buffer.remaining()];
+                buffer.get(compressed);
+                body = DECOMPRESSOR.decompress(compressed, originalLength);
+            } else {
+                body = new byte[buffer.remaining()];
+                buffer.get(body);
+            }
+            return codec.read(new DataInputStream(new ByteArrayInputStream(body)), schemaVersion);
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Could not read " + codec.type().getSimpleName(), e);
+        }
+    }
+}
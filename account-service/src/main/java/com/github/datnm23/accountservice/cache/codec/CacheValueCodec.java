@@ -0,0 +1,24 @@
+package com.github.datnm23.accountservice.cache.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Codec nhị phân cho một kiểu giá trị cache.
+ * <p>
+ * {@link #typeId()} được ghi vào header nên không được đổi sau khi đã phát hành. Khi thêm/bớt field,
+ * tăng {@link #schemaVersion()} và giữ {@link #read} đọc được mọi version cũ còn có thể nằm trong Redis.
+ */
+public interface CacheValueCodec<T> {
+
+    int typeId();
+
+    Class<T> type();
+
+    int schemaVersion();
+
+    void write(T value, DataOutput out) throws IOException;
+
+    T read(DataInput in, int schemaVersion) throws IOException;
+}
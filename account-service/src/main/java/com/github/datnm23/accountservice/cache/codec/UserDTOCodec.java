@@ -0,0 +1,115 @@
+package com.github.datnm23.accountservice.cache.codec;
+
+import com.github.datnm23.accountservice.dto.OAuthProviderDTO;
+import com.github.datnm23.accountservice.dto.UserDTO;
+import com.github.datnm23.accountservice.statics.AccountStatus;
+import com.github.datnm23.accountservice.statics.Provider;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.datnm23.accountservice.cache.codec.CodecIO.*;
+
+public class UserDTOCodec implements CacheValueCodec<UserDTO> {
+
+    public static final int TYPE_ID = 1;
+
+    private final UserProfileDTOCodec profileCodec = new UserProfileDTOCodec();
+
+    @Override
+    public int typeId() {
+        return TYPE_ID;
+    }
+
+    @Override
+    public Class<UserDTO> type() {
+        return UserDTO.class;
+    }
+
+    @Override
+    public int schemaVersion() {
+        return 2; // v2: thêm version của entity
+    }
+
+    @Override
+    public void write(UserDTO user, DataOutput out) throws IOException {
+        writeUuid(out, user.getUserId());
+        writeString(out, user.getEmail());
+        writeString(out, user.getFirstName());
+        writeString(out, user.getLastName());
+        writeString(out, user.getFullName());
+        writeEnum(out, user.getStatus());
+        out.writeBoolean(user.isActive());
+        out.writeBoolean(user.isEmailVerified());
+        writeOffsetDateTime(out, user.getCreatedAt());
+        writeOffsetDateTime(out, user.getUpdatedAt());
+        writeOffsetDateTime(out, user.getLastLoginAt());
+
+        out.writeBoolean(user.getProfile() != null);
+        if (user.getProfile() != null) {
+            out.writeByte(profileCodec.schemaVersion());
+            profileCodec.write(user.getProfile(), out);
+        }
+
+        List<OAuthProviderDTO> providers = user.getOauthProviders();
+        out.writeInt(providers == null ? -1 : providers.size());
+        if (providers != null) {
+            for (OAuthProviderDTO provider : providers) {
+                writeUuid(out, provider.getUserId());
+                writeEnum(out, provider.getProvider());
+                writeString(out, provider.getExternalId());
+                writeString(out, provider.getEmail());
+                writeString(out, provider.getDisplayName());
+                writeOffsetDateTime(out, provider.getCreatedAt());
+                writeOffsetDateTime(out, provider.getUpdatedAt());
+                writeOffsetDateTime(out, provider.getDeletedAt());
+            }
+        }
+        writeNullableLong(out, user.getVersion());
+    }
+
+    @Override
+    public UserDTO read(DataInput in, int schemaVersion) throws IOException {
+        UserDTO user = new UserDTO();
+        user.setUserId(readUuid(in));
+        user.setEmail(readString(in));
+        user.setFirstName(readString(in));
+        user.setLastName(readString(in));
+        user.setFullName(readString(in));
+        user.setStatus(readEnum(in, AccountStatus.class));
+        user.setActive(in.readBoolean());
+        user.setEmailVerified(in.readBoolean());
+        user.setCreatedAt(readOffsetDateTime(in));
+        user.setUpdatedAt(readOffsetDateTime(in));
+        user.setLastLoginAt(readOffsetDateTime(in));
+
+        if (in.readBoolean()) {
+            user.setProfile(profileCodec.read(in, in.readUnsignedByte()));
+        }
+
+        int providerCount = in.readInt();
+        if (providerCount >= 0) {
+            List<OAuthProviderDTO> providers = new ArrayList<>(providerCount);
+            for (int i = 0; i < providerCount; i++) {
+                providers.add(OAuthProviderDTO.builder()
+                        .userId(readUuid(in))
+                        .provider(readEnum(in, Provider.class))
+                        .externalId(readString(in))
+                        .email(readString(in))
+                        .displayName(readString(in))
+                        .createdAt(readOffsetDateTime(in))
+                        .updatedAt(readOffsetDateTime(in))
+                        .deletedAt(readOffsetDateTime(in))
+                        .build());
+            }
+            user.setOauthProviders(providers);
+        }
+        if (schemaVersion >= 2) {
+            user.setVersion(readNullableLong(in));
+        }
+        return user;
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.datnm23.accountservice.cache.codec;
+
+import com.github.datnm23.accountservice.dto.UserDetailDTO;
+import com.github.datnm23.accountservice.statics.Gender;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import static com.github.datnm23.accountservice.cache.codec.CodecIO.*;
+
+public class UserDetailDTOCodec implements CacheValueCodec<UserDetailDTO> {
+
+    public static final int TYPE_ID = 3;
+
+    @Override
+    public int typeId() {
+        return TYPE_ID;
+    }
+
+    @Override
+    public Class<UserDetailDTO> type() {
+        return UserDetailDTO.class;
+    }
+
+    @Override
+    public int schemaVersion() {
+        return 1;
+    }
+
+    @Override
+    public void write(UserDetailDTO detail, DataOutput out) throws IOException {
+        writeUuid(out, detail.getUserId());
+        writeString(out, detail.getEmail());
+        writeString(out, detail.getFirstName());
+        writeString(out, detail.getLastName());
+        writeString(out, detail.getFullName());
+        out.writeBoolean(detail.isActive());
+        out.writeBoolean(detail.isEmailVerified());
+        writeOffsetDateTime(out, detail.getCreatedAt());
+        writeString(out, detail.getAvatarUrl());
+        writeString(out, detail.getBio());
+        writeLocalDate(out, detail.getDateOfBirth());
+        writeEnum(out, detail.getGender());
+        writeString(out, detail.getPhone());
+        writeString(out, detail.getAddress());
+        writeString(out, detail.getCity());
+        writeString(out, detail.getCountry());
+        writeString(out, detail.getLanguage());
+        out.writeBoolean(detail.isEmailNotifications());
+        out.writeBoolean(detail.isPushNotifications());
+    }
+
+    @Override
+    public UserDetailDTO read(DataInput in, int schemaVersion) throws IOException {
+        UserDetailDTO detail = new UserDetailDTO();
+        detail.setUserId(readUuid(in));
+        detail.setEmail(readString(in));
+        detail.setFirstName(readString(in));
+        detail.setLastName(readString(in));
+        detail.setFullName(readString(in));
+        detail.setActive(in.readBoolean());
+        detail.setEmailVerified(in.readBoolean());
+        detail.setCreatedAt(readOffsetDateTime(in));
+        detail.setAvatarUrl(readString(in));
+        detail.setBio(readString(in));
+        detail.setDateOfBirth(readLocalDate(in));
+        detail.setGender(readEnum(in, Gender.class));
+        detail.setPhone(readString(in));
+        detail.setAddress(readString(in));
+        detail.setCity(readString(in));
+        detail.setCountry(readString(in));
+        detail.setLanguage(readString(in));
+        detail.setEmailNotifications(in.readBoolean());
+        detail.setPushNotifications(in.readBoolean());
+        return detail;
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.datnm23.accountservice.cache.codec;
+
+import com.github.datnm23.accountservice.dto.UserProfileDTO;
+import com.github.datnm23.accountservice.statics.Gender;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import static com.github.datnm23.accountservice.cache.codec.CodecIO.*;
+
+public class UserProfileDTOCodec implements CacheValueCodec<UserProfileDTO> {
+
+    public static final int TYPE_ID = 2;
+
+    @Override
+    public int typeId() {
+        return TYPE_ID;
+    }
+
+    @Override
+    public Class<UserProfileDTO> type() {
+        return UserProfileDTO.class;
+    }
+
+    @Override
+    public int schemaVersion() {
+        return 1;
+    }
+
+    @Override
+    public void write(UserProfileDTO profile, DataOutput out) throws IOException {
+        writeUuid(out, profile.getUserId());
+        writeString(out, profile.getAvatarUrl());
+        writeString(out, profile.getBio());
+        writeLocalDate(out, profile.getDateOfBirth());
+        writeEnum(out, profile.getGender());
+        writeString(out, profile.getPhone());
+        writeString(out, profile.getAddress());
+        writeString(out, profile.getCity());
+        writeString(out, profile.getCountry());
+        writeString(out, profile.getLanguage());
+        out.writeBoolean(profile.isEmailNotifications());
+        out.writeBoolean(profile.isPushNotifications());
+        writeOffsetDateTime(out, profile.getCreatedAt());
+        writeOffsetDateTime(out, profile.getUpdatedAt());
+        writeOffsetDateTime(out, profile.getDeletedAt());
+    }
+
+    @Override
+    public UserProfileDTO read(DataInput in, int schemaVersion) throws IOException {
+        UserProfileDTO profile = new UserProfileDTO();
+        profile.setUserId(readUuid(in));
+        profile.setAvatarUrl(readString(in));
+        profile.setBio(readString(in));
+        profile.setDateOfBirth(readLocalDate(in));
+        profile.setGender(readEnum(in, Gender.class));
+        profile.setPhone(readString(in));
+        profile.setAddress(readString(in));
+        profile.setCity(readString(in));
+        profile.setCountry(readString(in));
+        profile.setLanguage(readString(in));
+        profile.setEmailNotifications(in.readBoolean());
+        profile.setPushNotifications(in.readBoolean());
+        profile.setCreatedAt(readOffsetDateTime(in));
+        profile.setUpdatedAt(readOffsetDateTime(in));
+        profile.setDeletedAt(readOffsetDateTime(in));
+        return profile;
+    }
+}
@@ -0,0 +1,156 @@
+package com.github.datnm23.accountservice.client;
+
+import com.github.datnm23.accountservice.client.SecurityServiceClient.HashRequest;
+import com.github.datnm23.accountservice.client.SecurityServiceClient.HashResult;
+import com.github.datnm23.accountservice.security.LocalPasswordHashEngine;
+import feign.FeignException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hash mật khẩu qua security-service.
+ * <p>
+ * Một mật khẩu ({@link #hash}, đăng ký) được hash ngay trên thread của caller bằng
+ * {@link SecurityServiceClient#hashPassword}, không xếp hàng sau các lô import. Danh sách ({@link #hashAll}, import)
+ * được hash bất đồng bộ trên pool riêng: chia thành lô {@code app.security-client.hash-batch-size} và gửi bằng
+ * {@link SecurityServiceClient#hashPasswords}, tối đa {@code app.security-client.hash-parallelism} lô cùng lúc.
+ * Một lô lỗi chỉ làm các phần tử của lô đó lỗi; nếu security-service chưa có endpoint batch (404), lô đó được
+ * hash lần lượt bằng {@link SecurityServiceClient#hashPassword} và endpoint batch không được thử lại trong
+ * {@link #BATCH_ENDPOINT_RECHECK}.
+ * <p>
+ * Khi {@code app.password-hashing.engine=local}, việc hash được giao cho {@link LocalPasswordHashEngine} trong process.
+ */
+@Component
+@Slf4j
+public class PasswordHasher {
+
+    // security-service được nâng cấp thì endpoint batch được dùng lại sau khoảng này
+    private static final Duration BATCH_ENDPOINT_RECHECK = Duration.ofMinutes(10);
+
+    private final SecurityServiceClient securityServiceClient;
+    private final MeterRegistry meterRegistry;
+    private final LocalPasswordHashEngine localEngine;
+    private final ExecutorService executor;
+    private final int batchSize;
+    // System.nanoTime() tới lúc được thử lại endpoint batch sau 404; 0 = chưa gặp 404
+    private volatile long batchEndpointMissingUntil;
+
+    public PasswordHasher(SecurityServiceClient securityServiceClient,
+                          MeterRegistry meterRegistry,
+                          ObjectProvider<LocalPasswordHashEngine> localEngine,
+                          @Value("${app.security-client.hash-batch-size:100}") int batchSize,
+                          @Value("${app.security-client.hash-parallelism:4}") int parallelism) {
+        this.securityServiceClient = securityServiceClient;
+        this.meterRegistry = meterRegistry;
+        this.localEngine = localEngine.getIfAvailable();
+        this.batchSize = Math.max(1, batchSize);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "password-hash-batch-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public String hash(String plainPassword) {
+        if (localEngine != null) {
+            try {
+                return localEngine.hash(plainPassword).join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        return securityServiceClient.hashPassword(new HashRequest(plainPassword)).hashedPassword();
+    }
+
+    /**
+     * @return kết quả theo đúng thứ tự đầu vào; future không bao giờ lỗi, lỗi nằm trong từng {@link HashResult}
+     */
+    public CompletableFuture<List<HashResult>> hashAll(List<String> plainPasswords) {
+        if (plainPasswords.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        if (localEngine != null) {
+            return hashAllLocally(plainPasswords);
+        }
+        List<CompletableFuture<List<HashResult>>> batches = new ArrayList<>();
+        for (int from = 0; from < plainPasswords.size(); from += batchSize) {
+            List<HashRequest> batch = plainPasswords.subList(from, Math.min(from + batchSize, plainPasswords.size()))
+                    .stream()
+                    .map(HashRequest::new)
+                    .toList();
+            batches.add(CompletableFuture.supplyAsync(() -> hashBatch(batch), executor));
+        }
+        return CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    List<HashResult> results = new ArrayList<>(plainPasswords.size());
+                    batches.forEach(batch -> results.addAll(batch.join()));
+                    return results;
+                });
+    }
+
+    private CompletableFuture<List<HashResult>> hashAllLocally(List<String> plainPasswords) {
+        return localEngine.hashAll(plainPasswords)
+                .thenApply(hashed -> hashed.stream().map(hash -> new HashResult(hash, null)).toList())
+                .exceptionally(e -> {
+                    String error = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+                    return plainPasswords.stream().map(password -> HashResult.failed(error)).toList();
+                });
+    }
+
+    private List<HashResult> hashBatch(List<HashRequest> batch) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            long missingUntil = batchEndpointMissingUntil;
+            if (missingUntil != 0 && System.nanoTime() - missingUntil < 0) {
+                outcome = "fallback";
+                return batch.stream().map(this::hashOne).toList();
+            }
+            SecurityServiceClient.BatchHashResponse response = securityServiceClient.hashPasswords(batch);
+            if (response == null || response.results() == null || response.results().size() != batch.size()) {
+                throw new IllegalStateException("Batch hash response does not match request size " + batch.size());
+            }
+            return response.results();
+        } catch (FeignException.NotFound e) {
+            outcome = "fallback";
+            batchEndpointMissingUntil = System.nanoTime() + BATCH_ENDPOINT_RECHECK.toNanos();
+            log.info("Batch hash endpoint unavailable, hashing passwords one by one for the next {}", BATCH_ENDPOINT_RECHECK);
+            return batch.stream().map(this::hashOne).toList();
+        } catch (Exception e) {
+            outcome = "failed";
+            log.warn("Batch hashing of {} passwords failed: {}", batch.size(), e.getMessage());
+            return batch.stream().map(request -> HashResult.failed(e.getMessage())).toList();
+        } finally {
+            sample.stop(meterRegistry.timer("security.hash.batch", "outcome", outcome));
+            meterRegistry.summary("security.hash.batch.size").record(batch.size());
+        }
+    }
+
+    private HashResult hashOne(HashRequest request) {
+        try {
+            return new HashResult(securityServiceClient.hashPassword(request).hashedPassword(), null);
+        } catch (Exception e) {
+            return HashResult.failed(e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
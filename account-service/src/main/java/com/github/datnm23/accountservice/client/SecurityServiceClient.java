@@ -4,13 +4,33 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
+import java.util.List;
+
 // "security-service" là tên đăng ký trên Eureka/Consul của Security Service
 @FeignClient(name = "security-service", path = "/api/v1/internal/security") // Path có thể là internal
 public interface SecurityServiceClient {
     @PostMapping("/hash")
     HashResponse hashPassword(@RequestBody HashRequest request);
 
+    // Hash nhiều mật khẩu trong một request; kết quả theo đúng thứ tự request, mỗi phần tử thành công hoặc lỗi riêng.
+    // Nên gọi qua PasswordHasher (chia lô, chạy song song có giới hạn) thay vì gọi trực tiếp.
+    @PostMapping("/hash/batch")
+    BatchHashResponse hashPasswords(@RequestBody List<HashRequest> requests);
+
     // DTOs cho request và response (đặt trong package client hoặc common DTO)
     record HashRequest(String plainPassword) {}
     record HashResponse(String hashedPassword) {}
+
+    record BatchHashResponse(List<HashResult> results) {}
+
+    // Đúng một trong hai trường khác null
+    record HashResult(String hashedPassword, String error) {
+        public static HashResult failed(String error) {
+            return new HashResult(null, error);
+        }
+
+        public boolean isSuccess() {
+            return hashedPassword != null;
+        }
+    }
 }
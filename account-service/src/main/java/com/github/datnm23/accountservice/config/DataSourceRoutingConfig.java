@@ -0,0 +1,95 @@
+package com.github.datnm23.accountservice.config;
+
+import com.github.datnm23.accountservice.datasource.ReadYourWritesTracker;
+import com.github.datnm23.accountservice.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tách đọc/ghi MySQL: transaction {@code readOnly = true} sang các replica, còn lại primary
+ * (xem {@link ReplicaRoutingDataSource}). Tắt ({@code app.datasource.routing.enabled=false}) thì Spring Boot tự tạo
+ * datasource primary như trước.
+ * <p>
+ * Replica dùng chung cấu hình Hikari/credential với primary ({@code spring.datasource.*}), chỉ khác URL và kích thước
+ * pool. Metric pool ({@code hikaricp.connections.*}, gồm thời gian chờ và thời gian giữ connection) có tag
+ * {@code pool=primary|replica-N}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Value("${app.datasource.routing.replica-urls:}")
+    private String replicaUrls;
+
+    @Value("${app.datasource.routing.replica-pool-size:10}")
+    private int replicaPoolSize;
+
+    @Value("${app.datasource.routing.max-lag:5s}")
+    private Duration maxLag;
+
+    @Value("${app.datasource.routing.read-your-writes.window:10s}")
+    private Duration readYourWritesWindow;
+
+    @Value("${app.datasource.routing.read-your-writes.max-tracked-users:100000}")
+    private long readYourWritesMaxTrackedUsers;
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker() {
+        return new ReadYourWritesTracker(readYourWritesWindow, readYourWritesMaxTrackedUsers);
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(DataSourceProperties properties, Environment environment,
+                                                      ReadYourWritesTracker readYourWritesTracker,
+                                                      MeterRegistry meterRegistry) {
+        MicrometerMetricsTrackerFactory metricsTrackerFactory = new MicrometerMetricsTrackerFactory(meterRegistry);
+
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+        primary.setMetricsTrackerFactory(metricsTrackerFactory);
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        List<String> urls = Arrays.stream(replicaUrls.split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .toList();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariConfig config = new HikariConfig();
+            primary.copyStateTo(config);
+            config.setJdbcUrl(urls.get(i));
+            config.setPoolName("replica-" + (i + 1));
+            config.setMaximumPoolSize(replicaPoolSize);
+            config.setReadOnly(true);
+            // Replica chưa lên không chặn khởi động; health check đưa vào rotation khi kết nối được
+            config.setInitializationFailTimeout(-1);
+            config.setMetricsTrackerFactory(metricsTrackerFactory);
+            replicas.add(new HikariDataSource(config));
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, readYourWritesTracker, maxLag, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
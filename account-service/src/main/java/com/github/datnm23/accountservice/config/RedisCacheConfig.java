@@ -1,19 +1,42 @@
 package com.github.datnm23.accountservice.config;
 
+import com.github.datnm23.accountservice.cache.CacheLayer;
+import com.github.datnm23.accountservice.cache.CacheRefresher;
+import com.github.datnm23.accountservice.cache.LayeredCacheManager;
+import com.github.datnm23.accountservice.cache.NearCache;
+import com.github.datnm23.accountservice.cache.NearCacheInvalidationBus;
+import com.github.datnm23.accountservice.cache.RefreshAheadCache;
+import com.github.datnm23.accountservice.cache.SingleFlightCache;
+import com.github.datnm23.accountservice.cache.SingleFlightCacheOperationPostProcessor;
+import com.github.datnm23.accountservice.cache.VersionedCache;
+import com.github.datnm23.accountservice.cache.codec.BinaryCacheValueSerializer;
+import com.github.datnm23.accountservice.dto.UserDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCache;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Configuration
 @EnableCaching
@@ -31,27 +54,130 @@ public class RedisCacheConfig {
     @Value("${app.cache.prefix:account-service}")
     private String cachePrefix;
 
+    // --- Near cache (L1 trong process trước Redis) ---
+    @Value("${app.cache.near.enabled:false}")
+    private boolean nearCacheEnabled;
+
+    @Value("${app.cache.user-cache.local.max-entries:10000}")
+    private long userCacheLocalMaxEntries;
+
+    @Value("${app.cache.user-cache.local.ttl:30s}")
+    private Duration userCacheLocalTtl;
+
+    @Value("${app.cache.user-email-cache.local.max-entries:10000}")
+    private long userEmailCacheLocalMaxEntries;
+
+    @Value("${app.cache.user-email-cache.local.ttl:30s}")
+    private Duration userEmailCacheLocalTtl;
+
+    @Value("${app.cache.user-profile-cache.local.max-entries:10000}")
+    private long userProfileCacheLocalMaxEntries;
+
+    @Value("${app.cache.user-profile-cache.local.ttl:30s}")
+    private Duration userProfileCacheLocalTtl;
+
+    // --- Single-flight: gộp các lần miss đồng thời cho cùng một key ---
+    @Value("${app.cache.single-flight.enabled:true}")
+    private boolean singleFlightEnabled;
+
+    @Value("${app.cache.single-flight.lock-ttl:5s}")
+    private Duration singleFlightLockTtl;
+
+    @Value("${app.cache.single-flight.wait-timeout:3s}")
+    private Duration singleFlightWaitTimeout;
+
+    @Value("${app.cache.single-flight.poll-interval:25ms}")
+    private Duration singleFlightPollInterval;
+
+    // --- Ghi cache theo version của entity (compare-and-set) ---
+    @Value("${app.cache.versioned.enabled:true}")
+    private boolean versionedCacheEnabled;
+
+    private static final Set<String> VERSIONED_CACHES = Set.of(
+            AppConstants.CACHE_USER_BY_ID,
+            AppConstants.CACHE_USER_BY_EMAIL);
+
+    // --- Refresh-ahead: nạp lại entry đọc nhiều trước khi hết hạn ---
+    @Value("${app.cache.refresh-ahead.enabled:true}")
+    private boolean refreshAheadEnabled;
+
+    @Value("${app.cache.refresh-ahead.caches:userCache,oauthProviderCache}")
+    private Set<String> refreshAheadCaches;
+
+    @Value("${app.cache.refresh-ahead.fraction:0.2}") // Chỉ refresh trong 20% cuối của TTL
+    private double refreshAheadFraction;
+
+    @Value("${app.cache.refresh-ahead.min-hits:5}")
+    private int refreshAheadMinHits;
+
+    @Value("${app.cache.refresh-ahead.beta:1.0}")
+    private double refreshAheadBeta;
+
+    @Value("${app.cache.refresh-ahead.max-tracked-entries:100000}")
+    private long refreshAheadMaxTrackedEntries;
+
+    // --- Codec giá trị: json (mặc định) | binary. Cả hai chế độ đều đọc được entry JSON cũ ---
+    @Value("${app.cache.codec.format:json}")
+    private String codecFormat;
+
+    @Value("${app.cache.codec.compression-threshold:512}")
+    private int codecCompressionThreshold;
+
+    private static final Set<String> SINGLE_FLIGHT_CACHES = Set.of(
+            AppConstants.CACHE_USER_BY_ID,
+            AppConstants.CACHE_USER_BY_EMAIL,
+            AppConstants.CACHE_PROFILE_BY_USER_ID);
+
+    // static để post-processor được đăng ký trước khi CacheInterceptor khởi tạo
+    @Bean
+    public static SingleFlightCacheOperationPostProcessor singleFlightCacheOperationPostProcessor(
+            @Value("${app.cache.single-flight.enabled:true}") boolean enabled) {
+        return new SingleFlightCacheOperationPostProcessor(enabled ? SINGLE_FLIGHT_CACHES : Set.of());
+    }
+
+    // Chỉ tạo khi có consumer pub/sub đang bật (near cache, email filter, đồng bộ search); consumer lấy qua ObjectProvider
+    @Bean
+    @ConditionalOnExpression("${app.cache.near.enabled:false} or ${app.registration.email-filter.enabled:true}"
+            + " or ${app.search.sync.enabled:true}")
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        return container;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.near.enabled", havingValue = "true")
+    public NearCacheInvalidationBus nearCacheInvalidationBus(StringRedisTemplate stringRedisTemplate,
+                                                             RedisMessageListenerContainer redisMessageListenerContainer) {
+        return new NearCacheInvalidationBus(stringRedisTemplate, redisMessageListenerContainer,
+                cachePrefix + "::near-cache-invalidation");
+    }
+
     @Bean
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(redisConnectionFactory);
         template.setKeySerializer(new StringRedisSerializer());
         template.setHashKeySerializer(new StringRedisSerializer());
-        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
-        template.setValueSerializer(jsonSerializer);
-        template.setHashValueSerializer(jsonSerializer);
+        RedisSerializer<Object> valueSerializer = cacheValueSerializer();
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
         template.afterPropertiesSet();
         return template;
     }
 
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
+    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+                                     StringRedisTemplate stringRedisTemplate,
+                                     ObjectProvider<NearCacheInvalidationBus> nearCacheInvalidationBus,
+                                     CacheRefresher cacheRefresher,
+                                     MeterRegistry meterRegistry) {
 
         // --- Định nghĩa  Serializers
         RedisSerializationContext.SerializationPair<String> keySerializer =
                 RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer());
         RedisSerializationContext.SerializationPair<Object> valueSerializer =
-                RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer());
+                RedisSerializationContext.SerializationPair.fromSerializer(cacheValueSerializer());
 
         // --- Cấu hình MẶC ĐỊNH cho tất cả các cache ---
         RedisCacheConfiguration defaultConfig = RedisCacheConfiguration.defaultCacheConfig()
@@ -63,7 +189,7 @@ public class RedisCacheConfig {
                 .disableCachingNullValues();
 
 
-        return RedisCacheManager.builder(redisConnectionFactory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(redisConnectionFactory)
                 // Áp dụng mặc định cho tất cả cache
                 .cacheDefaults(defaultConfig)
                 // Cấu hình cache cụ thể
@@ -78,7 +204,67 @@ public class RedisCacheConfig {
 
                 // --- Optional Features ---
                 .enableStatistics()       // Bật số liệu thống kê để theo dõi (Actuator /metrics)
-                .transactionAware()     // Liên kết các hoạt động bộ nhớ đệm với Spring transactions
                 .build();
+
+        // --- Các layer bọc quanh cache Redis (layer đầu tiên nằm sát Redis nhất) ---
+        List<CacheLayer> layers = new ArrayList<>();
+        if (versionedCacheEnabled) {
+            layers.add(cache -> cache instanceof RedisCache redisCache && VERSIONED_CACHES.contains(cache.getName())
+                    ? new VersionedCache(redisCache, stringRedisTemplate,
+                            value -> value instanceof UserDTO user ? user.getVersion() : null)
+                    : cache);
+        }
+        if (singleFlightEnabled) {
+            layers.add(cache -> SINGLE_FLIGHT_CACHES.contains(cache.getName())
+                    ? new SingleFlightCache(cache, stringRedisTemplate, cachePrefix + "::lock::",
+                            singleFlightLockTtl, singleFlightWaitTimeout, singleFlightPollInterval, meterRegistry)
+                    : cache);
+        }
+        if (nearCacheEnabled) {
+            layers.add(nearCacheLayer(nearCacheInvalidationBus.getObject(), meterRegistry));
+        }
+        if (refreshAheadEnabled) {
+            layers.add(refreshAheadLayer(stringRedisTemplate, cacheRefresher, meterRegistry));
+        }
+
+        LayeredCacheManager cacheManager = new LayeredCacheManager(redisCacheManager, layers);
+        cacheManager.setTransactionAware(true); // Liên kết các hoạt động bộ nhớ đệm với Spring transactions
+        return cacheManager;
+    }
+
+    private RedisSerializer<Object> cacheValueSerializer() {
+        return new BinaryCacheValueSerializer(BinaryCacheValueSerializer.defaultCodecs(),
+                new GenericJackson2JsonRedisSerializer(), "binary".equalsIgnoreCase(codecFormat), codecCompressionThreshold);
+    }
+
+    private CacheLayer refreshAheadLayer(StringRedisTemplate stringRedisTemplate, CacheRefresher cacheRefresher,
+                                         MeterRegistry meterRegistry) {
+        // Phải khớp với TTL đã khai báo cho RedisCacheManager ở trên
+        Map<String, Duration> ttls = Map.of(
+                "userCache", userCacheTtl,
+                "oauthProviderCache", oauthProviderCacheTtl);
+        return cache -> {
+            if (!refreshAheadCaches.contains(cache.getName())) {
+                return cache;
+            }
+            Duration ttl = ttls.getOrDefault(cache.getName(), defaultTtl);
+            return new RefreshAheadCache(cache, stringRedisTemplate, cachePrefix + "::" + cache.getName() + "::",
+                    ttl, refreshAheadFraction, refreshAheadMinHits, refreshAheadBeta, refreshAheadMaxTrackedEntries,
+                    cacheRefresher, meterRegistry);
+        };
+    }
+
+    private CacheLayer nearCacheLayer(NearCacheInvalidationBus invalidationBus, MeterRegistry meterRegistry) {
+        record LocalTier(long maxEntries, Duration ttl) {}
+        Map<String, LocalTier> localTiers = Map.of(
+                AppConstants.CACHE_USER_BY_ID, new LocalTier(userCacheLocalMaxEntries, userCacheLocalTtl),
+                AppConstants.CACHE_USER_BY_EMAIL, new LocalTier(userEmailCacheLocalMaxEntries, userEmailCacheLocalTtl),
+                AppConstants.CACHE_PROFILE_BY_USER_ID, new LocalTier(userProfileCacheLocalMaxEntries, userProfileCacheLocalTtl)
+        );
+        return cache -> {
+            LocalTier tier = localTiers.get(cache.getName());
+            return tier == null ? cache
+                    : new NearCache(cache, tier.maxEntries(), tier.ttl(), invalidationBus, meterRegistry);
+        };
     }
 }
@@ -1,10 +1,17 @@
 package com.github.datnm23.accountservice.controller;
 
+import com.github.datnm23.accountservice.bulkimport.BulkUserImportService;
+import com.github.datnm23.accountservice.dto.BulkImportResultDTO;
+import com.github.datnm23.accountservice.dto.CursorPageResponse;
 import com.github.datnm23.accountservice.dto.UserCreateDTO;
 import com.github.datnm23.accountservice.dto.UserDTO;
+import com.github.datnm23.accountservice.dto.UserSuggestionDTO;
 import com.github.datnm23.accountservice.dto.UserUpdateDTO;
 import com.github.datnm23.accountservice.exception.ActionNotAllowedException;
 import com.github.datnm23.accountservice.exception.UserNotFoundException;
+import com.github.datnm23.accountservice.export.ExportFormat;
+import com.github.datnm23.accountservice.export.UserExportService;
+import com.github.datnm23.accountservice.pagination.CountMode;
 import com.github.datnm23.accountservice.service.UserService;
 import com.github.datnm23.accountservice.security.SecurityUtils;
 import io.swagger.v3.oas.annotations.Operation;
@@ -17,13 +24,20 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.net.URI;
+import java.util.List;
 import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/v1/users")
@@ -33,6 +47,8 @@ import java.util.UUID;
 public class UserController {
 
     private final UserService userService;
+    private final UserExportService userExportService;
+    private final BulkUserImportService bulkUserImportService;
 
     @PostMapping
     @Operation(summary = "Register a new user account")
@@ -90,6 +106,15 @@ public class UserController {
         return ResponseEntity.ok(userService.getUserById(userId));
     }
 
+    @GetMapping("/suggest")
+    @Operation(summary = "Suggest users by name or email prefix (typeahead)")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('INSTRUCTOR')")
+    public ResponseEntity<List<UserSuggestionDTO>> suggestUsers(
+            @RequestParam("q") String query,
+            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return ResponseEntity.ok(userService.suggestUsers(query, limit));
+    }
+
     @GetMapping("/me")
     @Operation(summary = "Get the currently authenticated user's account details")
     public ResponseEntity<UserDTO> getCurrentUser() {
@@ -106,6 +131,70 @@ public class UserController {
         return ResponseEntity.ok(userService.getAllUsers(pageable));
     }
 
+    @GetMapping("/scroll")
+    @Operation(summary = "List users with cursor pagination (newest first)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPageResponse<UserDTO>> scrollUsers(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "count", defaultValue = "NONE") CountMode count) {
+        return ResponseEntity.ok(userService.getUsers(cursor, size, count));
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search users by name, email, profile or linked accounts with cursor pagination")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPageResponse<UserDTO>> searchUsers(
+            @RequestParam("q") String query,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "count", defaultValue = "NONE") CountMode count) {
+        return ResponseEntity.ok(userService.searchUsers(query, cursor, size, count));
+    }
+
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    @Operation(summary = "Bulk import users from a streamed CSV or NDJSON body")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkImportResultDTO> importUsers(
+            InputStream body,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            @RequestParam(value = "sendVerificationEmail", defaultValue = "true") boolean sendVerificationEmail) {
+        boolean csv = "csv".equalsIgnoreCase(contentType.getSubtype());
+        log.info("Received request to bulk import users ({})", contentType);
+        return ResponseEntity.ok(bulkUserImportService.importUsers(body, csv, sendVerificationEmail));
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Export all users as NDJSON or CSV (streamed, gzip if accepted)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(value = "format", defaultValue = "NDJSON") ExportFormat format,
+            @RequestParam(value = "includeProfile", defaultValue = "false") boolean includeProfile,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        log.info("Received request to export users as {} (profile: {}, gzip: {})", format, includeProfile, gzip);
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, 64 * 1024);
+                userExportService.export(format, includeProfile, gzipOut);
+                gzipOut.finish();
+            } else {
+                userExportService.export(format, includeProfile, out);
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("users." + format.getFileExtension())
+                        .build()
+                        .toString());
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        return response.body(body);
+    }
+
     @PatchMapping("/{userId}")
     @Operation(summary = "Update user details")
     @PreAuthorize("hasRole('ADMIN') or #userId.toString() == authentication.name or @userService.isOwner(#userId, authentication.principal)")
@@ -0,0 +1,92 @@
+package com.github.datnm23.accountservice.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.datnm23.accountservice.security.SecurityUtils;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Đảm bảo read-your-writes khi đọc từ replica: sau khi một transaction ghi commit, các transaction read-only của cùng
+ * người gọi trong {@code window} đọc từ primary thay vì replica có thể còn trễ.
+ * <p>
+ * Người gọi được nhận ra theo ba cách: request hiện tại (đọc lại ngay sau khi ghi trong cùng request), user id đã xác
+ * thực (nhớ trong process) và cookie {@value #COOKIE_NAME} mang thời điểm hết hạn để instance khác phía sau gateway
+ * cũng biết. Cookie bị bỏ qua nếu hạn của nó xa hơn {@code window} (client tự sửa).
+ */
+public class ReadYourWritesTracker {
+
+    static final String COOKIE_NAME = "acct-rw-until";
+    private static final String REQUEST_ATTRIBUTE = ReadYourWritesTracker.class.getName() + ".wrote";
+
+    private final Duration window;
+    private final Cache<UUID, Long> recentWriters;
+
+    public ReadYourWritesTracker(Duration window, long maxTrackedUsers) {
+        this.window = window;
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(maxTrackedUsers)
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    /**
+     * Gọi sau khi một transaction ghi commit (trên thread của request).
+     */
+    public void recordWrite() {
+        long until = System.currentTimeMillis() + window.toMillis();
+        SecurityUtils.getCurrentUserIdOptional().ifPresent(userId -> recentWriters.put(userId, until));
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return;
+        }
+        attributes.getRequest().setAttribute(REQUEST_ATTRIBUTE, Boolean.TRUE);
+        HttpServletResponse response = attributes.getResponse();
+        if (response != null && !response.isCommitted()) {
+            Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(until));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, window.toSeconds()));
+            response.addCookie(cookie);
+        }
+    }
+
+    public boolean requiresPrimary() {
+        long now = System.currentTimeMillis();
+        Optional<UUID> userId = SecurityUtils.getCurrentUserIdOptional();
+        if (userId.isPresent()) {
+            Long until = recentWriters.getIfPresent(userId.get());
+            if (until != null && until > now) {
+                return true;
+            }
+        }
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return false;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        if (request.getAttribute(REQUEST_ATTRIBUTE) != null) {
+            return true;
+        }
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    long until = Long.parseLong(cookie.getValue());
+                    return until > now && until <= now + window.toMillis();
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,218 @@
+package com.github.datnm23.accountservice.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chọn datasource theo transaction hiện tại: transaction {@code readOnly = true} đọc từ một replica khoẻ (round-robin),
+ * mọi thứ khác dùng primary.
+ * <p>
+ * Mọi đường nạp cache ({@code @Cacheable}, refresh-ahead, warm-up) dùng transaction không read-only: sau khi entry bị
+ * evict, đọc từ replica trễ sẽ ghi DTO cũ vào Redis cho cả TTL mà VersionedCache không còn version để so.
+ * <p>
+ * Phải được bọc trong {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: JpaTransactionManager
+ * mở connection trước khi đánh dấu transaction là read-only, proxy lùi việc lấy connection thật tới câu SQL đầu tiên.
+ * <p>
+ * Về primary khi: người gọi vừa ghi ({@link ReadYourWritesTracker}), không còn replica khoẻ, hoặc lấy connection từ
+ * replica lỗi (replica bị đánh dấu hỏng tới lần kiểm tra kế tiếp). {@link #checkReplicas()} định kỳ đo độ trễ
+ * replication ({@code Seconds_Behind_Source}) và loại replica trễ quá {@code maxLag} hoặc đã dừng replication.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements DisposableBean {
+
+    private static final String LAG_QUERY = "SHOW REPLICA STATUS";
+    private static final String LAG_COLUMN = "Seconds_Behind_Source";
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final ReadYourWritesTracker readYourWrites;
+    private final Duration maxLag;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    // Khoá resource đánh dấu transaction đã đăng ký theo dõi ghi (một lần mỗi transaction)
+    private final Object writeTrackingKey = new Object();
+    private final MeterRegistry meterRegistry;
+
+    private static final class Replica {
+        final HikariDataSource dataSource;
+        final Timer checkTimer;
+        volatile boolean healthy;
+        volatile long lagSeconds = -1;
+
+        Replica(HikariDataSource dataSource, Timer checkTimer) {
+            this.dataSource = dataSource;
+            this.checkTimer = checkTimer;
+        }
+
+        String name() {
+            return dataSource.getPoolName();
+        }
+    }
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas,
+                                    ReadYourWritesTracker readYourWrites, Duration maxLag, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.readYourWrites = readYourWrites;
+        this.maxLag = maxLag;
+        this.meterRegistry = meterRegistry;
+        this.replicas = replicas.stream()
+                .map(dataSource -> new Replica(dataSource, meterRegistry.timer("datasource.replica.check.duration",
+                        "pool", dataSource.getPoolName())))
+                .toList();
+        for (Replica replica : this.replicas) {
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lagSeconds)
+                    .tag("pool", replica.name())
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+            Gauge.builder("datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .tag("pool", replica.name())
+                    .register(meterRegistry);
+        }
+        // Chưa kiểm tra thì chưa nhận traffic đọc
+        checkReplicas();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            trackWrite();
+            return primary("write");
+        }
+        if (readYourWrites.requiresPrimary()) {
+            return primary("read-your-writes");
+        }
+        Replica replica = nextHealthyReplica();
+        if (replica == null) {
+            return primary("no-healthy-replica");
+        }
+        try {
+            Connection connection = replica.dataSource.getConnection();
+            count(replica.name(), "read");
+            return connection;
+        } catch (SQLException e) {
+            markDown(replica, e.getMessage());
+            return primary("replica-error");
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // Credential riêng chỉ có nghĩa với primary; replica dùng tài khoản cấu hình sẵn của pool
+        count(primary.getPoolName(), "explicit-credentials");
+        return primary.getConnection(username, password);
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.routing.health-check-interval-ms:5000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            replica.checkTimer.record(() -> check(replica));
+        }
+    }
+
+    private void check(Replica replica) {
+        try (Connection connection = replica.dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(2);
+            try (ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+                if (!resultSet.next()) {
+                    // Không phải replica (môi trường dev trỏ thẳng vào primary): coi như không trễ
+                    markUp(replica, 0);
+                    return;
+                }
+                long lag = resultSet.getLong(LAG_COLUMN);
+                if (resultSet.wasNull()) {
+                    markDown(replica, "replication is not running");
+                } else if (lag > maxLag.toSeconds()) {
+                    replica.lagSeconds = lag;
+                    markDown(replica, "lag " + lag + "s exceeds " + maxLag.toSeconds() + "s");
+                } else {
+                    markUp(replica, lag);
+                }
+            }
+        } catch (SQLException e) {
+            markDown(replica, e.getMessage());
+        }
+    }
+
+    private Replica nextHealthyReplica() {
+        int size = replicas.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), Math.max(1, size));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private Connection primary(String reason) throws SQLException {
+        count(primary.getPoolName(), reason);
+        return primary.getConnection();
+    }
+
+    // Transaction ghi: sau commit thì người gọi được ghim vào primary trong window read-your-writes
+    private void trackWrite() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(writeTrackingKey)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(writeTrackingKey, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                readYourWrites.recordWrite();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(writeTrackingKey);
+            }
+        });
+    }
+
+    private void markUp(Replica replica, long lagSeconds) {
+        replica.lagSeconds = lagSeconds;
+        if (!replica.healthy) {
+            log.info("Read replica {} is available (lag {}s)", replica.name(), lagSeconds);
+        }
+        replica.healthy = true;
+    }
+
+    private void markDown(Replica replica, String reason) {
+        if (replica.healthy) {
+            log.warn("Read replica {} removed from rotation: {}", replica.name(), reason);
+        }
+        replica.healthy = false;
+    }
+
+    private void count(String pool, String reason) {
+        Counter.builder("datasource.route")
+                .tag("pool", pool)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(replica -> replica.dataSource.close());
+        primary.close();
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.datnm23.accountservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Kết quả import user hàng loạt.")
+public class BulkImportResultDTO {
+    private long totalRows;
+    private long created;
+    private long failed;
+    private long durationMillis;
+    private double rowsPerSecond;
+
+    @Schema(description = "Lỗi theo từng dòng (giới hạn bởi app.import.max-reported-errors)")
+    private List<RowError> errors;
+    private boolean errorsTruncated;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        @Schema(description = "Số dòng trong file (bắt đầu từ 1, tính cả dòng header của CSV)")
+        private long row;
+        private String email;
+        private String message;
+    }
+}
@@ -0,0 +1,25 @@
+package com.github.datnm23.accountservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Một trang kết quả phân trang theo cursor.")
+public class CursorPageResponse<T> {
+    private List<T> content;
+    private int size;
+
+    @Schema(description = "Token mờ để lấy trang kế tiếp; null nếu đây là trang cuối")
+    private String nextCursor;
+    private boolean hasNext;
+
+    @Schema(description = "Tổng số bản ghi; null khi count=NONE")
+    private Long totalElements;
+    private boolean totalApproximate;
+}
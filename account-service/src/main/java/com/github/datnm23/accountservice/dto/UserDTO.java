@@ -24,6 +24,9 @@ public class UserDTO {
     private OffsetDateTime updatedAt;
     private OffsetDateTime lastLoginAt;
 
+    @Schema(description = "Version của bản ghi (optimistic locking), tăng sau mỗi lần cập nhật")
+    private Long version;
+
     private UserProfileDTO profile;
     private List<OAuthProviderDTO> oauthProviders;
 }
\ No newline at end of file
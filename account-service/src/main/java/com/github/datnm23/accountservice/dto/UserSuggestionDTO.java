@@ -0,0 +1,18 @@
+package com.github.datnm23.accountservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Một gợi ý user cho ô tìm kiếm gõ-tới-đâu-gợi-ý-tới-đó.")
+public class UserSuggestionDTO {
+    private UUID userId;
+    private String email;
+    private String fullName;
+}
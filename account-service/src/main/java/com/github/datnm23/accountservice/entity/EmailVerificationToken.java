@@ -1,5 +1,6 @@
 package com.github.datnm23.accountservice.entity;
 
+import com.github.datnm23.accountservice.id.UuidV7Id;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -11,7 +12,8 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "email_verification_tokens", indexes = {
-    @Index(name = "idx_evt_token", columnList = "token", unique = true)
+    @Index(name = "idx_evt_token", columnList = "token", unique = true),
+    @Index(name = "idx_evt_expiry_date", columnList = "expiry_date")
 })
 @Data
 @NoArgsConstructor
@@ -19,8 +21,8 @@ import java.util.UUID;
 public class EmailVerificationToken {
 
     @Id
-    @GeneratedValue(generator = "UUID")
-    @Column(length = 36, updatable = false, nullable = false)
+    @UuidV7Id
+    @Column(length = 16, updatable = false, nullable = false)
     private UUID id;
 
     @Column(nullable = false, unique = true, length = 100) // Tăng độ dài nếu token phức tạp hơn
@@ -1,11 +1,11 @@
 package com.github.datnm23.accountservice.entity;
 
+import com.github.datnm23.accountservice.id.UuidV7Id;
 import com.github.datnm23.accountservice.statics.Provider;
 import lombok.Data;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.SQLRestriction;
-import org.hibernate.annotations.GenericGenerator;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -19,7 +19,8 @@ import java.util.UUID;
                 columnNames = {"provider", "external_id"}),
         indexes = {
                 @Index(name = "idx_oauth_user", columnList = "user_id"),
-                @Index(name = "idx_oauth_provider_ext", columnList = "provider, external_id")
+                @Index(name = "idx_oauth_provider_ext", columnList = "provider, external_id"),
+                @Index(name = "idx_oauth_deleted_at", columnList = "deleted_at")
         })
 @SQLRestriction("deleted_at IS NULL")
 @EntityListeners(AuditingEntityListener.class)
@@ -29,11 +30,11 @@ import java.util.UUID;
 @AllArgsConstructor
 public class OAuthProvider {
 
+    // Khoá riêng của dòng; trước đây field tên userId nên trùng cột user_id với khoá ngoại bên dưới
     @Id
-    @GeneratedValue(generator = "UUID")
-    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
-    @Column(length = 36, updatable = false, nullable = false)
-    private UUID userId;
+    @UuidV7Id
+    @Column(name = "id", length = 16, updatable = false, nullable = false)
+    private UUID id;
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "user_id", nullable = false,
@@ -0,0 +1,53 @@
+package com.github.datnm23.accountservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Một {@code UserDomainEvent} chờ gửi lên Kafka, được ghi cùng transaction với thay đổi User/UserProfile.
+ * Khoá tự tăng giữ đúng thứ tự ghi nên relay chỉ cần đọc theo {@code id}.
+ * {@code hold_until}: dòng (và mọi dòng sau của cùng user) chưa được relay lấy trước thời điểm này, vì đang được giữ để
+ * gộp hoặc đang được một relay gửi.
+ */
+@Entity
+@Table(name = "user_event_outbox", indexes = {
+        @Index(name = "idx_outbox_sent_at_id", columnList = "sent_at, id"),
+        @Index(name = "idx_outbox_hold_until", columnList = "hold_until, aggregate_id")
+})
+@Data
+@NoArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Key của message Kafka (userId): các event cùng user vào cùng partition
+    @Column(name = "aggregate_id", nullable = false, length = 36, updatable = false)
+    private String aggregateId;
+
+    @Column(name = "event_type", nullable = false, length = 100, updatable = false)
+    private String eventType;
+
+    @Column(name = "payload", nullable = false, updatable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private OffsetDateTime sentAt;
+
+    @Column(name = "hold_until")
+    private OffsetDateTime holdUntil;
+
+    public OutboxEvent(String aggregateId, String eventType, String payload, OffsetDateTime createdAt) {
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+}
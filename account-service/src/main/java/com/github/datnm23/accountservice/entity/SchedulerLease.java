@@ -0,0 +1,32 @@
+package com.github.datnm23.accountservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lease của một job định kỳ chỉ được chạy trên một instance tại một thời điểm. Đọc/ghi bằng SQL trong
+ * {@code housekeeping.JobLease}; entity chỉ để schema được tạo cùng các bảng khác.
+ * Thời gian theo đồng hồ UTC của MySQL ({@code UTC_TIMESTAMP(6)}) để không phụ thuộc đồng hồ từng instance.
+ */
+@Entity
+@Table(name = "scheduler_lease")
+@Data
+@NoArgsConstructor
+public class SchedulerLease {
+
+    @Id
+    @Column(name = "name", length = 64, nullable = false, updatable = false)
+    private String name;
+
+    @Column(name = "owner", length = 128, nullable = false)
+    private String owner;
+
+    @Column(name = "lease_until", nullable = false, columnDefinition = "DATETIME(6)")
+    private LocalDateTime leaseUntil;
+
+    @Column(name = "acquired_at", nullable = false, columnDefinition = "DATETIME(6)")
+    private LocalDateTime acquiredAt;
+}
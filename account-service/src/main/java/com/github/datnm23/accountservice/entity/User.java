@@ -1,11 +1,12 @@
 package com.github.datnm23.accountservice.entity;
 
+import com.github.datnm23.accountservice.id.UuidV7Id;
 import com.github.datnm23.accountservice.statics.AccountStatus;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.SQLDelete;
 import org.hibernate.annotations.SQLRestriction;
-import org.hibernate.annotations.UuidGenerator;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -17,7 +18,10 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "users", indexes = {
-        @Index(name = "idx_user_email", columnList = "email", unique = true)
+        @Index(name = "idx_user_email", columnList = "email", unique = true),
+        @Index(name = "idx_user_created_at_user_id", columnList = "created_at, user_id"),
+        @Index(name = "idx_user_last_login_at_user_id", columnList = "last_login_at, user_id"),
+        @Index(name = "idx_user_deleted_at", columnList = "deleted_at")
 })
 @Data
 @EntityListeners(AuditingEntityListener.class)
@@ -26,13 +30,14 @@ import java.util.UUID;
 public class User {
 
 
+    // UUIDv7 lưu BINARY(16) (hibernate.type.preferred_uuid_jdbc_type=BINARY): khoá tăng theo thời gian, 16 byte
     @Id
-    @GeneratedValue
-    @UuidGenerator
-    @Column(name = "user_id", length = 36, updatable = false, nullable = false)
+    @UuidV7Id
+    @Column(name = "user_id", length = 16, updatable = false, nullable = false)
     private UUID userId;
 
-    @Column(unique = true, nullable = false, length = 100)
+    // Unique qua idx_user_email; không khai báo unique ở đây để Hibernate không sinh thêm khoá UK... trùng lặp
+    @Column(nullable = false, length = 100)
     private String email;
 
     @Column(name = "password_hash", nullable = false)
@@ -54,6 +59,11 @@ public class User {
     @Column(nullable = false)
     private boolean emailVerified = false;
 
+    // Tăng mỗi lần gửi lại email xác thực: token ký mang nonce cũ hết hiệu lực mà không cần xoá gì
+    @ColumnDefault("0")
+    @Column(name = "verification_nonce", nullable = false)
+    private int verificationNonce;
+
     @CreatedDate
     @Column(updatable = false, nullable = false)
     private OffsetDateTime createdAt;
@@ -66,7 +76,7 @@ public class User {
 
     private OffsetDateTime deletedAt;
 
-    @Column(length = 36)
+    @Column(length = 16)
     private UUID deletedBy;
     
     @Version
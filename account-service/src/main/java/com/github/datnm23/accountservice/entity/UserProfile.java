@@ -17,7 +17,10 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "user_profiles",
-        indexes = @Index(name = "idx_profile_lang", columnList = "language"))
+        indexes = {
+                @Index(name = "idx_profile_lang", columnList = "language"),
+                @Index(name = "idx_profile_deleted_at", columnList = "deleted_at")
+        })
 @SQLRestriction("deleted_at IS NULL")
 @EntityListeners(AuditingEntityListener.class)
 @Data
@@ -27,7 +30,7 @@ import java.util.UUID;
 public class UserProfile {
 
     @Id
-    @Column(name = "user_id", length = 36, nullable = false, updatable = false)
+    @Column(name = "user_id", length = 16, nullable = false, updatable = false)
     private UUID userId;
 
     @OneToOne(fetch = FetchType.LAZY)
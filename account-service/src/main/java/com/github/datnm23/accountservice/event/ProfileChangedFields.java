@@ -0,0 +1,62 @@
+package com.github.datnm23.accountservice.event;
+
+import com.github.datnm23.accountservice.statics.Gender;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kiểu giá trị của từng field trong {@link UserProfileUpdatedEvent#getChangedFields()}.
+ * <p>
+ * Payload outbox và message JSON chỉ mang chuỗi/số/boolean: đọc lại vào {@code Map<String, Object>} thì ngày sinh là
+ * chuỗi {@code "1990-01-31"} (hoặc mảng {@code [1990,1,31]}) và giới tính là tên enum. Mọi đường đọc (relay, codec nhị
+ * phân, consumer JSON) đều đưa giá trị về đúng kiểu ở đây; field không khai báo là chuỗi và được giữ nguyên.
+ */
+public final class ProfileChangedFields {
+
+    private static final Map<String, Class<?>> TYPES = Map.of(
+            "dateOfBirth", LocalDate.class,
+            "gender", Gender.class,
+            "emailNotifications", Boolean.class,
+            "pushNotifications", Boolean.class);
+
+    private ProfileChangedFields() {
+    }
+
+    /**
+     * @return bản sao giữ thứ tự với giá trị đã đổi về kiểu khai báo; {@code null} nếu đầu vào {@code null}
+     * @throws IllegalArgumentException nếu giá trị không chuyển được sang kiểu của field
+     */
+    public static Map<String, Object> typed(Map<String, Object> changedFields) {
+        if (changedFields == null) {
+            return null;
+        }
+        Map<String, Object> typed = new LinkedHashMap<>();
+        changedFields.forEach((name, value) -> typed.put(name, coerce(name, value)));
+        return typed;
+    }
+
+    private static Object coerce(String name, Object value) {
+        Class<?> type = TYPES.get(name);
+        if (value == null || type == null || type.isInstance(value)) {
+            return value;
+        }
+        if (type == LocalDate.class) {
+            if (value instanceof String text) {
+                return LocalDate.parse(text);
+            }
+            // WRITE_DATES_AS_TIMESTAMPS: [năm, tháng, ngày]
+            if (value instanceof List<?> parts && parts.size() == 3) {
+                return LocalDate.of(((Number) parts.get(0)).intValue(), ((Number) parts.get(1)).intValue(),
+                        ((Number) parts.get(2)).intValue());
+            }
+        } else if (type == Gender.class && value instanceof String text) {
+            return Gender.valueOf(text);
+        } else if (type == Boolean.class && value instanceof String text) {
+            return Boolean.valueOf(text);
+        }
+        throw new IllegalArgumentException("Cannot read changed field " + name + " as " + type.getSimpleName() + ": " + value);
+    }
+}
@@ -1,5 +1,6 @@
 package com.github.datnm23.accountservice.event;
 
+import com.github.datnm23.accountservice.id.UuidV7;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -25,7 +26,7 @@ public class UserCreatedEvent extends UserDomainEvent {
     private String lastName;
 
     public UserCreatedEvent(UUID userId, String email, String firstName, String lastName) {
-        super(UUID.randomUUID(), java.time.Instant.now(), userId, UserCreatedEvent.class.getSimpleName());
+        super(UuidV7.generate(), java.time.Instant.now(), userId, UserCreatedEvent.class.getSimpleName());
         this.email = email;
         this.firstName = firstName;
         this.lastName = lastName;
@@ -1,5 +1,6 @@
 package com.github.datnm23.accountservice.event;
 
+import com.github.datnm23.accountservice.id.UuidV7;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -20,7 +21,7 @@ public abstract class UserDomainEvent implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Schema(description = "ID duy nhất của sự kiện")
-    private UUID eventId = UUID.randomUUID();
+    private UUID eventId = UuidV7.generate();
 
     @Schema(description = "Thời điểm sự kiện xảy ra (UTC)")
     private Instant eventTimestamp = Instant.now();
@@ -1,6 +1,7 @@
 package com.github.datnm23.accountservice.event;
 
 
+import com.github.datnm23.accountservice.id.UuidV7;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -25,7 +26,7 @@ public class UserEmailVerificationRequestedEvent extends UserDomainEvent {
     private String verificationToken;
 
     public UserEmailVerificationRequestedEvent(UUID userId, String email, String recipientName, String verificationToken) {
-        super(UUID.randomUUID(), java.time.Instant.now(), userId, UserEmailVerificationRequestedEvent.class.getSimpleName());
+        super(UuidV7.generate(), java.time.Instant.now(), userId, UserEmailVerificationRequestedEvent.class.getSimpleName());
         this.email = email;
         this.recipientName = recipientName;
         this.verificationToken = verificationToken;
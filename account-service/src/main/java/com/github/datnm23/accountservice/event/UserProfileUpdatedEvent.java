@@ -1,5 +1,6 @@
 package com.github.datnm23.accountservice.event;
 
+import com.github.datnm23.accountservice.id.UuidV7;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -20,7 +21,12 @@ public class UserProfileUpdatedEvent extends UserDomainEvent {
     private Map<String, Object> changedFields;
 
     public UserProfileUpdatedEvent(UUID userId, Map<String, Object> changedFields) {
-        super(UUID.randomUUID(), java.time.Instant.now(), userId, UserProfileUpdatedEvent.class.getSimpleName());
+        super(UuidV7.generate(), java.time.Instant.now(), userId, UserProfileUpdatedEvent.class.getSimpleName());
         this.changedFields = changedFields;
     }
+
+    // Jackson và codec nhị phân đều đi qua setter: giá trị đọc dưới dạng chuỗi được đưa về đúng kiểu (ProfileChangedFields)
+    public void setChangedFields(Map<String, Object> changedFields) {
+        this.changedFields = ProfileChangedFields.typed(changedFields);
+    }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.github.datnm23.accountservice.event;
 
+import com.github.datnm23.accountservice.id.UuidV7;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.*;
 
@@ -25,7 +26,7 @@ public class UserRegisteredEvent extends UserDomainEvent {
     private static final String eventType = "USER_REGISTERED";
 
     public UserRegisteredEvent(UUID userId, String email, String firstName, String lastName) {
-        super(UUID.randomUUID(), Instant.now(), userId, UserRegisteredEvent.class.getSimpleName());
+        super(UuidV7.generate(), Instant.now(), userId, UserRegisteredEvent.class.getSimpleName());
         this.email = email;
         this.firstName = firstName;
         this.lastName = lastName;
@@ -1,5 +1,6 @@
 package com.github.datnm23.accountservice.event;
 
+import com.github.datnm23.accountservice.id.UuidV7;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.*;
 
@@ -22,7 +23,7 @@ public class UserUpdatedEvent extends UserDomainEvent {
     private static final String eventType = "USER_UPDATED";
 
     public UserUpdatedEvent(UUID userId, String updatedFirstName, String updatedLastName) {
-        super(UUID.randomUUID(), Instant.now(), userId, UserUpdatedEvent.class.getSimpleName());
+        super(UuidV7.generate(), Instant.now(), userId, UserUpdatedEvent.class.getSimpleName());
         this.updatedFirstName = updatedFirstName;
         this.updatedLastName = updatedLastName;
     }
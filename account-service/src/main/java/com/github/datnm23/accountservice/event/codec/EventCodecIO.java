@@ -0,0 +1,99 @@
+package com.github.datnm23.accountservice.event.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Đọc/ghi field cho codec event. Khác {@link com.github.datnm23.accountservice.cache.codec.CodecIO}: số nguyên và độ dài chuỗi dùng varint (LEB128, zigzag cho
+ * số có dấu) vì event thường toàn chuỗi ngắn, 4 byte độ dài cố định chiếm phần lớn message.
+ */
+public final class EventCodecIO {
+
+    private EventCodecIO() {}
+
+    public static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    public static long readVarLong(DataInput in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    public static void writeSignedVarLong(DataOutput out, long value) throws IOException {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    public static long readSignedVarLong(DataInput in) throws IOException {
+        long raw = readVarLong(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    // Độ dài + 1, 0 nghĩa là null
+    public static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeByte(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        long length = readVarLong(in) - 1;
+        if (length < 0) return null;
+        if (length > Integer.MAX_VALUE) throw new IOException("String too long: " + length);
+        byte[] bytes = new byte[(int) length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void writeUuid(DataOutput out, UUID value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.getMostSignificantBits());
+            out.writeLong(value.getLeastSignificantBits());
+        }
+    }
+
+    public static UUID readUuid(DataInput in) throws IOException {
+        return in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+    }
+
+    public static void writeInstant(DataOutput out, Instant value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeSignedVarLong(out, value.getEpochSecond());
+            writeVarLong(out, value.getNano());
+        }
+    }
+
+    public static Instant readInstant(DataInput in) throws IOException {
+        return in.readBoolean() ? Instant.ofEpochSecond(readSignedVarLong(in), readVarLong(in)) : null;
+    }
+
+    public static void writeLocalDate(DataOutput out, LocalDate value) throws IOException {
+        writeSignedVarLong(out, value.toEpochDay());
+    }
+
+    public static LocalDate readLocalDate(DataInput in) throws IOException {
+        return LocalDate.ofEpochDay(readSignedVarLong(in));
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.datnm23.accountservice.event.codec;
+
+import com.github.datnm23.accountservice.event.UserCreatedEvent;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import static com.github.datnm23.accountservice.event.codec.EventCodecIO.*;
+
+/**
+ * Schema v1: {@code email, firstName, lastName} (string).
+ */
+public class UserCreatedEventCodec implements UserEventCodec<UserCreatedEvent> {
+
+    public static final int TYPE_ID = 1;
+
+    @Override
+    public int typeId() {
+        return TYPE_ID;
+    }
+
+    @Override
+    public Class<UserCreatedEvent> type() {
+        return UserCreatedEvent.class;
+    }
+
+    @Override
+    public int schemaVersion() {
+        return 1;
+    }
+
+    @Override
+    public void write(UserCreatedEvent event, DataOutput out) throws IOException {
+        writeString(out, event.getEmail());
+        writeString(out, event.getFirstName());
+        writeString(out, event.getLastName());
+    }
+
+    @Override
+    public UserCreatedEvent read(DataInput in, int schemaVersion) throws IOException {
+        UserCreatedEvent event = new UserCreatedEvent();
+        event.setEmail(readString(in));
+        event.setFirstName(readString(in));
+        event.setLastName(readString(in));
+        return event;
+    }
+}
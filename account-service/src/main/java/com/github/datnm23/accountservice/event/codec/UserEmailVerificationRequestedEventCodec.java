@@ -0,0 +1,48 @@
+package com.github.datnm23.accountservice.event.codec;
+
+import com.github.datnm23.accountservice.event.UserEmailVerificationRequestedEvent;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import static com.github.datnm23.accountservice.event.codec.EventCodecIO.*;
+
+/**
+ * Schema v1: {@code email, recipientName, verificationToken} (string).
+ */
+public class UserEmailVerificationRequestedEventCodec implements UserEventCodec<UserEmailVerificationRequestedEvent> {
+
+    public static final int TYPE_ID = 2;
+
+    @Override
+    public int typeId() {
+        return TYPE_ID;
+    }
+
+    @Override
+    public Class<UserEmailVerificationRequestedEvent> type() {
+        return UserEmailVerificationRequestedEvent.class;
+    }
+
+    @Override
+    public int schemaVersion() {
+        return 1;
+    }
+
+    @Override
+    public void write(UserEmailVerificationRequestedEvent event, DataOutput out) throws IOException {
+        writeString(out, event.getEmail());
+        writeString(out, event.getRecipientName());
+        writeString(out, event.getVerificationToken());
+    }
+
+    @Override
+    public UserEmailVerificationRequestedEvent read(DataInput in, int schemaVersion) throws IOException {
+        UserEmailVerificationRequestedEvent event = new UserEmailVerificationRequestedEvent();
+        event.setEmail(readString(in));
+        event.setRecipientName(readString(in));
+        event.setVerificationToken(readString(in));
+        return event;
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.datnm23.accountservice.event.codec;
+
+import com.github.datnm23.accountservice.event.UserDomainEvent;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Codec nhị phân cho body của một loại {@link UserDomainEvent}; các field chung (eventId, thời điểm, userId) do
+ * {@link UserEventSerializer} ghi. Thứ tự field trong {@link #write} chính là schema của event.
+ * <p>
+ * {@link #typeId()} được ghi vào mỗi message nên không được đổi sau khi đã phát hành. Khi thêm field, chỉ thêm vào
+ * cuối, tăng {@link #schemaVersion()} và giữ {@link #read} đọc được mọi version cũ còn nằm trong topic.
+ */
+public interface UserEventCodec<T extends UserDomainEvent> {
+
+    int typeId();
+
+    Class<T> type();
+
+    int schemaVersion();
+
+    // Chỉ ghi phần riêng của event
+    void write(T event, DataOutput out) throws IOException;
+
+    // Trả về event rỗng đã đọc phần riêng; phần chung do serializer điền
+    T read(DataInput in, int schemaVersion) throws IOException;
+}
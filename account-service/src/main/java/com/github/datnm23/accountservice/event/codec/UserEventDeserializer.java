@@ -0,0 +1,109 @@
+package com.github.datnm23.accountservice.event.codec;
+
+import com.github.datnm23.accountservice.event.UserDomainEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Deserializer cho consumer của topic user-events: đọc header {@value UserEventSerializer#FORMAT_HEADER} để chọn
+ * codec nhị phân hay JSON, nên producer có thể chuyển định dạng mà consumer không cần đổi cấu hình.
+ * <p>
+ * Message có schema version mới hơn codec đang chạy bị từ chối ({@link SerializationException}) thay vì đọc sai:
+ * consumer cần được nâng cấp trước producer.
+ */
+public class UserEventDeserializer implements Deserializer<UserDomainEvent> {
+
+    private final JsonDeserializer<UserDomainEvent> json = new JsonDeserializer<>();
+    private final Map<Integer, UserEventCodec<?>> codecsById = new HashMap<>();
+    private volatile boolean configured;
+
+    public UserEventDeserializer() {
+        for (UserEventCodec<?> codec : UserEventSerializer.defaultCodecs()) {
+            if (codecsById.put(codec.typeId(), codec) != null) {
+                throw new IllegalArgumentException("Duplicate event codec type id: " + codec.typeId());
+            }
+        }
+    }
+
+    // Mặc định tin gói event của service; cấu hình Kafka vẫn có thể ghi đè
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Map<String, Object> merged = new HashMap<>(configs);
+        merged.putIfAbsent(JsonDeserializer.TRUSTED_PACKAGES, UserDomainEvent.class.getPackageName());
+        json.configure(merged, isKey);
+        configured = true;
+    }
+
+    @Override
+    public UserDomainEvent deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public UserDomainEvent deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (isBinary(headers, data)) {
+            return readBinary(data);
+        }
+        if (!configured) {
+            configure(Map.of(), false);
+        }
+        return headers != null ? json.deserialize(topic, headers, data) : json.deserialize(topic, data);
+    }
+
+    // Không có header (đọc ngoài Kafka): nhận diện bằng byte MAGIC, không thể là byte đầu của JSON
+    private static boolean isBinary(Headers headers, byte[] data) {
+        Header format = headers != null ? headers.lastHeader(UserEventSerializer.FORMAT_HEADER) : null;
+        if (format != null) {
+            return UserEventSerializer.FORMAT_BINARY.equals(new String(format.value(), StandardCharsets.UTF_8));
+        }
+        return data.length > 0 && data[0] == UserEventSerializer.MAGIC;
+    }
+
+    private UserDomainEvent readBinary(byte[] data) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            if (in.readByte() != UserEventSerializer.MAGIC) {
+                throw new SerializationException("Not a binary user event");
+            }
+            int typeId = in.readUnsignedByte();
+            int schemaVersion = in.readUnsignedByte();
+            UserEventCodec<?> codec = codecsById.get(typeId);
+            if (codec == null) {
+                throw new SerializationException("Unknown user event type id: " + typeId);
+            }
+            if (schemaVersion > codec.schemaVersion()) {
+                throw new SerializationException("Unsupported schema version " + schemaVersion
+                        + " for " + codec.type().getSimpleName());
+            }
+            var eventId = EventCodecIO.readUuid(in);
+            var eventTimestamp = EventCodecIO.readInstant(in);
+            var userId = EventCodecIO.readUuid(in);
+            UserDomainEvent event = codec.read(in, schemaVersion);
+            event.setEventId(eventId);
+            event.setEventTimestamp(eventTimestamp);
+            event.setUserId(userId);
+            event.setEventType(codec.type().getSimpleName());
+            return event;
+        } catch (IOException e) {
+            throw new SerializationException("Could not read binary user event", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+}
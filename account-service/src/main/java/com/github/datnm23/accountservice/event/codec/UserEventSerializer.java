@@ -0,0 +1,99 @@
+package com.github.datnm23.accountservice.event.codec;
+
+import com.github.datnm23.accountservice.event.UserDomainEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializer Kafka cho {@link UserDomainEvent}: JSON (mặc định, giống {@link JsonSerializer} trước đây kèm type header)
+ * hoặc nhị phân có schema version, chọn bằng property producer {@value #FORMAT_CONFIG} ({@code json} | {@code binary}).
+ * <p>
+ * Message nhị phân mang header {@value #FORMAT_HEADER}{@code =binary} để consumer chọn cách đọc
+ * ({@link UserEventDeserializer}); layout: {@code MAGIC | typeId | schemaVersion | eventId | eventTimestamp | userId | body}.
+ * Loại event chưa có codec vẫn đi JSON.
+ */
+public class UserEventSerializer implements Serializer<UserDomainEvent> {
+
+    public static final String FORMAT_CONFIG = "user.event.format";
+    public static final String FORMAT_HEADER = "user-event-format";
+    public static final String FORMAT_BINARY = "binary";
+
+    static final byte MAGIC = (byte) 0xE1;
+    private static final byte[] FORMAT_BINARY_BYTES = FORMAT_BINARY.getBytes(StandardCharsets.UTF_8);
+
+    private final JsonSerializer<UserDomainEvent> json = new JsonSerializer<>();
+    private final Map<Class<?>, UserEventCodec<?>> codecsByType = new HashMap<>();
+    private boolean writeBinary;
+
+    public UserEventSerializer() {
+        defaultCodecs().forEach(codec -> codecsByType.put(codec.type(), codec));
+    }
+
+    public static List<UserEventCodec<?>> defaultCodecs() {
+        return List.of(new UserCreatedEventCodec(), new UserEmailVerificationRequestedEventCodec(),
+                new UserProfileUpdatedEventCodec(), new UserRegisteredEventCodec(), new UserUpdatedEventCodec());
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        json.configure(configs, isKey);
+        Object format = configs.get(FORMAT_CONFIG);
+        writeBinary = format != null && FORMAT_BINARY.equalsIgnoreCase(format.toString());
+    }
+
+    // Dùng ngoài Kafka (benchmark): bật/tắt định dạng nhị phân trực tiếp
+    public UserEventSerializer binary(boolean enabled) {
+        this.writeBinary = enabled;
+        return this;
+    }
+
+    @Override
+    public byte[] serialize(String topic, UserDomainEvent event) {
+        return serialize(topic, null, event);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public byte[] serialize(String topic, Headers headers, UserDomainEvent event) {
+        if (event == null) {
+            return null;
+        }
+        UserEventCodec<UserDomainEvent> codec = (UserEventCodec<UserDomainEvent>) codecsByType.get(event.getClass());
+        if (!writeBinary || codec == null) {
+            return headers != null ? json.serialize(topic, headers, event) : json.serialize(topic, event);
+        }
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(buffer);
+            out.writeByte(MAGIC);
+            out.writeByte(codec.typeId());
+            out.writeByte(codec.schemaVersion());
+            EventCodecIO.writeUuid(out, event.getEventId());
+            EventCodecIO.writeInstant(out, event.getEventTimestamp());
+            EventCodecIO.writeUuid(out, event.getUserId());
+            codec.write(event, out);
+            if (headers != null) {
+                headers.remove(FORMAT_HEADER);
+                headers.add(FORMAT_HEADER, FORMAT_BINARY_BYTES);
+            }
+            return buffer.toByteArray();
+        } catch (IOException e) {
+            throw new SerializationException("Could not write " + event.getEventType(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+}
@@ -0,0 +1,166 @@
+package com.github.datnm23.accountservice.event.codec;
+
+import com.github.datnm23.accountservice.event.UserProfileUpdatedEvent;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.github.datnm23.accountservice.event.codec.EventCodecIO.*;
+
+/**
+ * Schema v1: {@code changedFields} là delta có kiểu: {@code count} rồi mỗi phần tử {@code fieldTag [name] valueKind value}.
+ * <p>
+ * Field đã biết ({@link Field}) chỉ tốn 1 byte tag thay vì tên; field lạ dùng tag 0 kèm tên. Mỗi giá trị mang kiểu
+ * riêng ({@link ValueKind}) nên consumer nhận lại đúng Boolean/số/ngày thay vì mọi thứ là chuỗi; enum đi dưới dạng chuỗi
+ * và được {@link com.github.datnm23.accountservice.event.ProfileChangedFields} đổi lại khi gán vào event.
+ */
+public class UserProfileUpdatedEventCodec implements UserEventCodec<UserProfileUpdatedEvent> {
+
+    public static final int TYPE_ID = 3;
+
+    // Tag đã phát hành không được đổi hay dùng lại; field mới thêm tag mới
+    enum Field {
+        FIRST_NAME(1, "firstName"),
+        LAST_NAME(2, "lastName"),
+        AVATAR_URL(3, "avatarUrl"),
+        BIO(4, "bio"),
+        PHONE(5, "phone"),
+        EMAIL_NOTIFICATIONS(6, "emailNotifications"),
+        PUSH_NOTIFICATIONS(7, "pushNotifications"),
+        DATE_OF_BIRTH(8, "dateOfBirth"),
+        GENDER(9, "gender"),
+        ADDRESS(10, "address"),
+        CITY(11, "city"),
+        COUNTRY(12, "country"),
+        LANGUAGE(13, "language");
+
+        private static final Map<String, Field> BY_NAME = Arrays.stream(values())
+                .collect(Collectors.toUnmodifiableMap(field -> field.fieldName, Function.identity()));
+        private static final Map<Integer, Field> BY_TAG = Arrays.stream(values())
+                .collect(Collectors.toUnmodifiableMap(field -> field.tag, Function.identity()));
+
+        final int tag;
+        final String fieldName;
+
+        Field(int tag, String fieldName) {
+            this.tag = tag;
+            this.fieldName = fieldName;
+        }
+    }
+
+    private static final class ValueKind {
+        static final int NULL = 0;
+        static final int STRING = 1;
+        static final int TRUE = 2;
+        static final int FALSE = 3;
+        static final int INTEGER = 4;
+        static final int DECIMAL = 5;
+        static final int DATE = 6;
+    }
+
+    @Override
+    public int typeId() {
+        return TYPE_ID;
+    }
+
+    @Override
+    public Class<UserProfileUpdatedEvent> type() {
+        return UserProfileUpdatedEvent.class;
+    }
+
+    @Override
+    public int schemaVersion() {
+        return 1;
+    }
+
+    @Override
+    public void write(UserProfileUpdatedEvent event, DataOutput out) throws IOException {
+        Map<String, Object> changedFields = event.getChangedFields();
+        if (changedFields == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        // Đếm +1 để phân biệt map rỗng với null
+        writeVarLong(out, changedFields.size() + 1L);
+        for (Map.Entry<String, Object> change : changedFields.entrySet()) {
+            Field field = Field.BY_NAME.get(change.getKey());
+            if (field != null) {
+                out.writeByte(field.tag);
+            } else {
+                out.writeByte(0);
+                writeString(out, change.getKey());
+            }
+            writeValue(out, change.getValue());
+        }
+    }
+
+    @Override
+    public UserProfileUpdatedEvent read(DataInput in, int schemaVersion) throws IOException {
+        UserProfileUpdatedEvent event = new UserProfileUpdatedEvent();
+        long count = readVarLong(in) - 1;
+        if (count < 0) {
+            return event;
+        }
+        Map<String, Object> changedFields = new LinkedHashMap<>();
+        for (long i = 0; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            String name;
+            if (tag == 0) {
+                name = readString(in);
+            } else {
+                Field field = Field.BY_TAG.get(tag);
+                // Tag của version mới hơn: vẫn đọc được giá trị, chỉ không biết tên chuẩn
+                name = field != null ? field.fieldName : "field#" + tag;
+            }
+            changedFields.put(name, readValue(in));
+        }
+        event.setChangedFields(changedFields);
+        return event;
+    }
+
+    private static void writeValue(DataOutput out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(ValueKind.NULL);
+        } else if (value instanceof Boolean bool) {
+            out.writeByte(bool ? ValueKind.TRUE : ValueKind.FALSE);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            out.writeByte(ValueKind.INTEGER);
+            writeSignedVarLong(out, ((Number) value).longValue());
+        } else if (value instanceof Number number) {
+            out.writeByte(ValueKind.DECIMAL);
+            out.writeDouble(number.doubleValue());
+        } else if (value instanceof LocalDate date) {
+            out.writeByte(ValueKind.DATE);
+            writeLocalDate(out, date);
+        } else {
+            // Enum và các kiểu khác: theo dạng chuỗi như JSON
+            out.writeByte(ValueKind.STRING);
+            writeString(out, value instanceof Enum<?> e ? e.name() : value.toString());
+        }
+    }
+
+    private static Object readValue(DataInput in) throws IOException {
+        int kind = in.readUnsignedByte();
+        return switch (kind) {
+            case ValueKind.NULL -> null;
+            case ValueKind.STRING -> readString(in);
+            case ValueKind.TRUE -> Boolean.TRUE;
+            case ValueKind.FALSE -> Boolean.FALSE;
+            case ValueKind.INTEGER -> {
+                // Giống Jackson: số vừa int thì trả Integer
+                long value = readSignedVarLong(in);
+                yield value == (int) value ? (Object) (int) value : (Object) value;
+            }
+            case ValueKind.DECIMAL -> in.readDouble();
+            case ValueKind.DATE -> readLocalDate(in);
+            default -> throw new IOException("Unknown value kind " + kind);
+        };
+    }
+}
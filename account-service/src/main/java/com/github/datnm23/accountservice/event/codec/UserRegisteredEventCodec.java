@@ -0,0 +1,48 @@
+package com.github.datnm23.accountservice.event.codec;
+
+import com.github.datnm23.accountservice.event.UserRegisteredEvent;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import static com.github.datnm23.accountservice.event.codec.EventCodecIO.*;
+
+/**
+ * Schema v1: {@code email, firstName, lastName} (string).
+ */
+public class UserRegisteredEventCodec implements UserEventCodec<UserRegisteredEvent> {
+
+    public static final int TYPE_ID = 4;
+
+    @Override
+    public int typeId() {
+        return TYPE_ID;
+    }
+
+    @Override
+    public Class<UserRegisteredEvent> type() {
+        return UserRegisteredEvent.class;
+    }
+
+    @Override
+    public int schemaVersion() {
+        return 1;
+    }
+
+    @Override
+    public void write(UserRegisteredEvent event, DataOutput out) throws IOException {
+        writeString(out, event.getEmail());
+        writeString(out, event.getFirstName());
+        writeString(out, event.getLastName());
+    }
+
+    @Override
+    public UserRegisteredEvent read(DataInput in, int schemaVersion) throws IOException {
+        UserRegisteredEvent event = new UserRegisteredEvent();
+        event.setEmail(readString(in));
+        event.setFirstName(readString(in));
+        event.setLastName(readString(in));
+        return event;
+    }
+}
@@ -0,0 +1,46 @@
+package com.github.datnm23.accountservice.event.codec;
+
+import com.github.datnm23.accountservice.event.UserUpdatedEvent;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import static com.github.datnm23.accountservice.event.codec.EventCodecIO.*;
+
+/**
+ * Schema v1: {@code updatedFirstName, updatedLastName} (string, có thể null).
+ */
+public class UserUpdatedEventCodec implements UserEventCodec<UserUpdatedEvent> {
+
+    public static final int TYPE_ID = 5;
+
+    @Override
+    public int typeId() {
+        return TYPE_ID;
+    }
+
+    @Override
+    public Class<UserUpdatedEvent> type() {
+        return UserUpdatedEvent.class;
+    }
+
+    @Override
+    public int schemaVersion() {
+        return 1;
+    }
+
+    @Override
+    public void write(UserUpdatedEvent event, DataOutput out) throws IOException {
+        writeString(out, event.getUpdatedFirstName());
+        writeString(out, event.getUpdatedLastName());
+    }
+
+    @Override
+    public UserUpdatedEvent read(DataInput in, int schemaVersion) throws IOException {
+        UserUpdatedEvent event = new UserUpdatedEvent();
+        event.setUpdatedFirstName(readString(in));
+        event.setUpdatedLastName(readString(in));
+        return event;
+    }
+}
@@ -0,0 +1,7 @@
+package com.github.datnm23.accountservice.exception;
+
+public class InvalidImportFileException extends RuntimeException {
+    public InvalidImportFileException(String message) {
+        super(message);
+    }
+}
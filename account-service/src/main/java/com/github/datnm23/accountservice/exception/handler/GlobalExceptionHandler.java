@@ -102,6 +102,42 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorDetails, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(InvalidImportFileException.class)
+    public ResponseEntity<ErrorDetail> handleInvalidImportFileException(InvalidImportFileException ex, WebRequest request) {
+        log.warn("Invalid import file: {}", ex.getMessage());
+        ErrorDetail errorDetails = new ErrorDetail(
+                LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.value(),
+                HttpStatus.BAD_REQUEST.getReasonPhrase(),
+                ex.getMessage(),
+                request.getDescription(false));
+        return new ResponseEntity<>(errorDetails, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorDetail> handleInvalidCursorException(InvalidCursorException ex, WebRequest request) {
+        log.warn("Invalid pagination cursor: {}", ex.getMessage());
+        ErrorDetail errorDetails = new ErrorDetail(
+                LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.value(),
+                HttpStatus.BAD_REQUEST.getReasonPhrase(),
+                ex.getMessage(),
+                request.getDescription(false));
+        return new ResponseEntity<>(errorDetails, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(PasswordHashingUnavailableException.class)
+    public ResponseEntity<ErrorDetail> handlePasswordHashingUnavailableException(PasswordHashingUnavailableException ex, WebRequest request) {
+        log.warn("Password hashing unavailable: {}", ex.getMessage());
+        ErrorDetail errorDetails = new ErrorDetail(
+                LocalDateTime.now(),
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase(),
+                ex.getMessage(),
+                request.getDescription(false));
+        return new ResponseEntity<>(errorDetails, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ExceptionHandler(ActionNotAllowedException.class)
     public ResponseEntity<ErrorDetail> handleActionNotAllowedException(ActionNotAllowedException ex, WebRequest request) {
         log.warn("Action not allowed: {}", ex.getMessage());
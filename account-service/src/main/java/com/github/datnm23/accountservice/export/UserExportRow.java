@@ -0,0 +1,40 @@
+package com.github.datnm23.accountservice.export;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.github.datnm23.accountservice.statics.AccountStatus;
+import com.github.datnm23.accountservice.statics.Gender;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Một dòng export, đọc bằng JPQL constructor expression nên không tạo entity nào trong persistence context.
+ * Các trường profile là null khi export không kèm profile (và bị bỏ khỏi NDJSON).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UserExportRow(
+        UUID userId,
+        String email,
+        String firstName,
+        String lastName,
+        AccountStatus status,
+        boolean active,
+        boolean emailVerified,
+        OffsetDateTime createdAt,
+        OffsetDateTime updatedAt,
+        OffsetDateTime lastLoginAt,
+        String phone,
+        Gender gender,
+        LocalDate dateOfBirth,
+        String city,
+        String country,
+        String language) {
+
+    public UserExportRow(UUID userId, String email, String firstName, String lastName, AccountStatus status,
+                         boolean active, boolean emailVerified, OffsetDateTime createdAt, OffsetDateTime updatedAt,
+                         OffsetDateTime lastLoginAt) {
+        this(userId, email, firstName, lastName, status, active, emailVerified, createdAt, updatedAt, lastLoginAt,
+                null, null, null, null, null, null);
+    }
+}
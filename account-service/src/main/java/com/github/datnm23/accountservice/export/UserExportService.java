@@ -0,0 +1,227 @@
+package com.github.datnm23.accountservice.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.datnm23.accountservice.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+/**
+ * Export toàn bộ user ra NDJSON hoặc CSV với bộ nhớ không đổi theo kích thước bảng.
+ * <p>
+ * Đọc theo lô keyset trên khoá chính ({@code app.export.chunk-size} dòng, xem {@link UserRepository#findExportRowsAfter}),
+ * mỗi lô trong một transaction read-only riêng: connection chỉ bị giữ trong lúc đọc một lô, không phải suốt thời gian
+ * client tải file (có thể tới {@code spring.mvc.async.request-timeout}). Ghi ra servlet OutputStream là blocking: client
+ * đọc chậm thì lô kế tiếp cũng chưa được đọc, nên heap chỉ giữ tối đa một lô.
+ * <p>
+ * Không còn là snapshot của một transaction: user tạo trong lúc export có id lớn hơn vị trí hiện tại vẫn được ghi ra.
+ */
+@Service
+@Slf4j
+public class UserExportService {
+
+    private static final List<String> CSV_HEADER = List.of(
+            "userId", "email", "firstName", "lastName", "status", "active", "emailVerified",
+            "createdAt", "updatedAt", "lastLoginAt");
+    private static final List<String> CSV_PROFILE_HEADER = List.of(
+            "phone", "gender", "dateOfBirth", "city", "country", "language");
+
+    private final UserRepository userRepository;
+    private final ObjectWriter rowWriter;
+    private final TransactionTemplate readOnlyTx;
+    private final MeterRegistry meterRegistry;
+    private final int flushEveryRows;
+    private final int chunkSize;
+
+    public UserExportService(UserRepository userRepository,
+                             ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.export.flush-every-rows:1000}") int flushEveryRows,
+                             @Value("${app.export.chunk-size:1000}") int chunkSize) {
+        this.userRepository = userRepository;
+        // Không flush sau mỗi dòng: việc flush do exporter quyết định theo lô
+        this.rowWriter = objectMapper.writerFor(UserExportRow.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
+        this.flushEveryRows = Math.max(1, flushEveryRows);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Ghi toàn bộ user vào {@code out}. Không đóng {@code out}.
+     *
+     * @return số dòng đã ghi
+     */
+    public long export(ExportFormat format, boolean includeProfile, OutputStream out) {
+        Counter rowsCounter = meterRegistry.counter("user.export.rows", "format", format.name());
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            Iterator<UserExportRow> rows = new ChunkedRows(includeProfile);
+            long written = format == ExportFormat.CSV
+                    ? writeCsv(rows, includeProfile, out, rowsCounter)
+                    : writeNdjson(rows, out, rowsCounter);
+            log.info("Exported {} users as {} (profile: {})", written, format, includeProfile);
+            return written;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            sample.stop(meterRegistry.timer("user.export.duration", "format", format.name()));
+        }
+    }
+
+    private long writeNdjson(Iterator<UserExportRow> rows, OutputStream out, Counter rowsCounter) throws IOException {
+        long written = 0;
+        try (JsonGenerator generator = rowWriter.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            while (rows.hasNext()) {
+                rowWriter.writeValue(generator, rows.next());
+                generator.writeRaw('\n');
+                if (++written % flushEveryRows == 0) {
+                    generator.flush();
+                    rowsCounter.increment(flushEveryRows);
+                }
+            }
+            generator.flush();
+        }
+        rowsCounter.increment(written % flushEveryRows);
+        return written;
+    }
+
+    private long writeCsv(Iterator<UserExportRow> rows, boolean includeProfile, OutputStream out,
+                          Counter rowsCounter) throws IOException {
+        long written = 0;
+        // Không đóng writer để không đóng luôn response stream; flush ở cuối là đủ
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writeCsvLine(writer, CSV_HEADER);
+        if (includeProfile) {
+            writer.write(',');
+            writeCsvLine(writer, CSV_PROFILE_HEADER);
+        }
+        writer.write("\r\n");
+        while (rows.hasNext()) {
+            UserExportRow row = rows.next();
+            writeCsvLine(writer, List.of(
+                    str(row.userId()), text(row.email()), text(row.firstName()), text(row.lastName()),
+                    str(row.status()), str(row.active()), str(row.emailVerified()),
+                    str(row.createdAt()), str(row.updatedAt()), str(row.lastLoginAt())));
+            if (includeProfile) {
+                writer.write(',');
+                writeCsvLine(writer, List.of(
+                        str(row.phone()), str(row.gender()), str(row.dateOfBirth()),
+                        text(row.city()), text(row.country()), text(row.language())));
+            }
+            writer.write("\r\n");
+            if (++written % flushEveryRows == 0) {
+                writer.flush();
+                rowsCounter.increment(flushEveryRows);
+            }
+        }
+        writer.flush();
+        rowsCounter.increment(written % flushEveryRows);
+        return written;
+    }
+
+    private static void writeCsvLine(Writer writer, List<String> cells) throws IOException {
+        for (int i = 0; i < cells.size(); i++) {
+            if (i > 0) writer.write(',');
+            writer.write(escapeCsv(cells.get(i)));
+        }
+    }
+
+    // Ô văn bản tự do (tên, email, địa chỉ...): thêm ' trước ô bắt đầu bằng = + - @ để bảng tính không hiểu là công
+    // thức. Không dùng cho số điện thoại, ngày, enum: "+84..." hay số âm phải giữ nguyên giá trị.
+    static String text(String value) {
+        if (value == null || value.isEmpty()) return "";
+        char first = value.charAt(0);
+        if (first == '=' || first == '+' || first == '-' || first == '@') {
+            return "'" + value;
+        }
+        return value;
+    }
+
+    // RFC 4180; không đổi nội dung ô
+    static String escapeCsv(String value) {
+        if (value.isEmpty()) return value;
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+
+    private static String str(Object value) {
+        return value == null ? "" : value.toString();
+    }
+
+    // Đọc lô kế tiếp chỉ khi lô hiện tại đã được ghi hết ra response
+    private final class ChunkedRows implements Iterator<UserExportRow> {
+
+        private final boolean includeProfile;
+        private Iterator<UserExportRow> chunk = Collections.emptyIterator();
+        private UUID lastUserId;
+        private boolean exhausted;
+
+        ChunkedRows(boolean includeProfile) {
+            this.includeProfile = includeProfile;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!chunk.hasNext() && !exhausted) {
+                List<UserExportRow> rows = readOnlyTx.execute(status -> fetch(PageRequest.ofSize(chunkSize)));
+                if (rows == null || rows.isEmpty()) {
+                    exhausted = true;
+                } else {
+                    exhausted = rows.size() < chunkSize;
+                    lastUserId = rows.get(rows.size() - 1).userId();
+                    chunk = rows.iterator();
+                }
+            }
+            return chunk.hasNext();
+        }
+
+        @Override
+        public UserExportRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return chunk.next();
+        }
+
+        private List<UserExportRow> fetch(Pageable limit) {
+            if (includeProfile) {
+                return lastUserId == null
+                        ? userRepository.findExportRowsWithProfileFirst(limit)
+                        : userRepository.findExportRowsWithProfileAfter(lastUserId, limit);
+            }
+            return lastUserId == null
+                    ? userRepository.findExportRowsFirst(limit)
+                    : userRepository.findExportRowsAfter(lastUserId, limit);
+        }
+    }
+}
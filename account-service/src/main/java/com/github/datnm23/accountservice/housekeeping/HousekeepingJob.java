@@ -0,0 +1,173 @@
+package com.github.datnm23.accountservice.housekeeping;
+
+import com.github.datnm23.accountservice.cache.EmailMembershipFilter;
+import com.github.datnm23.accountservice.repository.EmailVerificationTokenRepository;
+import com.github.datnm23.accountservice.repository.OAuthProviderRepository;
+import com.github.datnm23.accountservice.repository.UserProfileRepository;
+import com.github.datnm23.accountservice.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * Dọn dữ liệu định kỳ: xoá hẳn user/profile/oauth provider đã soft-delete quá {@code soft-delete-retention} và token
+ * xác thực email đã hết hạn.
+ * <p>
+ * Xoá theo lô {@code chunk-size} dòng, mỗi lô một transaction ngắn, nghỉ {@code pause-between-chunks} giữa các lô để
+ * không giữ khoá lâu, không phình undo log và không dồn replication lag. Thứ tự theo khoá ngoại: mỗi lô user xoá token,
+ * oauth provider, profile của chính các user đó rồi mới tới users; sau đó mới tới các dòng con tự soft-delete.
+ * <p>
+ * Chỉ một instance chạy nhờ {@link JobLease}; lease được gia hạn sau mỗi lô và job dừng ngay nếu mất lease.
+ * Mỗi lượt chạy tối đa {@code max-run-time}, phần còn lại để lượt sau.
+ */
+@Component
+@ConditionalOnProperty(name = "app.housekeeping.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class HousekeepingJob {
+
+    static final String LEASE_NAME = "account-service.housekeeping";
+
+    private final JobLease jobLease;
+    private final UserRepository userRepository;
+    private final UserProfileRepository userProfileRepository;
+    private final OAuthProviderRepository oauthProviderRepository;
+    private final EmailVerificationTokenRepository tokenRepository;
+    private final EmailMembershipFilter emailMembershipFilter;
+    private final TransactionTemplate chunkTx;
+    private final MeterRegistry meterRegistry;
+    private final Timer runTimer;
+
+    private final Duration softDeleteRetention;
+    private final int chunkSize;
+    private final Duration pauseBetweenChunks;
+    private final Duration maxRunTime;
+    private final Duration leaseDuration;
+
+    public HousekeepingJob(JobLease jobLease,
+                           UserRepository userRepository,
+                           UserProfileRepository userProfileRepository,
+                           OAuthProviderRepository oauthProviderRepository,
+                           EmailVerificationTokenRepository tokenRepository,
+                           EmailMembershipFilter emailMembershipFilter,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.housekeeping.soft-delete-retention:30d}") Duration softDeleteRetention,
+                           @Value("${app.housekeeping.chunk-size:500}") int chunkSize,
+                           @Value("${app.housekeeping.pause-between-chunks:200ms}") Duration pauseBetweenChunks,
+                           @Value("${app.housekeeping.max-run-time:5m}") Duration maxRunTime,
+                           @Value("${app.housekeeping.lease-duration:2m}") Duration leaseDuration) {
+        this.jobLease = jobLease;
+        this.userRepository = userRepository;
+        this.userProfileRepository = userProfileRepository;
+        this.oauthProviderRepository = oauthProviderRepository;
+        this.tokenRepository = tokenRepository;
+        this.emailMembershipFilter = emailMembershipFilter;
+        this.chunkTx = new TransactionTemplate(transactionManager);
+        this.chunkTx.setTimeout((int) Math.max(1, leaseDuration.toSeconds()));
+        this.meterRegistry = meterRegistry;
+        this.runTimer = meterRegistry.timer("housekeeping.run.duration");
+        this.softDeleteRetention = softDeleteRetention;
+        this.chunkSize = chunkSize;
+        this.pauseBetweenChunks = pauseBetweenChunks;
+        this.maxRunTime = maxRunTime;
+        this.leaseDuration = leaseDuration;
+    }
+
+    // Lease mất giữa chừng: instance khác đã nhận job
+    private static final class LeaseLostException extends RuntimeException {
+        LeaseLostException() {
+            super("Housekeeping lease lost", null, false, false);
+        }
+    }
+
+    @Scheduled(cron = "${app.housekeeping.cron:0 */15 * * * *}")
+    public void run() {
+        if (!jobLease.tryAcquire(LEASE_NAME, leaseDuration)) {
+            meterRegistry.counter("housekeeping.runs", "result", "skipped").increment();
+            return;
+        }
+        long deadline = System.nanoTime() + maxRunTime.toNanos();
+        OffsetDateTime threshold = OffsetDateTime.now().minus(softDeleteRetention);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String result = "completed";
+        try {
+            long users = purge("users", deadline, () -> purgeUserChunk(threshold));
+            emailMembershipFilter.recordRemovals(users);
+            purge("oauth_providers", deadline, () -> oauthProviderRepository.purgeSoftDeleted(threshold, chunkSize));
+            purge("user_profiles", deadline, () -> userProfileRepository.purgeSoftDeleted(threshold, chunkSize));
+            purge("email_verification_tokens", deadline,
+                    () -> tokenRepository.deleteExpiredTokens(OffsetDateTime.now(), chunkSize));
+        } catch (LeaseLostException e) {
+            result = "lease-lost";
+            log.warn("Housekeeping stopped: lease {} is now held by another instance", LEASE_NAME);
+        } catch (RuntimeException e) {
+            result = "failed";
+            log.error("Housekeeping run failed", e);
+        } finally {
+            sample.stop(runTimer);
+            meterRegistry.counter("housekeeping.runs", "result", result).increment();
+            jobLease.release(LEASE_NAME);
+        }
+    }
+
+    // Xoá từng lô cho tới khi lô trả về ít hơn chunkSize dòng hoặc hết thời gian của lượt chạy
+    private long purge(String table, long deadline, IntSupplier chunk) {
+        Timer chunkTimer = meterRegistry.timer("housekeeping.chunk.duration", "table", table);
+        long total = 0;
+        while (System.nanoTime() < deadline) {
+            Integer deleted = chunkTimer.record(() -> chunkTx.execute(status -> chunk.getAsInt()));
+            int count = deleted == null ? 0 : deleted;
+            purgedRows(table).increment(count);
+            total += count;
+            if (count < chunkSize) {
+                break;
+            }
+            if (!jobLease.renew(LEASE_NAME, leaseDuration)) {
+                throw new LeaseLostException();
+            }
+            pause();
+        }
+        if (total > 0) {
+            log.info("Housekeeping purged {} rows from {}", total, table);
+        }
+        return total;
+    }
+
+    // Một lô user: khoá id trước để restore đồng thời không chen vào giữa các câu DELETE
+    private int purgeUserChunk(OffsetDateTime threshold) {
+        List<byte[]> userIds = userRepository.lockPurgeableUserIds(threshold, chunkSize);
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        purgedRows("email_verification_tokens").increment(tokenRepository.deleteForPurgedUsers(userIds));
+        purgedRows("oauth_providers").increment(oauthProviderRepository.deleteForPurgedUsers(userIds));
+        purgedRows("user_profiles").increment(userProfileRepository.deleteForPurgedUsers(userIds));
+        return userRepository.deleteForPurge(userIds);
+    }
+
+    private Counter purgedRows(String table) {
+        return meterRegistry.counter("housekeeping.purged.rows", "table", table);
+    }
+
+    private void pause() {
+        if (pauseBetweenChunks.isZero()) return;
+        try {
+            Thread.sleep(pauseBetweenChunks.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Housekeeping interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.datnm23.accountservice.housekeeping;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Lease trên bảng {@code scheduler_lease}: job nào giữ lease thì chạy, instance khác bỏ qua lượt đó.
+ * <p>
+ * Mỗi câu lệnh tự commit (không chạy trong transaction của job). Lease có hạn nên instance chết giữa chừng không giữ
+ * job mãi; job dài phải {@link #renew} sau mỗi lô, trả về false nghĩa là đã mất lease và phải dừng.
+ */
+@Component
+@Slf4j
+public class JobLease {
+
+    private static final String INSERT = """
+            INSERT INTO scheduler_lease (name, owner, lease_until, acquired_at)
+            VALUES (?, ?, TIMESTAMPADD(MICROSECOND, ?, UTC_TIMESTAMP(6)), UTC_TIMESTAMP(6))
+            """;
+    // Lấy lại lease đã hết hạn (của instance khác) hoặc của chính mình
+    private static final String TAKE_OVER = """
+            UPDATE scheduler_lease
+            SET owner = ?, lease_until = TIMESTAMPADD(MICROSECOND, ?, UTC_TIMESTAMP(6)), acquired_at = UTC_TIMESTAMP(6)
+            WHERE name = ? AND (lease_until <= UTC_TIMESTAMP(6) OR owner = ?)
+            """;
+    private static final String RENEW = """
+            UPDATE scheduler_lease
+            SET lease_until = TIMESTAMPADD(MICROSECOND, ?, UTC_TIMESTAMP(6))
+            WHERE name = ? AND owner = ?
+            """;
+    private static final String RELEASE = """
+            UPDATE scheduler_lease SET lease_until = UTC_TIMESTAMP(6) WHERE name = ? AND owner = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String owner;
+
+    public JobLease(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.owner = hostName() + "/" + UUID.randomUUID();
+    }
+
+    public boolean tryAcquire(String name, Duration duration) {
+        long micros = duration.toNanos() / 1_000;
+        try {
+            jdbcTemplate.update(INSERT, name, owner, micros);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return jdbcTemplate.update(TAKE_OVER, owner, micros, name, owner) == 1;
+        }
+    }
+
+    public boolean renew(String name, Duration duration) {
+        return jdbcTemplate.update(RENEW, duration.toNanos() / 1_000, name, owner) == 1;
+    }
+
+    public void release(String name) {
+        try {
+            jdbcTemplate.update(RELEASE, name, owner);
+        } catch (Exception e) {
+            // Lease tự hết hạn; instance khác chỉ phải chờ thêm
+            log.warn("Failed to release lease {}: {}", name, e.getMessage());
+        }
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown-host";
+        }
+    }
+}
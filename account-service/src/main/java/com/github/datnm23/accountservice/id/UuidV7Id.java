@@ -0,0 +1,18 @@
+package com.github.datnm23.accountservice.id;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Đánh dấu khoá chính {@link java.util.UUID} được sinh bằng {@link UuidV7}. Dùng thay cho
+ * {@code @GeneratedValue @UuidGenerator}.
+ */
+@IdGeneratorType(UuidV7IdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface UuidV7Id {
+}
@@ -5,9 +5,11 @@ import com.github.datnm23.accountservice.dto.UserDTO;
 import com.github.datnm23.accountservice.dto.UserUpdateDTO;
 import com.github.datnm23.accountservice.dto.UserCreateDTO;
 import com.github.datnm23.accountservice.dto.UserDetailDTO;
+import com.github.datnm23.accountservice.dto.UserProfileDTO;
 import com.github.datnm23.accountservice.entity.OAuthProvider;
 import com.github.datnm23.accountservice.entity.User;
 import com.github.datnm23.accountservice.entity.UserProfile;
+import com.github.datnm23.accountservice.pagination.UserListRow;
 
 import org.mapstruct.*;
 
@@ -22,6 +24,18 @@ public interface UserMapper {
     @Mapping(target = "fullName", expression = "java(user.getFullName())")
     UserDTO toUserDTO(User user);
 
+    // Danh sách/tìm kiếm: dựng từ projection, không có oauthProviders (xem chi tiết user)
+    @Mapping(target = "fullName", expression = "java(row.fullName())")
+    @Mapping(target = "profile", expression = "java(row.profileUserId() == null ? null : toProfileDTO(row))")
+    @Mapping(target = "oauthProviders", ignore = true)
+    UserDTO toUserDTO(UserListRow row);
+
+    @Mapping(target = "userId", source = "profileUserId")
+    @Mapping(target = "createdAt", source = "profileCreatedAt")
+    @Mapping(target = "updatedAt", source = "profileUpdatedAt")
+    @Mapping(target = "deletedAt", ignore = true)
+    UserProfileDTO toProfileDTO(UserListRow row);
+
     @Mapping(target = "userId", ignore = true)
     @Mapping(target = "passwordHash", ignore = true)
     @Mapping(target = "status", constant = "PENDING_VERIFICATION")
@@ -53,7 +67,7 @@ public interface UserMapper {
 
     // Convert entity sang DTO
     @Mapping(target = "fullName",
-            expression = "java(entity.getFirstName() + \" \" + entity.getLastName())")
+            expression = "java(user.getFullName())")
     @Mapping(target = "profile", source = "profile")
     @Mapping(target = "oauthProviders", qualifiedByName = "toDtoList")
     UserDTO toDto(User user);
@@ -72,6 +86,7 @@ public interface UserMapper {
                 : providers.stream().map(this::providerToDto).toList();
     }
 
+    @Mapping(target = "userId", source = "user.userId")
     OAuthProviderDTO providerToDto(OAuthProvider provider);
 
 
@@ -0,0 +1,326 @@
+package com.github.datnm23.accountservice.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.datnm23.accountservice.config.AppConstants;
+import com.github.datnm23.accountservice.entity.OutboxEvent;
+import com.github.datnm23.accountservice.event.UserCreatedEvent;
+import com.github.datnm23.accountservice.event.UserDomainEvent;
+import com.github.datnm23.accountservice.event.UserEmailVerificationRequestedEvent;
+import com.github.datnm23.accountservice.event.UserProfileUpdatedEvent;
+import com.github.datnm23.accountservice.event.UserRegisteredEvent;
+import com.github.datnm23.accountservice.event.UserUpdatedEvent;
+import com.github.datnm23.accountservice.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Chuyển event từ bảng outbox lên Kafka.
+ * <p>
+ * Mỗi vòng khoá một lô {@code app.outbox.relay.batch-size} dòng chưa gửi theo thứ tự ghi
+ * ({@link OutboxEventRepository#lockNextBatch}) và nhận lô bằng {@code hold_until} rồi commit ngay, sau đó gửi tất cả
+ * bất đồng bộ với key là userId, flush producer một lần rồi đánh dấu các dòng đã được broker xác nhận trong một
+ * transaction ngắn khác. Producer idempotent ({@code enable.idempotence}, {@code acks=all}) giữ
+ * thứ tự trong partition nên thứ tự event của cùng một user được bảo toàn. Dòng gửi lỗi ở lại và được gửi lại ở vòng
+ * sau (at-least-once: consumer khử trùng theo {@code eventId}).
+ * <p>
+ * Khi bật {@code app.outbox.coalesce.enabled}, các profile-update dồn dập của cùng user được gộp trước khi gửi
+ * ({@link ProfileUpdateCoalescer}).
+ * <p>
+ * Dòng đã gửi được xoá sau {@code app.outbox.retention}. Metrics: {@code outbox.backlog}, {@code outbox.lag}
+ * (tuổi của event chưa gửi lâu nhất), {@code outbox.relay.batch.duration}, {@code outbox.relay.events{result}},
+ * {@code outbox.delivery.latency}.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private static final Map<String, Class<? extends UserDomainEvent>> EVENT_TYPES = Stream.of(
+                    UserCreatedEvent.class, UserEmailVerificationRequestedEvent.class, UserProfileUpdatedEvent.class,
+                    UserRegisteredEvent.class, UserUpdatedEvent.class)
+            .collect(Collectors.toUnmodifiableMap(Class::getSimpleName, Function.identity()));
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, UserDomainEvent> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate relayTx;
+    private final MeterRegistry meterRegistry;
+    private final String userEventsTopic;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration sendTimeout;
+    private final Duration claimTtl;
+    private final Duration retention;
+    private final int cleanupBatchSize;
+    private final ProfileUpdateCoalescer coalescer;
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final AtomicLong heldEvents = new AtomicLong();
+    private final Counter sentEvents;
+    private final Counter failedEvents;
+    private final Counter droppedEvents;
+    private final Counter coalescedEvents;
+    private final Timer deliveryLatency;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       KafkaTemplate<String, UserDomainEvent> kafkaTemplate,
+                       ObjectMapper objectMapper,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${kafka.topic.user-events:" + AppConstants.KAFKA_TOPIC_USER_EVENTS + "}") String userEventsTopic,
+                       @Value("${app.outbox.relay.enabled:true}") boolean enabled,
+                       @Value("${app.outbox.relay.batch-size:500}") int batchSize,
+                       @Value("${app.outbox.relay.max-batches-per-run:20}") int maxBatchesPerRun,
+                       @Value("${app.outbox.relay.send-timeout:30s}") Duration sendTimeout,
+                       @Value("${app.outbox.retention:1h}") Duration retention,
+                       @Value("${app.outbox.cleanup.batch-size:5000}") int cleanupBatchSize,
+                       @Value("${app.outbox.coalesce.enabled:false}") boolean coalesceEnabled,
+                       @Value("${app.outbox.coalesce.window:2s}") Duration coalesceWindow,
+                       @Value("${app.outbox.coalesce.max-delay:10s}") Duration coalesceMaxDelay) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.relayTx = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.userEventsTopic = userEventsTopic;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatchesPerRun = Math.max(1, maxBatchesPerRun);
+        this.sendTimeout = sendTimeout;
+        // Đủ dài để relay đang gửi chờ hết send-timeout rồi đánh dấu xong trước khi relay khác được lấy lại lô
+        this.claimTtl = sendTimeout.multipliedBy(2);
+        this.retention = retention;
+        this.cleanupBatchSize = Math.max(1, cleanupBatchSize);
+        this.coalescer = coalesceEnabled ? new ProfileUpdateCoalescer(coalesceWindow, coalesceMaxDelay) : null;
+
+        Gauge.builder("outbox.backlog", backlog, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("outbox.lag", lagMillis, lag -> lag.get() / 1000.0).baseUnit("seconds").register(meterRegistry);
+        this.sentEvents = Counter.builder("outbox.relay.events").tag("result", "sent").register(meterRegistry);
+        this.failedEvents = Counter.builder("outbox.relay.events").tag("result", "failed").register(meterRegistry);
+        this.droppedEvents = Counter.builder("outbox.relay.events").tag("result", "dropped").register(meterRegistry);
+        this.deliveryLatency = meterRegistry.timer("outbox.delivery.latency");
+        this.coalescedEvents = meterRegistry.counter("outbox.coalesce.merged");
+        Gauge.builder("outbox.coalesce.held", heldEvents, AtomicLong::get).register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.relay.interval-ms:200}")
+    public void relay() {
+        if (!enabled) return;
+        // Còn nhiều thì rút tiếp ngay, không chờ tới lượt lập lịch sau
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            if (relayBatch(false) < batchSize) break;
+        }
+    }
+
+    // Khi dừng: gửi luôn các profile-update đang được giữ để gộp thay vì đợi hết window
+    @PreDestroy
+    void flushOnShutdown() {
+        if (!enabled || coalescer == null) return;
+        try {
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                if (relayBatch(true) < batchSize) break;
+            }
+        } catch (Exception e) {
+            log.warn("Could not flush coalesced outbox events on shutdown, they will be sent after restart: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Một lô gồm hai transaction ngắn: nhận lô (khoá, đặt {@code hold_until}, commit) rồi đánh dấu đã gửi. Việc gửi và
+     * chờ broker xác nhận nằm giữa hai transaction nên không giữ khoá dòng hay connection trong lúc chờ Kafka.
+     *
+     * @return số dòng đã xử lý xong (gửi hoặc bỏ); 0 nếu có lỗi để dừng vòng hiện tại
+     */
+    private int relayBatch(boolean flushAll) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Claim claim = relayTx.execute(status -> claimBatch(OffsetDateTime.now(), flushAll));
+        if (claim == null) return 0;
+
+        List<ProfileUpdateCoalescer.Delivery> sending = claim.sending();
+        List<CompletableFuture<SendResult<String, UserDomainEvent>>> futures = new ArrayList<>(sending.size());
+        for (ProfileUpdateCoalescer.Delivery delivery : sending) {
+            futures.add(kafkaTemplate.send(userEventsTopic, delivery.rows().get(0).getAggregateId(), delivery.event()));
+        }
+        kafkaTemplate.flush();
+
+        long deadline = System.nanoTime() + sendTimeout.toNanos();
+        OffsetDateTime sentAt = OffsetDateTime.now();
+        int failed = 0;
+        int retried = 0;
+        List<Long> done = new ArrayList<>(claim.rows());
+        List<Long> released = new ArrayList<>();
+        // User có event gửi lỗi: các event sau của user đó dù đã ack cũng không đánh dấu, để lần thử lại gửi lại
+        // cả chuỗi đúng thứ tự (consumer khử trùng theo eventId)
+        Set<String> failedAggregates = new HashSet<>();
+        for (int i = 0; i < futures.size(); i++) {
+            ProfileUpdateCoalescer.Delivery delivery = sending.get(i);
+            OutboxEvent first = delivery.rows().get(0);
+            boolean acked;
+            try {
+                futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                acked = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acked = false;
+            } catch (Exception e) {
+                if (failed == 0) {
+                    log.warn("Failed to relay outbox event {} ({}): {}", first.getId(), first.getEventType(), e.getMessage());
+                }
+                acked = false;
+            }
+            if (!acked) {
+                failed++;
+                failedAggregates.add(first.getAggregateId());
+                delivery.rows().forEach(row -> released.add(row.getId()));
+            } else if (failedAggregates.contains(first.getAggregateId())) {
+                retried++;
+                delivery.rows().forEach(row -> released.add(row.getId()));
+            } else {
+                delivery.rows().forEach(row -> done.add(row.getId()));
+                deliveryLatency.record(Duration.between(first.getCreatedAt(), sentAt));
+            }
+        }
+        // Dòng không gửi được thôi được giữ ngay để vòng sau thử lại, không đợi hết hạn nhận lô
+        relayTx.executeWithoutResult(status -> {
+            if (!done.isEmpty()) {
+                outboxEventRepository.markSent(done, sentAt);
+            }
+            if (!released.isEmpty()) {
+                outboxEventRepository.holdUntil(released, null);
+            }
+        });
+        sentEvents.increment(futures.size() - failed - retried);
+        failedEvents.increment(failed);
+        sample.stop(meterRegistry.timer("outbox.relay.batch.duration"));
+        if (failed > 0) {
+            log.warn("Outbox relay: {} of {} events failed, {} later events of the same users held back; all will be retried",
+                    failed, futures.size(), retried);
+            return 0;
+        }
+        // Dòng đang được giữ để gộp không tính là đã xử lý: lô toàn dòng bị giữ không kéo vòng lặp chạy tiếp
+        return claim.rows() - claim.held();
+    }
+
+    /**
+     * Khoá lô kế tiếp và nhận nó trong cùng transaction: chuỗi đang gộp được đặt {@code hold_until} theo window, dòng
+     * sẽ gửi được đặt {@code hold_until} = hạn nhận lô (relay chết giữa chừng thì relay khác lấy lại sau hạn này), dòng
+     * không đọc được bị đánh dấu luôn. Khoá được trả khi transaction commit.
+     */
+    private Claim claimBatch(OffsetDateTime now, boolean flushAll) {
+        OffsetDateTime cutoff = coalescer != null ? coalescer.lockCutoff(now, flushAll) : now;
+        List<OutboxEvent> rows = outboxEventRepository.lockNextBatch(batchSize, cutoff);
+        if (rows.isEmpty()) return null;
+
+        List<ProfileUpdateCoalescer.Delivery> deliveries;
+        int held = 0;
+        if (coalescer != null) {
+            ProfileUpdateCoalescer.Plan plan = coalescer.plan(rows, this::decode, now, flushAll);
+            deliveries = plan.deliveries();
+            held = plan.heldRows();
+            for (ProfileUpdateCoalescer.Hold hold : plan.holds()) {
+                outboxEventRepository.holdUntil(ids(hold.rows()), hold.until());
+            }
+            coalescedEvents.increment(plan.coalescedRows());
+        } else {
+            deliveries = rows.stream()
+                    .map(row -> new ProfileUpdateCoalescer.Delivery(List.of(row), decode(row)))
+                    .toList();
+        }
+        heldEvents.set(held);
+
+        List<ProfileUpdateCoalescer.Delivery> sending = new ArrayList<>(deliveries.size());
+        List<Long> claimed = new ArrayList<>(rows.size());
+        List<Long> dropped = new ArrayList<>();
+        for (ProfileUpdateCoalescer.Delivery delivery : deliveries) {
+            if (delivery.event() == null) {
+                // Không đọc được thì không bao giờ gửi được: bỏ qua để không chặn cả hàng đợi
+                dropped.addAll(ids(delivery.rows()));
+                continue;
+            }
+            sending.add(delivery);
+            claimed.addAll(ids(delivery.rows()));
+        }
+        if (!dropped.isEmpty()) {
+            outboxEventRepository.markSent(dropped, now);
+            droppedEvents.increment(dropped.size());
+        }
+        if (!claimed.isEmpty()) {
+            outboxEventRepository.holdUntil(claimed, now.plus(claimTtl));
+        }
+        return new Claim(rows.size(), held, sending);
+    }
+
+    private static List<Long> ids(List<OutboxEvent> rows) {
+        return rows.stream().map(OutboxEvent::getId).toList();
+    }
+
+    /**
+     * Lô đã nhận: {@code rows} dòng đã khoá, trong đó {@code held} dòng được giữ để gộp.
+     */
+    private record Claim(int rows, int held, List<ProfileUpdateCoalescer.Delivery> sending) {
+    }
+
+    // Package-private cho test round-trip outbox -> Kafka
+    UserDomainEvent decode(OutboxEvent row) {
+        Class<? extends UserDomainEvent> type = EVENT_TYPES.get(row.getEventType());
+        if (type == null) {
+            log.error("Dropping outbox event {}: unknown event type {}", row.getId(), row.getEventType());
+            return null;
+        }
+        try {
+            return objectMapper.readValue(row.getPayload(), type);
+        } catch (Exception e) {
+            log.error("Dropping outbox event {}: cannot deserialize {}: {}", row.getId(), row.getEventType(), e.getMessage());
+            return null;
+        }
+    }
+
+    // Dòng đã gửi chỉ giữ lại để tra cứu trong thời gian ngắn; xoá theo lô để bảng outbox luôn nhỏ
+    @Scheduled(fixedDelayString = "${app.outbox.cleanup.interval-ms:60000}")
+    public void compact() {
+        if (!enabled) return;
+        OffsetDateTime threshold = OffsetDateTime.now().minus(retention);
+        long deleted = 0;
+        Integer removed;
+        do {
+            removed = relayTx.execute(status -> outboxEventRepository.deleteSentBefore(threshold, cleanupBatchSize));
+            deleted += removed == null ? 0 : removed;
+        } while (removed != null && removed == cleanupBatchSize);
+        if (deleted > 0) {
+            log.debug("Removed {} relayed outbox events older than {}", deleted, threshold);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.metrics-interval-ms:10000}")
+    public void refreshBacklogMetrics() {
+        backlog.set(outboxEventRepository.countPending());
+        OffsetDateTime oldest = outboxEventRepository.findOldestPendingCreatedAt();
+        lagMillis.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, OffsetDateTime.now()).toMillis()));
+    }
+}
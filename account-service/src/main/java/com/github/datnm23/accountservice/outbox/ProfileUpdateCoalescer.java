@@ -0,0 +1,129 @@
+package com.github.datnm23.accountservice.outbox;
+
+import com.github.datnm23.accountservice.entity.OutboxEvent;
+import com.github.datnm23.accountservice.event.UserDomainEvent;
+import com.github.datnm23.accountservice.event.UserProfileUpdatedEvent;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Gộp các {@link UserProfileUpdatedEvent} liên tiếp của cùng một user (form autosave) thành một event mang giá trị
+ * cuối cùng của mọi field đã đổi.
+ * <p>
+ * Chạy trong {@link OutboxRelay} trên lô vừa khoá: chuỗi profile-update ở cuối hàng đợi của một user được giữ lại
+ * trong outbox (không gửi, đặt {@code hold_until}) chừng nào user còn sửa trong {@code window} và chưa quá
+ * {@code maxDelay} kể từ event đầu tiên của chuỗi. Vì event vẫn nằm trong DB nên restart không làm mất gì. Tới
+ * {@code hold_until} relay lấy lại cả chuỗi cùng các event mới của user và quyết định lại; event loại khác đứng sau chuỗi
+ * thì chuỗi được gửi ngay trước nó để giữ thứ tự.
+ */
+class ProfileUpdateCoalescer {
+
+    private static final String PROFILE_UPDATED = UserProfileUpdatedEvent.class.getSimpleName();
+
+    /**
+     * Một message sẽ gửi: {@code event == null} nghĩa là các dòng không đọc được và bị bỏ.
+     */
+    record Delivery(List<OutboxEvent> rows, UserDomainEvent event) {
+    }
+
+    /**
+     * Chuỗi bị giữ: không relay nào lấy lại trước {@code until}.
+     */
+    record Hold(List<OutboxEvent> rows, OffsetDateTime until) {
+    }
+
+    record Plan(List<Delivery> deliveries, List<Hold> holds, int coalescedRows) {
+
+        int heldRows() {
+            return holds.stream().mapToInt(hold -> hold.rows().size()).sum();
+        }
+    }
+
+    private final Duration window;
+    private final Duration maxDelay;
+
+    ProfileUpdateCoalescer(Duration window, Duration maxDelay) {
+        this.window = window;
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * Mốc {@code now} cho {@link com.github.datnm23.accountservice.repository.OutboxEventRepository#lockNextBatch}: khi
+     * shutdown lấy cả các chuỗi đang giữ ({@code hold_until} không quá {@code maxDelay} sau hiện tại). Dòng đang được
+     * relay khác gửi cũng có thể bị lấy lại: at-least-once, consumer khử trùng theo {@code eventId}.
+     */
+    OffsetDateTime lockCutoff(OffsetDateTime now, boolean flushAll) {
+        return flushAll ? now.plus(maxDelay) : now;
+    }
+
+    /**
+     * @param flushAll true khi shutdown: gửi cả các chuỗi còn trong window
+     */
+    Plan plan(List<OutboxEvent> rows, Function<OutboxEvent, UserDomainEvent> decoder,
+              OffsetDateTime now, boolean flushAll) {
+        Map<String, List<OutboxEvent>> byUser = new LinkedHashMap<>();
+        rows.forEach(row -> byUser.computeIfAbsent(row.getAggregateId(), userId -> new ArrayList<>()).add(row));
+
+        List<Delivery> deliveries = new ArrayList<>(rows.size());
+        List<Hold> holds = new ArrayList<>();
+        int coalesced = 0;
+        for (List<OutboxEvent> userRows : byUser.values()) {
+            List<OutboxEvent> run = new ArrayList<>();
+            for (OutboxEvent row : userRows) {
+                if (PROFILE_UPDATED.equals(row.getEventType())) {
+                    run.add(row);
+                    continue;
+                }
+                coalesced += flush(run, decoder, deliveries);
+                deliveries.add(new Delivery(List.of(row), decoder.apply(row)));
+            }
+            if (run.isEmpty()) continue;
+            OffsetDateTime holdUntil = holdUntil(run);
+            if (!flushAll && holdUntil.isAfter(now)) {
+                holds.add(new Hold(List.copyOf(run), holdUntil));
+            } else {
+                coalesced += flush(run, decoder, deliveries);
+            }
+        }
+        return new Plan(deliveries, holds, coalesced);
+    }
+
+    // Hết window kể từ lần sửa cuối, nhưng không quá maxDelay kể từ lần sửa đầu
+    private OffsetDateTime holdUntil(List<OutboxEvent> run) {
+        OffsetDateTime byWindow = run.get(run.size() - 1).getCreatedAt().plus(window);
+        OffsetDateTime byMaxDelay = run.get(0).getCreatedAt().plus(maxDelay);
+        return byWindow.isBefore(byMaxDelay) ? byWindow : byMaxDelay;
+    }
+
+    // Trả về số dòng đã được gộp vào dòng khác
+    private static int flush(List<OutboxEvent> run, Function<OutboxEvent, UserDomainEvent> decoder,
+                             List<Delivery> deliveries) {
+        if (run.isEmpty()) return 0;
+        List<OutboxEvent> merged = new ArrayList<>(run.size());
+        UserProfileUpdatedEvent latest = null;
+        Map<String, Object> changedFields = new LinkedHashMap<>();
+        for (OutboxEvent row : run) {
+            if (!(decoder.apply(row) instanceof UserProfileUpdatedEvent event)) {
+                deliveries.add(new Delivery(List.of(row), null));
+                continue;
+            }
+            if (event.getChangedFields() != null) {
+                changedFields.putAll(event.getChangedFields());
+            }
+            latest = event;
+            merged.add(row);
+        }
+        run.clear();
+        if (latest == null) return 0;
+        // Giữ eventId/thời điểm của event cuối: gửi lại sau lỗi vẫn khử trùng được nếu chuỗi không đổi
+        latest.setChangedFields(changedFields);
+        deliveries.add(new Delivery(merged, latest));
+        return merged.size() - 1;
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.datnm23.accountservice.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.datnm23.accountservice.entity.OutboxEvent;
+import com.github.datnm23.accountservice.event.UserDomainEvent;
+import com.github.datnm23.accountservice.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Ghi {@link UserDomainEvent} vào bảng outbox trong transaction hiện tại (bắt buộc phải có), thay cho
+ * {@code kafkaTemplate.send} trực tiếp: event chỉ tồn tại nếu thay đổi dữ liệu được commit, và request không phải chờ
+ * Kafka. {@link OutboxRelay} gửi chúng đi sau.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserEventOutbox {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(UserDomainEvent event) {
+        outboxEventRepository.save(new OutboxEvent(
+                event.getUserId().toString(), event.getEventType(), toJson(event), OffsetDateTime.now()));
+        log.debug("Queued {} for user {} in outbox", event.getEventType(), event.getUserId());
+    }
+
+    /**
+     * Ghi nhiều event bằng một JDBC batch (Hibernate không batch được insert với khoá IDENTITY); với
+     * {@code rewriteBatchedStatements=true} đây là một câu INSERT nhiều dòng.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendAll(List<? extends UserDomainEvent> events) {
+        if (events.isEmpty()) return;
+        Timestamp now = Timestamp.from(OffsetDateTime.now().toInstant());
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO user_event_outbox (aggregate_id, event_type, payload, created_at) VALUES (?, ?, ?, ?)",
+                events, events.size(), (ps, event) -> {
+                    ps.setString(1, event.getUserId().toString());
+                    ps.setString(2, event.getEventType());
+                    ps.setString(3, toJson(event));
+                    ps.setTimestamp(4, now);
+                });
+    }
+
+    private String toJson(UserDomainEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + event.getEventType() + " for outbox", e);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.github.datnm23.accountservice.pagination;
+
+/**
+ * Cách tính {@code totalElements} cho phân trang theo cursor.
+ */
+public enum CountMode {
+    // Không đếm: mỗi trang chỉ một query
+    NONE,
+    // Số đếm được cache ngắn hạn ({@code app.pagination.approximate-count-ttl}), có thể lệch vài bản ghi
+    APPROXIMATE,
+    // COUNT(*) mỗi request như phân trang theo số trang
+    EXACT
+}
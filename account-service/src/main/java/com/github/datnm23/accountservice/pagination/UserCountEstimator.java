@@ -0,0 +1,33 @@
+package com.github.datnm23.accountservice.pagination;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.datnm23.accountservice.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Tổng số user cho {@link CountMode#APPROXIMATE}: COUNT(*) được cache trong {@code app.pagination.approximate-count-ttl}
+ * và làm mới ở background, nên các request duyệt danh sách không chạy COUNT(*) mỗi trang.
+ */
+@Component
+public class UserCountEstimator {
+
+    private static final String ALL_USERS = "all";
+
+    private final LoadingCache<String, Long> counts;
+
+    public UserCountEstimator(UserRepository userRepository,
+                              @Value("${app.pagination.approximate-count-ttl:60s}") Duration ttl) {
+        this.counts = Caffeine.newBuilder()
+                .refreshAfterWrite(ttl)
+                .expireAfterWrite(ttl.multipliedBy(10))
+                .build(key -> userRepository.count());
+    }
+
+    public long countUsers() {
+        return counts.get(ALL_USERS);
+    }
+}
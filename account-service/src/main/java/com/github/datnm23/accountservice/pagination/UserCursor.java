@@ -0,0 +1,82 @@
+package com.github.datnm23.accountservice.pagination;
+
+import com.github.datnm23.accountservice.exception.InvalidCursorException;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Vị trí tiếp theo khi duyệt danh sách user, mã hoá thành token base64url mờ với client.
+ * <p>
+ * {@link Keyset}: vị trí trên thứ tự {@code (createdAt DESC, userId DESC)} của bảng users, truy vấn tiếp bằng
+ * điều kiện {@code WHERE (created_at, user_id) < (...)} đi thẳng theo index, không quét rồi bỏ các dòng phía trước.
+ * {@link Offset}: vị trí trong kết quả của index tìm kiếm (nằm trong bộ nhớ nên offset không tốn truy vấn DB).
+ */
+public sealed interface UserCursor {
+
+    byte FORMAT_VERSION = 1;
+    byte KIND_KEYSET = 1;
+    byte KIND_OFFSET = 2;
+
+    record Keyset(OffsetDateTime createdAt, UUID userId) implements UserCursor {
+    }
+
+    record Offset(int offset) implements UserCursor {
+    }
+
+    static String encode(UserCursor cursor) {
+        ByteBuffer buffer;
+        if (cursor instanceof Keyset keyset) {
+            Instant instant = keyset.createdAt().toInstant();
+            buffer = ByteBuffer.allocate(2 + Long.BYTES + Integer.BYTES + 2 * Long.BYTES)
+                    .put(FORMAT_VERSION).put(KIND_KEYSET)
+                    .putLong(instant.getEpochSecond()).putInt(instant.getNano())
+                    .putLong(keyset.userId().getMostSignificantBits())
+                    .putLong(keyset.userId().getLeastSignificantBits());
+        } else {
+            buffer = ByteBuffer.allocate(2 + Integer.BYTES)
+                    .put(FORMAT_VERSION).put(KIND_OFFSET)
+                    .putInt(((Offset) cursor).offset());
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * @return null nếu token rỗng (trang đầu tiên)
+     */
+    static UserCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(token));
+            if (buffer.get() != FORMAT_VERSION) {
+                throw new InvalidCursorException("Unsupported cursor version");
+            }
+            byte kind = buffer.get();
+            UserCursor cursor;
+            if (kind == KIND_KEYSET) {
+                Instant createdAt = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+                cursor = new Keyset(createdAt.atOffset(ZoneOffset.UTC), new UUID(buffer.getLong(), buffer.getLong()));
+            } else if (kind == KIND_OFFSET) {
+                int offset = buffer.getInt();
+                if (offset < 0) throw new InvalidCursorException("Invalid cursor");
+                cursor = new Offset(offset);
+            } else {
+                throw new InvalidCursorException("Invalid cursor");
+            }
+            if (buffer.hasRemaining()) {
+                throw new InvalidCursorException("Invalid cursor");
+            }
+            return cursor;
+        } catch (IllegalArgumentException | BufferUnderflowException | DateTimeException e) {
+            throw new InvalidCursorException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.datnm23.accountservice.pagination;
+
+import com.github.datnm23.accountservice.statics.AccountStatus;
+import com.github.datnm23.accountservice.statics.Gender;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Một dòng của danh sách/tìm kiếm user, đọc bằng JPQL constructor expression ({@code User LEFT JOIN profile}) trong
+ * một query: không entity, không lazy load profile hay oauthProviders. Các trường {@code profile*} là null khi user
+ * chưa có profile (hoặc profile đã bị xoá mềm).
+ */
+public record UserListRow(
+        UUID userId,
+        String email,
+        String firstName,
+        String lastName,
+        AccountStatus status,
+        boolean active,
+        boolean emailVerified,
+        OffsetDateTime createdAt,
+        OffsetDateTime updatedAt,
+        OffsetDateTime lastLoginAt,
+        Long version,
+        UUID profileUserId,
+        String avatarUrl,
+        String bio,
+        LocalDate dateOfBirth,
+        Gender gender,
+        String phone,
+        String address,
+        String city,
+        String country,
+        String language,
+        Boolean emailNotifications,
+        Boolean pushNotifications,
+        OffsetDateTime profileCreatedAt,
+        OffsetDateTime profileUpdatedAt) {
+
+    // Cùng quy tắc với User.getFullName()
+    public String fullName() {
+        if (firstName == null && lastName == null) return "";
+        if (firstName == null) return lastName;
+        if (lastName == null) return firstName;
+        return firstName + " " + lastName;
+    }
+}
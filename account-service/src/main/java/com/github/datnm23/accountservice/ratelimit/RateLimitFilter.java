@@ -0,0 +1,253 @@
+package com.github.datnm23.accountservice.ratelimit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.datnm23.accountservice.dto.ErrorDetail;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Giới hạn tần suất cho các endpoint public (đăng ký, xác thực email, gửi lại email xác thực)
+ * theo IP và theo email. Chạy trước Spring Security và trước khi request chạm tới service/DB.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String REGISTER_PATH = "/api/v1/users";
+    private static final String VERIFY_EMAIL_PATH = "/api/v1/users/verify-email";
+    private static final String RESEND_VERIFICATION_PATH = "/api/v1/users/resend-verification-email";
+    // Body đăng ký lớn hơn mức này bị từ chối (413): không thể bỏ qua giới hạn theo email bằng cách độn body
+    private static final int MAX_CACHED_BODY_BYTES = 16 * 1024;
+
+    private final SlidingWindowRateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int trustedProxies;
+    private final SlidingWindowRateLimiter.Rule registerPerIp;
+    private final SlidingWindowRateLimiter.Rule registerPerEmail;
+    private final SlidingWindowRateLimiter.Rule verifyPerIp;
+    private final SlidingWindowRateLimiter.Rule resendPerIp;
+    private final SlidingWindowRateLimiter.Rule resendPerEmail;
+
+    public RateLimitFilter(SlidingWindowRateLimiter rateLimiter,
+                           ObjectMapper objectMapper,
+                           @Value("${app.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${app.rate-limit.trusted-proxies:0}") int trustedProxies,
+                           @Value("${app.rate-limit.register.per-ip.limit:10}") int registerPerIpLimit,
+                           @Value("${app.rate-limit.register.per-ip.window:1h}") Duration registerPerIpWindow,
+                           @Value("${app.rate-limit.register.per-email.limit:3}") int registerPerEmailLimit,
+                           @Value("${app.rate-limit.register.per-email.window:1h}") Duration registerPerEmailWindow,
+                           @Value("${app.rate-limit.verify-email.per-ip.limit:20}") int verifyPerIpLimit,
+                           @Value("${app.rate-limit.verify-email.per-ip.window:10m}") Duration verifyPerIpWindow,
+                           @Value("${app.rate-limit.resend-verification.per-ip.limit:10}") int resendPerIpLimit,
+                           @Value("${app.rate-limit.resend-verification.per-ip.window:1h}") Duration resendPerIpWindow,
+                           @Value("${app.rate-limit.resend-verification.per-email.limit:3}") int resendPerEmailLimit,
+                           @Value("${app.rate-limit.resend-verification.per-email.window:1h}") Duration resendPerEmailWindow) {
+        this.rateLimiter = rateLimiter;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.trustedProxies = Math.max(0, trustedProxies);
+        this.registerPerIp = new SlidingWindowRateLimiter.Rule("register:ip", registerPerIpLimit, registerPerIpWindow);
+        this.registerPerEmail = new SlidingWindowRateLimiter.Rule("register:email", registerPerEmailLimit, registerPerEmailWindow);
+        this.verifyPerIp = new SlidingWindowRateLimiter.Rule("verify:ip", verifyPerIpLimit, verifyPerIpWindow);
+        this.resendPerIp = new SlidingWindowRateLimiter.Rule("resend:ip", resendPerIpLimit, resendPerIpWindow);
+        this.resendPerEmail = new SlidingWindowRateLimiter.Rule("resend:email", resendPerEmailLimit, resendPerEmailWindow);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled || !HttpMethod.POST.matches(request.getMethod())) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !(REGISTER_PATH.equals(path) || VERIFY_EMAIL_PATH.equals(path) || RESEND_VERIFICATION_PATH.equals(path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String ip = clientIp(request);
+        HttpServletRequest downstream = request;
+        List<Check> checks = new ArrayList<>(2);
+
+        switch (path) {
+            case REGISTER_PATH -> {
+                checks.add(new Check(registerPerIp, ip));
+                CachedBodyRequest cached = CachedBodyRequest.wrap(request, MAX_CACHED_BODY_BYTES);
+                if (cached == null) {
+                    log.warn("Rejecting registration body over {} bytes from {}", MAX_CACHED_BODY_BYTES, ip);
+                    writeError(request, response, HttpStatus.PAYLOAD_TOO_LARGE, "Request body is too large.");
+                    return;
+                }
+                downstream = cached;
+                String email = emailFromBody(cached.body);
+                if (email != null) checks.add(new Check(registerPerEmail, email));
+            }
+            case VERIFY_EMAIL_PATH -> checks.add(new Check(verifyPerIp, ip));
+            default -> {
+                checks.add(new Check(resendPerIp, ip));
+                String email = normalizeEmail(request.getParameter("email"));
+                if (email != null) checks.add(new Check(resendPerEmail, email));
+            }
+        }
+
+        for (Check check : checks) {
+            SlidingWindowRateLimiter.Decision decision = rateLimiter.tryAcquire(check.rule(), check.subject());
+            if (!decision.allowed()) {
+                log.warn("Rate limit exceeded for {} ({}) on {}", check.rule().scope(), check.subject(), path);
+                reject(request, response, decision.retryAfter());
+                return;
+            }
+        }
+        chain.doFilter(downstream, response);
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, Duration retryAfter) throws IOException {
+        long retryAfterSeconds = Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        writeError(request, response, HttpStatus.TOO_MANY_REQUESTS,
+                "Too many requests. Please retry after " + retryAfterSeconds + " seconds.");
+    }
+
+    private void writeError(HttpServletRequest request, HttpServletResponse response, HttpStatus status,
+                            String message) throws IOException {
+        ErrorDetail errorDetails = new ErrorDetail(
+                LocalDateTime.now(),
+                status.value(),
+                status.getReasonPhrase(),
+                message,
+                "uri=" + request.getRequestURI());
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), errorDetails);
+    }
+
+    // Các mục bên trái X-Forwarded-For do client tự gửi nên không tin được. Chuỗi [X-Forwarded-For..., remoteAddr]
+    // có trustedProxies proxy tin cậy ở cuối; IP client là hop ngay trước chúng (hop xa nhất mà proxy tin cậy ghi lại).
+    private String clientIp(HttpServletRequest request) {
+        if (trustedProxies == 0) {
+            return request.getRemoteAddr();
+        }
+        String forwarded = request.getHeader("X-Forwarded-For");
+        if (forwarded == null || forwarded.isBlank()) {
+            return request.getRemoteAddr();
+        }
+        String[] hops = forwarded.split(",");
+        // remoteAddr là proxy tin cậy cuối cùng, nên hop cần lấy nằm ở vị trí trustedProxies - 1 tính từ phải sang
+        int index = hops.length - trustedProxies;
+        String hop = hops[Math.max(0, index)].trim();
+        return hop.isEmpty() ? request.getRemoteAddr() : hop;
+    }
+
+    private String emailFromBody(byte[] body) {
+        try {
+            JsonNode email = objectMapper.readTree(body).get("email");
+            return email != null && email.isTextual() ? normalizeEmail(email.asText()) : null;
+        } catch (IOException e) {
+            // Body không phải JSON hợp lệ: để controller trả 400, chỉ giới hạn theo IP
+            return null;
+        }
+    }
+
+    private static String normalizeEmail(String email) {
+        return email == null || email.isBlank() ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record Check(SlidingWindowRateLimiter.Rule rule, String subject) {}
+
+    /**
+     * Request đọc sẵn body vào bộ nhớ để filter lấy email rồi controller vẫn đọc lại được.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        /**
+         * @return null nếu body vượt {@code maxBytes}
+         */
+        static CachedBodyRequest wrap(HttpServletRequest request, int maxBytes) throws IOException {
+            int contentLength = request.getContentLength();
+            if (contentLength > maxBytes) {
+                return null;
+            }
+            // Không có Content-Length (chunked): đọc tối đa maxBytes + 1 byte để biết body có vượt giới hạn không
+            byte[] body = request.getInputStream().readNBytes(contentLength >= 0 ? contentLength : maxBytes + 1);
+            return body.length > maxBytes ? null : new CachedBodyRequest(request, body);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    // Body đã nằm hết trong bộ nhớ: không có gì để chờ
+                    try {
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding() != null ? getCharacterEncoding() : "UTF-8";
+            return new BufferedReader(new InputStreamReader(getInputStream(), Charset.forName(encoding)));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.datnm23.accountservice.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.datnm23.accountservice.cache.CacheKey;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Rate limiter dạng sliding window log trên Redis (ZSET, một script Lua nguyên tử).
+ * <p>
+ * Khi Redis từ chối một subject, thời điểm được phép lại được nhớ cục bộ (Caffeine) nên các request
+ * tiếp theo của subject đó bị chặn ngay trong process, không chạm tới Redis hay MySQL.
+ * Lỗi Redis fail-open: request được cho qua và ghi metric.
+ */
+@Component
+@Slf4j
+public class SlidingWindowRateLimiter {
+
+    // Dùng TIME của Redis để mọi instance cùng một đồng hồ.
+    // KEYS[1] = key, ARGV[1] = window (ms), ARGV[2] = limit, ARGV[3] = member duy nhất
+    // Trả về 0 nếu được phép, retryAfterMs (>= 1) nếu bị từ chối
+    private static final RedisScript<Long> SLIDING_WINDOW_SCRIPT = RedisScript.of(
+            "local t = redis.call('TIME') " +
+            "local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000) " +
+            "local window = tonumber(ARGV[1]) " +
+            "local limit = tonumber(ARGV[2]) " +
+            "redis.call('ZREMRANGEBYSCORE', KEYS[1], 0, now - window) " +
+            "if redis.call('ZCARD', KEYS[1]) < limit then " +
+            "  redis.call('ZADD', KEYS[1], now, ARGV[3]) " +
+            "  redis.call('PEXPIRE', KEYS[1], window) " +
+            "  return 0 " +
+            "end " +
+            "local oldest = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES') " +
+            "return math.max(1, tonumber(oldest[2]) + window - now)",
+            Long.class);
+
+    public record Rule(String scope, int limit, Duration window) {}
+
+    public record Decision(boolean allowed, Duration retryAfter) {
+        static final Decision ALLOWED = new Decision(true, Duration.ZERO);
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, Long> blockedUntil;
+
+    public SlidingWindowRateLimiter(StringRedisTemplate redisTemplate,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${app.rate-limit.local-block-max-entries:100000}") long localBlockMaxEntries) {
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.blockedUntil = Caffeine.newBuilder().maximumSize(localBlockMaxEntries).build();
+    }
+
+    public Decision tryAcquire(Rule rule, String subject) {
+        String key = CacheKey.RATE_LIMIT.format(rule.scope(), subject);
+
+        Long localUntil = blockedUntil.getIfPresent(key);
+        long now = System.currentTimeMillis();
+        if (localUntil != null) {
+            if (localUntil > now) {
+                count(rule, "local_rejected");
+                return new Decision(false, Duration.ofMillis(localUntil - now));
+            }
+            blockedUntil.invalidate(key);
+        }
+
+        try {
+            Long retryAfterMs = redisTemplate.execute(SLIDING_WINDOW_SCRIPT, List.of(key),
+                    String.valueOf(rule.window().toMillis()), String.valueOf(rule.limit()), UUID.randomUUID().toString());
+            if (retryAfterMs == null || retryAfterMs <= 0) {
+                count(rule, "allowed");
+                return Decision.ALLOWED;
+            }
+            blockedUntil.put(key, now + retryAfterMs);
+            count(rule, "rejected");
+            return new Decision(false, Duration.ofMillis(retryAfterMs));
+        } catch (Exception e) {
+            log.error("Rate limit check failed for {}, allowing request", key, e);
+            count(rule, "error");
+            return Decision.ALLOWED;
+        }
+    }
+
+    private void count(Rule rule, String result) {
+        meterRegistry.counter("ratelimit.requests", "scope", rule.scope(), "result", result).increment();
+    }
+}
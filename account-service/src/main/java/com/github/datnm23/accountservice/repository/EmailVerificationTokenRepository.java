@@ -1,11 +1,14 @@
 package com.github.datnm23.accountservice.repository;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.github.datnm23.accountservice.entity.EmailVerificationToken;
@@ -21,7 +24,17 @@ public interface EmailVerificationTokenRepository extends JpaRepository<EmailVer
     @Modifying 
     void deleteAllByUser(User user);
 
+    // Xoá token hết hạn theo lô (HousekeepingJob), đi theo index idx_evt_expiry_date
     @Modifying
-    @Query("DELETE FROM EmailVerificationToken t WHERE t.expiryDate < CURRENT_TIMESTAMP")
-    void deleteExpiredTokens();
+    @Query(value = """
+            DELETE FROM email_verification_tokens
+            WHERE expiry_date < :now
+            ORDER BY expiry_date
+            LIMIT :limit
+            """, nativeQuery = true)
+    int deleteExpiredTokens(@Param("now") OffsetDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM email_verification_tokens WHERE user_id IN (:userIds)", nativeQuery = true)
+    int deleteForPurgedUsers(@Param("userIds") Collection<byte[]> userIds);
 }
@@ -1,6 +1,8 @@
 package com.github.datnm23.accountservice.repository;
 
 import com.github.datnm23.accountservice.entity.OAuthProvider;
+import com.github.datnm23.accountservice.search.UserIdentity;
+import com.github.datnm23.accountservice.statics.Provider;
 import jakarta.transaction.Transactional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -10,6 +12,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -18,11 +21,11 @@ public interface OAuthProviderRepository extends JpaRepository<OAuthProvider, UU
 
     /* -----Tìm kiếm -----*/
 
-    Optional<OAuthProvider> findByProviderAndExternalId(OAuthProvider provider, String externalId);
+    Optional<OAuthProvider> findByProviderAndExternalId(Provider provider, String externalId);
 
     List<OAuthProvider> findByUserUserId(UUID userId);
 
-    boolean existsByProviderAndExternalId(OAuthProvider provider, String externalId);
+    boolean existsByProviderAndExternalId(Provider provider, String externalId);
 
     /* -----Search nâng cao ----*/
 
@@ -33,6 +36,23 @@ public interface OAuthProviderRepository extends JpaRepository<OAuthProvider, UU
             """)
     Page<OAuthProvider> search(@Param("q") String keyword, Pageable pageable);
 
+    /* ----- Index tìm kiếm -----*/
+
+    // Danh tính của một lô user khi rebuild index
+    @Query("""
+            SELECT new com.github.datnm23.accountservice.search.UserIdentity(o.user.userId, o.email, o.displayName)
+            FROM OAuthProvider o
+            WHERE o.user.userId IN :userIds
+            """)
+    List<UserIdentity> findSearchIdentitiesByUserIds(@Param("userIds") Collection<UUID> userIds);
+
+    @Query("""
+            SELECT new com.github.datnm23.accountservice.search.UserIdentity(o.user.userId, o.email, o.displayName)
+            FROM OAuthProvider o
+            WHERE o.user.userId = :userId
+            """)
+    List<UserIdentity> findSearchIdentities(@Param("userId") UUID userId);
+
     @Query(value = "SELECT * FROM oauth_providers WHERE user_id = :userId", nativeQuery = true)
     List<OAuthProvider> findIncludingDeleted(@Param("userId") UUID userId);
 
@@ -40,22 +60,28 @@ public interface OAuthProviderRepository extends JpaRepository<OAuthProvider, UU
 
     @Modifying(clearAutomatically = true)
     @Transactional
-    @Query("UPDATE OAuthProvider o SET o.deletedAt = :now WHERE o.userId = :id")
+    @Query("UPDATE OAuthProvider o SET o.deletedAt = :now WHERE o.user.userId = :id")
     int softDelete(@Param("id") UUID userId, @Param("now") OffsetDateTime now);
 
     @Modifying(clearAutomatically = true)
     @Transactional
-    @Query("UPDATE OAuthProvider o SET o.deletedAt = NULL WHERE o.userId = :id")
+    @Query("UPDATE OAuthProvider o SET o.deletedAt = NULL WHERE o.user.userId = :id")
     int restore(@Param("id") UUID userId);
 
     /* ----- SHouse-keeping: xoá hẳn bản ghi đã soft-delete quá 30 ngày----*/
+    // Native và có LIMIT: mỗi lần gọi là một lô nhỏ trong transaction riêng (HousekeepingJob)
 
-    @Modifying(clearAutomatically = true)
-    @Transactional
-    @Query("""
-            DELETE FROM OAuthProvider o
-            WHERE o.deletedAt IS NOT NULL
-              AND o.deletedAt <= :threshold
-            """)
-    int purgeSoftDeleted(@Param("threshold") OffsetDateTime threshold);
+    @Modifying
+    @Query(value = """
+            DELETE FROM oauth_providers
+            WHERE deleted_at IS NOT NULL
+              AND deleted_at <= :threshold
+            ORDER BY deleted_at
+            LIMIT :limit
+            """, nativeQuery = true)
+    int purgeSoftDeleted(@Param("threshold") OffsetDateTime threshold, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM oauth_providers WHERE user_id IN (:userIds)", nativeQuery = true)
+    int deleteForPurgedUsers(@Param("userIds") Collection<byte[]> userIds);
 }
@@ -0,0 +1,58 @@
+package com.github.datnm23.accountservice.repository;
+
+import com.github.datnm23.accountservice.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Khoá lô event chưa gửi tiếp theo theo thứ tự ghi, bỏ qua user còn dòng có {@code hold_until > :now} (đang giữ
+     * để gộp hoặc đang được relay khác gửi): dòng bị giữ không nằm ở đầu lô chặn user khác, và event sau của user đó
+     * không vượt lên trước. Khoá chỉ giữ tới khi relay đặt {@code hold_until} cho lô rồi commit, không phải suốt lúc
+     * chờ Kafka.
+     */
+    @Query(value = """
+            SELECT * FROM user_event_outbox
+            WHERE sent_at IS NULL
+              AND (hold_until IS NULL OR hold_until <= :now)
+              AND aggregate_id NOT IN (
+                  SELECT held.aggregate_id FROM user_event_outbox held
+                  WHERE held.hold_until > :now AND held.sent_at IS NULL)
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE
+            """, nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(@Param("limit") int limit, @Param("now") OffsetDateTime now);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.holdUntil = :holdUntil WHERE e.id IN :ids")
+    int holdUntil(@Param("ids") Collection<Long> ids, @Param("holdUntil") OffsetDateTime holdUntil);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.sentAt = :sentAt, e.holdUntil = NULL WHERE e.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") OffsetDateTime sentAt);
+
+    // Dọn các dòng đã gửi theo lô nhỏ để không khoá bảng lâu
+    @Modifying
+    @Query(value = """
+            DELETE FROM user_event_outbox
+            WHERE sent_at IS NOT NULL AND sent_at < :threshold
+            LIMIT :limit
+            """, nativeQuery = true)
+    int deleteSentBefore(@Param("threshold") OffsetDateTime threshold, @Param("limit") int limit);
+
+    @Query("SELECT COUNT(e) FROM OutboxEvent e WHERE e.sentAt IS NULL")
+    long countPending();
+
+    @Query("SELECT MIN(e.createdAt) FROM OutboxEvent e WHERE e.sentAt IS NULL")
+    OffsetDateTime findOldestPendingCreatedAt();
+}
@@ -0,0 +1,32 @@
+package com.github.datnm23.accountservice.repository;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Nhận diện unique index bị vi phạm từ {@link DataIntegrityViolationException}, để chỉ lỗi trùng thật sự mới được
+ * báo là "đã tồn tại"; NOT NULL, khoá ngoại hay constraint khác phải được ném tiếp.
+ */
+public final class UniqueViolations {
+
+    public static final String USER_EMAIL = "idx_user_email";
+
+    private UniqueViolations() {}
+
+    public static boolean isViolationOf(DataIntegrityViolationException e, String indexName) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                String name = violation.getConstraintName();
+                if (name == null) return false;
+                // MySQL 8 báo "Duplicate entry ... for key 'users.idx_user_email'"; H2 báo index của constraint
+                // dạng "PUBLIC.IDX_USER_EMAIL_INDEX_4"
+                String index = name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+                return index.equals(indexName) || index.matches(Pattern.quote(indexName) + "_index_\\d+");
+            }
+        }
+        return false;
+    }
+}
@@ -12,6 +12,7 @@ import com.github.datnm23.accountservice.entity.UserProfile;
 import org.springframework.data.domain.Pageable;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -59,14 +60,21 @@ public interface UserProfileRepository extends JpaRepository<UserProfile, UUID>
     int restore(@Param("userId") UUID userId);
 
     /* ----- SHouse-keeping: xoá hẳn bản ghi đã soft-delete quá 30 ngày----*/
-
-    @Modifying(clearAutomatically = true)
-    @Transactional
-    @Query("""
-            DELETE FROM UserProfile p
-            WHERE p.deletedAt IS NOT NULL
-              AND p.deletedAt <= :threshold
-            """)
-    int purgeSoftDeleted(@Param("threshold") OffsetDateTime threshold);
+    // Native và có LIMIT: mỗi lần gọi là một lô nhỏ trong transaction riêng (HousekeepingJob)
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM user_profiles
+            WHERE deleted_at IS NOT NULL
+              AND deleted_at <= :threshold
+            ORDER BY deleted_at
+            LIMIT :limit
+            """, nativeQuery = true)
+    int purgeSoftDeleted(@Param("threshold") OffsetDateTime threshold, @Param("limit") int limit);
+
+    // Profile của các user sắp bị purge (giá trị user_id thô do UserRepository.lockPurgeableUserIds trả về)
+    @Modifying
+    @Query(value = "DELETE FROM user_profiles WHERE user_id IN (:userIds)", nativeQuery = true)
+    int deleteForPurgedUsers(@Param("userIds") Collection<byte[]> userIds);
 
 }
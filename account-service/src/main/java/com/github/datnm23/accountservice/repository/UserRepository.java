@@ -1,19 +1,31 @@
 package com.github.datnm23.accountservice.repository;
 
+import jakarta.persistence.QueryHint;
 import jakarta.transaction.Transactional;
 import org.springframework.data.domain.Page;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.github.datnm23.accountservice.entity.User;
+import com.github.datnm23.accountservice.export.UserExportRow;
+import com.github.datnm23.accountservice.pagination.UserListRow;
+import com.github.datnm23.accountservice.search.UserDocument;
+import com.github.datnm23.accountservice.statics.AccountStatus;
 import org.springframework.data.domain.Pageable;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, UUID> {
@@ -23,6 +35,13 @@ public interface UserRepository extends JpaRepository<User, UUID> {
 
     Optional<User> findByEmailIgnoreCase(String email);
 
+    // Fetch plan tường minh cho UserDTO đầy đủ: profile + oauthProviders trong cùng một query thay vì hai lần lazy load
+    @EntityGraph(attributePaths = {"profile", "oauthProviders"})
+    Optional<User> findWithRelationsByUserId(UUID userId);
+
+    @EntityGraph(attributePaths = "profile")
+    Optional<User> findWithProfileByUserId(UUID userId);
+
     Optional<User> findByFirstNameIgnoreCaseAndLastNameIgnoreCase(String firstName, String lastName);
 
     boolean existsByEmailIgnoreCase(String email);
@@ -41,10 +60,96 @@ public interface UserRepository extends JpaRepository<User, UUID> {
             """)
     Page<User> searchByKeyword(@Param("q") String q, Pageable pageable);
 
+    /* ----- Danh sách (projection) -----*/
+    // Chỉ chọn các cột UserDTO cần, profile qua LEFT JOIN: một query mỗi trang, không entity trong persistence context
+
+    String LIST_ROW_SELECT = """
+            SELECT new com.github.datnm23.accountservice.pagination.UserListRow(
+                   u.userId, u.email, u.firstName, u.lastName, u.status, u.active, u.emailVerified,
+                   u.createdAt, u.updatedAt, u.lastLoginAt, u.version,
+                   p.userId, p.avatarUrl, p.bio, p.dateOfBirth, p.gender, p.phone, p.address, p.city, p.country,
+                   p.language, p.emailNotifications, p.pushNotifications, p.createdAt, p.updatedAt)
+            FROM User u LEFT JOIN u.profile p ON p.deletedAt IS NULL
+            """;
+
+    String KEYWORD_FILTER = """
+            (LOWER(u.email) LIKE LOWER(CONCAT('%', :q, '%'))
+                OR LOWER(u.firstName) LIKE LOWER(CONCAT('%', :q, '%'))
+                OR LOWER(u.lastName) LIKE LOWER(CONCAT('%', :q, '%')))
+            """;
+
+    @Query(value = LIST_ROW_SELECT, countQuery = "SELECT COUNT(u) FROM User u")
+    Page<UserListRow> findListRows(Pageable pageable);
+
+    @Query(value = LIST_ROW_SELECT + " WHERE " + KEYWORD_FILTER,
+            countQuery = "SELECT COUNT(u) FROM User u WHERE " + KEYWORD_FILTER)
+    Page<UserListRow> searchListRows(@Param("q") String q, Pageable pageable);
+
+    // Nạp các dòng theo danh sách id do search index trả về (thứ tự do caller sắp lại)
+    @Query(LIST_ROW_SELECT + " WHERE u.userId IN :userIds")
+    List<UserListRow> findListRowsByIds(@Param("userIds") Collection<UUID> userIds);
+
+    /* ----- Phân trang theo cursor (keyset) -----*/
+    // Thứ tự (createdAt DESC, userId DESC) đi theo index idx_user_created_at_user_id.
+    // Trả về List để không kèm COUNT(*); Pageable chỉ dùng để giới hạn số dòng (size + 1 để biết còn trang sau).
+
+    @Query(LIST_ROW_SELECT + " ORDER BY u.createdAt DESC, u.userId DESC")
+    List<UserListRow> findKeysetFirstPage(Pageable limit);
+
+    @Query(LIST_ROW_SELECT + """
+            WHERE u.createdAt < :createdAt
+               OR (u.createdAt = :createdAt AND u.userId < :userId)
+            ORDER BY u.createdAt DESC, u.userId DESC
+            """)
+    List<UserListRow> findKeysetPageAfter(@Param("createdAt") OffsetDateTime createdAt,
+                                          @Param("userId") UUID userId,
+                                          Pageable limit);
+
+    @Query(LIST_ROW_SELECT + " WHERE " + KEYWORD_FILTER + " ORDER BY u.createdAt DESC, u.userId DESC")
+    List<UserListRow> searchKeysetFirstPage(@Param("q") String q, Pageable limit);
+
+    @Query(LIST_ROW_SELECT + " WHERE " + KEYWORD_FILTER + """
+              AND (u.createdAt < :createdAt
+                OR (u.createdAt = :createdAt AND u.userId < :userId))
+            ORDER BY u.createdAt DESC, u.userId DESC
+            """)
+    List<UserListRow> searchKeysetPageAfter(@Param("q") String q,
+                                            @Param("createdAt") OffsetDateTime createdAt,
+                                            @Param("userId") UUID userId,
+                                            Pageable limit);
+
+    @Query("""
+            SELECT COUNT(u) FROM User u
+            WHERE LOWER(u.email) LIKE LOWER(CONCAT('%', :q, '%'))
+               OR LOWER(u.firstName) LIKE LOWER(CONCAT('%', :q, '%'))
+               OR LOWER(u.lastName) LIKE LOWER(CONCAT('%', :q, '%'))
+            """)
+    long countSearch(@Param("q") String q);
+
     /* -----Thời gian hoạt động------*/
 
     Page<User> findByLastLoginAtAfter(OffsetDateTime since, Pageable pageable);
 
+    // Warm-up cache: keyset theo (lastLoginAt DESC, userId DESC) trên idx_user_last_login_at_user_id, trả List nên không
+    // kèm COUNT(*); Pageable chỉ dùng để giới hạn số dòng
+    @Query("""
+            SELECT u FROM User u
+            WHERE u.lastLoginAt > :since
+            ORDER BY u.lastLoginAt DESC, u.userId DESC
+            """)
+    List<User> findRecentLoginsFirstPage(@Param("since") OffsetDateTime since, Pageable limit);
+
+    @Query("""
+            SELECT u FROM User u
+            WHERE u.lastLoginAt > :since
+              AND (u.lastLoginAt < :lastLoginAt OR (u.lastLoginAt = :lastLoginAt AND u.userId < :userId))
+            ORDER BY u.lastLoginAt DESC, u.userId DESC
+            """)
+    List<User> findRecentLoginsAfter(@Param("since") OffsetDateTime since,
+                                     @Param("lastLoginAt") OffsetDateTime lastLoginAt,
+                                     @Param("userId") UUID userId,
+                                     Pageable limit);
+
     Page<User> findByCreatedAtBetween(OffsetDateTime from, OffsetDateTime to, Pageable pageable);
 
     Page<User> findByLastLoginAtBetween(OffsetDateTime from, OffsetDateTime to, Pageable pageable);
@@ -61,22 +166,111 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     @Query("UPDATE User u SET u.emailVerified = :verified WHERE LOWER(u.email) = LOWER(:email)")
     void updateEmailVerified(@Param("email") String email, @Param("verified") boolean verified);
 
+    // Xác thực bằng token ký: một câu UPDATE có điều kiện thay cho đọc token + user rồi ghi lại. Nonce không khớp
+    // (đã gửi lại email) hoặc đã xác thực thì không khớp dòng nào. active tính như User.updateActiveStatus().
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            UPDATE User u
+            SET u.emailVerified = true,
+                u.status = CASE WHEN u.status = :pending THEN :activeStatus ELSE u.status END,
+                u.active = CASE WHEN u.status = :pending OR u.status = :activeStatus THEN true ELSE false END,
+                u.version = u.version + 1,
+                u.updatedAt = :now
+            WHERE u.userId = :id AND u.verificationNonce = :nonce
+              AND u.emailVerified = false AND u.deletedAt IS NULL""")
+    int verifyEmailIfNonceMatches(@Param("id") UUID id, @Param("nonce") int nonce, @Param("now") OffsetDateTime now,
+                                  @Param("pending") AccountStatus pending, @Param("activeStatus") AccountStatus activeStatus);
+
+    boolean existsByUserIdAndEmailVerifiedTrue(UUID userId);
+
     /* ----- Hard-delete -----*/
 
-    @Modifying(clearAutomatically = true)
-    @Transactional
-    @Query("DELETE FROM User u WHERE u.deletedAt IS NOT NULL AND u.deletedAt <= :threshold")
-    int purgeSoftDeleted(@Param("threshold") OffsetDateTime threshold);
+    // Native vì @SQLRestriction ẩn các dòng đã soft-delete khỏi JPQL. Khoá lô user cần purge trong transaction của
+    // HousekeepingJob (restore đồng thời phải chờ); SKIP LOCKED bỏ qua user đang bị transaction khác giữ.
+    // Trả về giá trị user_id thô để truyền thẳng vào các câu DELETE của bảng con.
+    @Query(value = """
+            SELECT user_id FROM users
+            WHERE deleted_at IS NOT NULL
+              AND deleted_at <= :threshold
+            ORDER BY deleted_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<byte[]> lockPurgeableUserIds(@Param("threshold") OffsetDateTime threshold, @Param("limit") int limit);
+
+    // Gọi sau khi đã xoá token, oauth providers và profile của các user này (khoá ngoại)
+    @Modifying
+    @Query(value = "DELETE FROM users WHERE user_id IN (:userIds)", nativeQuery = true)
+    int deleteForPurge(@Param("userIds") Collection<byte[]> userIds);
 
     /* -----Truy vấn bao gồm bản ghi đã xoá -----*/
 
+    // Stream toàn bộ email (kể cả bản ghi đã soft-delete vì unique index vẫn giữ chúng).
+    // Fetch size MIN_VALUE để MySQL Connector/J trả từng dòng thay vì nạp cả result set. Cần chạy trong transaction.
+    @Query(value = "SELECT LOWER(email) FROM users", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "-2147483648"))
+    Stream<String> streamAllEmails();
+
+    @Query(value = "SELECT LOWER(email) FROM users WHERE created_at >= :since", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "-2147483648"))
+    Stream<String> streamEmailsCreatedSince(@Param("since") OffsetDateTime since);
+
+    /* ----- Index tìm kiếm -----*/
+
+    String SEARCH_DOCUMENT_SELECT = """
+            SELECT new com.github.datnm23.accountservice.search.UserDocument(
+                   u.userId, u.email, u.firstName, u.lastName, p.bio, p.city, p.country, p.language)
+            FROM User u LEFT JOIN u.profile p
+            """;
+
+    // Projection cho rebuild index, theo lô keyset trên khoá chính (không dùng cursor streaming: mỗi lô còn cần một
+    // query danh tính OAuth trên cùng connection). Pageable chỉ dùng để giới hạn số dòng.
+    @Query(SEARCH_DOCUMENT_SELECT + " ORDER BY u.userId")
+    List<UserDocument> findSearchDocumentsFirst(Pageable limit);
+
+    @Query(SEARCH_DOCUMENT_SELECT + " WHERE u.userId > :after ORDER BY u.userId")
+    List<UserDocument> findSearchDocumentsAfter(@Param("after") UUID after, Pageable limit);
+
+    @Query(SEARCH_DOCUMENT_SELECT + " WHERE u.userId = :id")
+    Optional<UserDocument> findSearchDocument(@Param("id") UUID id);
+
+    /* ----- Export -----*/
+    // Projection theo lô keyset trên khoá chính: mỗi lô là một query ngắn, không giữ connection/cursor giữa các lô.
+    // Pageable chỉ dùng để giới hạn số dòng.
+
+    String EXPORT_SELECT = """
+            SELECT new com.github.datnm23.accountservice.export.UserExportRow(
+                   u.userId, u.email, u.firstName, u.lastName, u.status, u.active, u.emailVerified,
+                   u.createdAt, u.updatedAt, u.lastLoginAt)
+            FROM User u
+            """;
+
+    String EXPORT_WITH_PROFILE_SELECT = """
+            SELECT new com.github.datnm23.accountservice.export.UserExportRow(
+                   u.userId, u.email, u.firstName, u.lastName, u.status, u.active, u.emailVerified,
+                   u.createdAt, u.updatedAt, u.lastLoginAt,
+                   p.phone, p.gender, p.dateOfBirth, p.city, p.country, p.language)
+            FROM User u LEFT JOIN u.profile p
+            """;
+
+    @Query(EXPORT_SELECT + " ORDER BY u.userId")
+    List<UserExportRow> findExportRowsFirst(Pageable limit);
+
+    @Query(EXPORT_SELECT + " WHERE u.userId > :after ORDER BY u.userId")
+    List<UserExportRow> findExportRowsAfter(@Param("after") UUID after, Pageable limit);
+
+    @Query(EXPORT_WITH_PROFILE_SELECT + " ORDER BY u.userId")
+    List<UserExportRow> findExportRowsWithProfileFirst(Pageable limit);
+
+    @Query(EXPORT_WITH_PROFILE_SELECT + " WHERE u.userId > :after ORDER BY u.userId")
+    List<UserExportRow> findExportRowsWithProfileAfter(@Param("after") UUID after, Pageable limit);
+
+    // Kiểm tra trùng email cho cả một lô import bằng một query. Tính cả bản ghi đã soft-delete (unique index vẫn giữ chúng);
+    // collation mặc định của MySQL không phân biệt hoa thường nên IN dùng thẳng idx_user_email.
+    @Query(value = "SELECT LOWER(email) FROM users WHERE email IN (:emails)", nativeQuery = true)
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
     @Query(value = "SELECT * FROM users WHERE user_id = :id", nativeQuery = true)
     Optional<User> findIncludingDeleted(@Param("id") UUID id);
 
-    @Query("SELECT u FROM User u WHERE " +
-           "LOWER(u.email) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-           "LOWER(u.firstName) LIKE LOWER(CONCAT('%', :query, '%')) OR " + 
-           "LOWER(u.lastName) LIKE LOWER(CONCAT('%', :query, '%'))")
-    Page<User> searchUsers(@Param("query") String query, Pageable pageable);
-
 }
\ No newline at end of file
@@ -0,0 +1,239 @@
+package com.github.datnm23.accountservice.search;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Backend Elasticsearch cho {@link UserSearchIndex} ({@code app.search.backend=elasticsearch}), gọi REST API trực tiếp.
+ * <p>
+ * {@code app.search.elasticsearch.index} là alias: mỗi lần rebuild tạo một index mới {@code <alias>-<epoch>}, bulk-load,
+ * rồi chuyển alias sang index mới trong một lệnh {@code _aliases} và xoá các index cũ. Document thay đổi trong lúc rebuild
+ * được ghi lại lên index mới sau khi chuyển alias.
+ */
+@Component
+@ConditionalOnProperty(name = "app.search.backend", havingValue = "elasticsearch")
+@Slf4j
+public class ElasticsearchUserSearchIndex implements UserSearchIndex {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    // Analyzer bỏ dấu (asciifolding) cho khớp với SearchTextAnalyzer của backend memory
+    private static final Map<String, Object> INDEX_DEFINITION = Map.of(
+            "settings", Map.of("analysis", Map.of("analyzer", Map.of("folding", Map.of(
+                    "tokenizer", "standard",
+                    "filter", List.of("lowercase", "asciifolding"))))),
+            "mappings", Map.of("properties", Map.of(
+                    "email", text(), "firstName", text(), "lastName", text(), "bio", text(),
+                    "city", text(), "country", text(), "language", text(), "identities", text())));
+
+    private static final List<String> SEARCH_FIELDS = List.of(
+            "firstName^3", "lastName^3", "email^2", "identities^1.5", "city", "country", "language", "bio^0.5");
+
+    private final RestClient restClient;
+    private final ObjectMapper objectMapper;
+    private final String alias;
+
+    private volatile boolean ready;
+    // Khác null khi đang rebuild: các document đã đổi (empty = đã xoá), cần ghi lại lên index mới
+    private volatile Map<UUID, Optional<UserDocument>> changedDuringRebuild;
+
+    public ElasticsearchUserSearchIndex(RestClient.Builder restClientBuilder,
+                                        ObjectMapper objectMapper,
+                                        @Value("${app.search.elasticsearch.url:http://localhost:9200}") String url,
+                                        @Value("${app.search.elasticsearch.index:account-users}") String alias) {
+        this.restClient = restClientBuilder.baseUrl(url).build();
+        this.objectMapper = objectMapper;
+        this.alias = alias;
+    }
+
+    private static Map<String, Object> text() {
+        return Map.of("type", "text", "analyzer", "folding");
+    }
+
+    @Override
+    public boolean shared() {
+        return true;
+    }
+
+    @Override
+    public void upsert(UserDocument document) {
+        Map<UUID, Optional<UserDocument>> changed = changedDuringRebuild;
+        if (changed != null) changed.put(document.userId(), Optional.of(document));
+        // Trước lần build đầu alias chưa tồn tại: PUT vào alias sẽ tự tạo một index trùng tên
+        if (!ready) return;
+        restClient.put()
+                .uri("/{index}/_doc/{id}", alias, document.userId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(source(document))
+                .retrieve()
+                .toBodilessEntity();
+    }
+
+    @Override
+    public void remove(UUID userId) {
+        Map<UUID, Optional<UserDocument>> changed = changedDuringRebuild;
+        if (changed != null) changed.put(userId, Optional.empty());
+        // Trước lần build đầu alias chưa tồn tại: PUT vào alias sẽ tự tạo một index trùng tên
+        if (!ready) return;
+        try {
+            restClient.delete()
+                    .uri("/{index}/_doc/{id}", alias, userId)
+                    .retrieve()
+                    .toBodilessEntity();
+        } catch (HttpClientErrorException.NotFound e) {
+            // Đã không có trong index
+        }
+    }
+
+    @Override
+    public RebuildSession beginRebuild() {
+        String index = alias + "-" + System.currentTimeMillis();
+        restClient.put()
+                .uri("/{index}", index)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(INDEX_DEFINITION)
+                .retrieve()
+                .toBodilessEntity();
+        Map<UUID, Optional<UserDocument>> changed = new ConcurrentHashMap<>();
+        changedDuringRebuild = changed;
+
+        return new RebuildSession() {
+            @Override
+            public void addBatch(List<UserDocument> documents) {
+                StringBuilder bulk = new StringBuilder();
+                for (UserDocument document : documents) {
+                    bulk.append(toJson(Map.of("index", Map.of("_index", index, "_id", document.userId().toString()))))
+                            .append('\n')
+                            .append(toJson(source(document)))
+                            .append('\n');
+                }
+                JsonNode response = restClient.post()
+                        .uri("/_bulk")
+                        .contentType(NDJSON)
+                        .body(bulk.toString())
+                        .retrieve()
+                        .body(JsonNode.class);
+                if (response != null && response.path("errors").asBoolean()) {
+                    throw new IllegalStateException("Elasticsearch bulk indexing reported errors for index " + index);
+                }
+            }
+
+            @Override
+            public void commit() {
+                restClient.post().uri("/{index}/_refresh", index).retrieve().toBodilessEntity();
+                List<Map<String, Object>> actions = new ArrayList<>();
+                actions.add(Map.of("add", Map.of("index", index, "alias", alias)));
+                for (String old : indicesBehindAlias()) {
+                    if (!old.equals(index)) actions.add(Map.of("remove_index", Map.of("index", old)));
+                }
+                restClient.post()
+                        .uri("/_aliases")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(Map.of("actions", actions))
+                        .retrieve()
+                        .toBodilessEntity();
+                changedDuringRebuild = null;
+                ready = true;
+                changed.forEach((userId, document) -> document.ifPresentOrElse(
+                        ElasticsearchUserSearchIndex.this::upsert, () -> remove(userId)));
+                log.info("Search index {} rebuilt into {}", alias, index);
+            }
+
+            @Override
+            public void abort() {
+                changedDuringRebuild = null;
+                try {
+                    restClient.delete().uri("/{index}", index).retrieve().toBodilessEntity();
+                } catch (Exception e) {
+                    log.warn("Failed to delete aborted search index {}", index, e);
+                }
+            }
+        };
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public Hits search(String query, int offset, int limit) {
+        if (query == null || query.isBlank() || limit <= 0) {
+            return Hits.EMPTY;
+        }
+        Map<String, Object> request = Map.of(
+                "from", offset,
+                "size", limit,
+                "track_total_hits", true,
+                "_source", false,
+                "query", Map.of("multi_match", Map.of(
+                        "query", query,
+                        "type", "bool_prefix",
+                        "operator", "and",
+                        "fields", SEARCH_FIELDS)));
+        JsonNode response = restClient.post()
+                .uri("/{index}/_search", alias)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(request)
+                .retrieve()
+                .body(JsonNode.class);
+        if (response == null) {
+            return Hits.EMPTY;
+        }
+        List<UUID> userIds = new ArrayList<>();
+        for (JsonNode hit : response.path("hits").path("hits")) {
+            userIds.add(UUID.fromString(hit.path("_id").asText()));
+        }
+        return new Hits(userIds, response.path("hits").path("total").path("value").asLong());
+    }
+
+    private Set<String> indicesBehindAlias() {
+        try {
+            JsonNode response = restClient.get().uri("/_alias/{alias}", alias).retrieve().body(JsonNode.class);
+            Set<String> indices = new HashSet<>();
+            if (response != null) response.fieldNames().forEachRemaining(indices::add);
+            return indices;
+        } catch (HttpClientErrorException.NotFound e) {
+            return Set.of();
+        }
+    }
+
+    private static Map<String, Object> source(UserDocument document) {
+        Map<String, Object> source = new LinkedHashMap<>();
+        source.put("email", document.email());
+        source.put("firstName", document.firstName());
+        source.put("lastName", document.lastName());
+        source.put("bio", document.bio());
+        source.put("city", document.city());
+        source.put("country", document.country());
+        source.put("language", document.language());
+        source.put("identities", document.identities());
+        return source;
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize search document", e);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.github.datnm23.accountservice.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index trong bộ nhớ, xếp hạng BM25 theo trường có trọng số (tên > email > danh tính OAuth > địa chỉ > bio).
+ * <p>
+ * Mỗi token của truy vấn khớp theo tiền tố ("ngu" khớp "nguyen"; khớp đúng cả từ được điểm cao hơn),
+ * các token kết hợp bằng AND. Term được lưu trong {@link TreeMap} nên mở rộng tiền tố là một lần duyệt subMap.
+ * <p>
+ * Rebuild dựng một {@link State} mới bên ngoài lock rồi thay thế nguyên khối; các cập nhật đến trong lúc rebuild
+ * được áp dụng trên state cũ và ghi lại để phát lại lên state mới khi commit.
+ */
+@Component
+@ConditionalOnProperty(name = "app.search.backend", havingValue = "memory", matchIfMissing = true)
+@Slf4j
+public class InMemoryUserSearchIndex implements UserSearchIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    // Điểm của term chỉ khớp tiền tố so với khớp đúng cả từ
+    private static final float PREFIX_MATCH_FACTOR = 0.8f;
+    // Token ngắn hơn chỉ khớp đúng, tránh "a" mở rộng ra gần như toàn bộ từ điển
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_EXPANSIONS = 200;
+
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float EMAIL_WEIGHT = 2.0f;
+    private static final float IDENTITY_WEIGHT = 1.5f;
+    private static final float LOCATION_WEIGHT = 1.0f;
+    private static final float BIO_WEIGHT = 0.5f;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state = new State();
+    private volatile boolean ready;
+    // Khác null khi đang rebuild: các thao tác cần phát lại lên state mới
+    private List<Runnable> pendingDuringRebuild;
+
+    @Override
+    public void upsert(UserDocument document) {
+        lock.writeLock().lock();
+        try {
+            state.put(document);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(() -> state.put(document));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(UUID userId) {
+        lock.writeLock().lock();
+        try {
+            state.remove(userId);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(() -> state.remove(userId));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public RebuildSession beginRebuild() {
+        lock.writeLock().lock();
+        try {
+            if (pendingDuringRebuild != null) {
+                throw new IllegalStateException("Search index rebuild already in progress");
+            }
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        State next = new State();
+        return new RebuildSession() {
+            @Override
+            public void addBatch(List<UserDocument> documents) {
+                synchronized (next) {
+                    documents.forEach(next::put);
+                }
+            }
+
+            @Override
+            public void commit() {
+                lock.writeLock().lock();
+                try {
+                    state = next;
+                    pendingDuringRebuild.forEach(Runnable::run);
+                    pendingDuringRebuild = null;
+                    ready = true;
+                    log.info("Search index rebuilt: {} users, {} terms", next.documents.size(), next.postings.size());
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+
+            @Override
+            public void abort() {
+                lock.writeLock().lock();
+                try {
+                    pendingDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        };
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public Hits search(String query, int offset, int limit) {
+        List<String> tokens = SearchTextAnalyzer.tokens(query).stream().distinct().toList();
+        if (tokens.isEmpty() || limit <= 0) {
+            return Hits.EMPTY;
+        }
+        lock.readLock().lock();
+        try {
+            Map<UUID, Float> scores = null;
+            for (String token : tokens) {
+                Map<UUID, Float> tokenScores = state.scoreToken(token);
+                scores = scores == null ? tokenScores : intersect(scores, tokenScores);
+                if (scores.isEmpty()) {
+                    return Hits.EMPTY;
+                }
+            }
+            return topK(scores, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static Map<UUID, Float> intersect(Map<UUID, Float> left, Map<UUID, Float> right) {
+        Map<UUID, Float> smaller = left.size() <= right.size() ? left : right;
+        Map<UUID, Float> larger = smaller == left ? right : left;
+        Map<UUID, Float> result = new HashMap<>(smaller.size());
+        smaller.forEach((userId, score) -> {
+            Float other = larger.get(userId);
+            if (other != null) {
+                result.put(userId, score + other);
+            }
+        });
+        return result;
+    }
+
+    // Chỉ giữ offset + limit kết quả tốt nhất trong heap thay vì sort toàn bộ
+    private static Hits topK(Map<UUID, Float> scores, int offset, int limit) {
+        if (offset >= scores.size()) {
+            return new Hits(List.of(), scores.size());
+        }
+        int k = (int) Math.min(scores.size(), (long) offset + limit);
+        Comparator<Map.Entry<UUID, Float>> byScore = Map.Entry.<UUID, Float>comparingByValue()
+                .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder()));
+        PriorityQueue<Map.Entry<UUID, Float>> heap = new PriorityQueue<>(k, byScore);
+        for (Map.Entry<UUID, Float> entry : scores.entrySet()) {
+            if (heap.size() < k) {
+                heap.add(entry);
+            } else if (byScore.compare(entry, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+        List<Map.Entry<UUID, Float>> ranked = new ArrayList<>(heap);
+        ranked.sort(byScore.reversed());
+        List<UUID> userIds = ranked.subList(offset, ranked.size()).stream().map(Map.Entry::getKey).toList();
+        return new Hits(userIds, scores.size());
+    }
+
+    private static final class State {
+        // term -> (userId -> tần suất có trọng số)
+        final NavigableMap<String, Map<UUID, Float>> postings = new TreeMap<>();
+        final Map<UUID, DocumentEntry> documents = new HashMap<>();
+        double totalLength;
+
+        void put(UserDocument document) {
+            remove(document.userId());
+            Map<String, Float> terms = new HashMap<>();
+            addField(terms, document.firstName(), NAME_WEIGHT);
+            addField(terms, document.lastName(), NAME_WEIGHT);
+            addField(terms, document.email(), EMAIL_WEIGHT);
+            document.identities().forEach(identity -> addField(terms, identity, IDENTITY_WEIGHT));
+            addField(terms, document.city(), LOCATION_WEIGHT);
+            addField(terms, document.country(), LOCATION_WEIGHT);
+            addField(terms, document.language(), LOCATION_WEIGHT);
+            addField(terms, document.bio(), BIO_WEIGHT);
+
+            float length = 0;
+            for (Map.Entry<String, Float> term : terms.entrySet()) {
+                postings.computeIfAbsent(term.getKey(), t -> new HashMap<>()).put(document.userId(), term.getValue());
+                length += term.getValue();
+            }
+            documents.put(document.userId(), new DocumentEntry(terms.keySet().toArray(String[]::new), length));
+            totalLength += length;
+        }
+
+        void remove(UUID userId) {
+            DocumentEntry existing = documents.remove(userId);
+            if (existing == null) return;
+            for (String term : existing.terms()) {
+                Map<UUID, Float> docs = postings.get(term);
+                if (docs != null) {
+                    docs.remove(userId);
+                    if (docs.isEmpty()) postings.remove(term);
+                }
+            }
+            totalLength -= existing.length();
+        }
+
+        // Điểm BM25 của mỗi document cho một token truy vấn: lấy term khớp tốt nhất trong các term mở rộng
+        Map<UUID, Float> scoreToken(String token) {
+            Map<UUID, Float> scores = new HashMap<>();
+            if (documents.isEmpty()) return scores;
+            double avgLength = totalLength / documents.size();
+            Map<String, Map<UUID, Float>> candidates = token.length() < MIN_PREFIX_LENGTH
+                    ? exact(token)
+                    : postings.subMap(token, true, token + Character.MAX_VALUE, false);
+            int expanded = 0;
+            for (Map.Entry<String, Map<UUID, Float>> candidate : candidates.entrySet()) {
+                if (expanded++ >= MAX_EXPANSIONS) break;
+                float factor = candidate.getKey().equals(token) ? 1.0f : PREFIX_MATCH_FACTOR;
+                Map<UUID, Float> docs = candidate.getValue();
+                double idf = Math.log(1 + (documents.size() - docs.size() + 0.5) / (docs.size() + 0.5));
+                docs.forEach((userId, tf) -> {
+                    double norm = K1 * (1 - B + B * documents.get(userId).length() / avgLength);
+                    float score = (float) (factor * idf * tf * (K1 + 1) / (tf + norm));
+                    scores.merge(userId, score, Math::max);
+                });
+            }
+            return scores;
+        }
+
+        private Map<String, Map<UUID, Float>> exact(String token) {
+            Map<UUID, Float> docs = postings.get(token);
+            return docs == null ? Map.of() : Map.of(token, docs);
+        }
+
+        private static void addField(Map<String, Float> terms, String value, float weight) {
+            for (String token : SearchTextAnalyzer.tokens(value)) {
+                terms.merge(token, weight, Float::sum);
+            }
+        }
+    }
+
+    private record DocumentEntry(String[] terms, float length) {
+    }
+}
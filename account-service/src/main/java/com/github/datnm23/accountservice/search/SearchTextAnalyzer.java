@@ -0,0 +1,38 @@
+package com.github.datnm23.accountservice.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Chuẩn hoá và tách từ dùng chung cho index tìm kiếm và gợi ý: bỏ dấu tiếng Việt (NFD + bỏ dấu, đ -> d),
+ * chữ thường, tách theo ký tự không phải chữ/số. "Nguyễn" và "nguyen" vì vậy khớp nhau.
+ */
+public final class SearchTextAnalyzer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private SearchTextAnalyzer() {}
+
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) return "";
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("")
+                .replace('đ', 'd')
+                .replace('Đ', 'D')
+                .toLowerCase(Locale.ROOT);
+    }
+
+    public static List<String> tokens(String text) {
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) return List.of();
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_ALPHANUMERIC.split(normalized)) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.datnm23.accountservice.search;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Dữ liệu của một user được đưa vào index tìm kiếm: thông tin user, profile và các danh tính OAuth
+ * ({@code identities} = email/tên hiển thị của provider).
+ */
+public record UserDocument(
+        UUID userId,
+        String email,
+        String firstName,
+        String lastName,
+        String bio,
+        String city,
+        String country,
+        String language,
+        List<String> identities) {
+
+    // Dùng cho JPQL constructor expression (identities được gắn sau)
+    public UserDocument(UUID userId, String email, String firstName, String lastName,
+                        String bio, String city, String country, String language) {
+        this(userId, email, firstName, lastName, bio, city, country, language, List.of());
+    }
+
+    public UserDocument withIdentities(List<String> identities) {
+        return new UserDocument(userId, email, firstName, lastName, bio, city, country, language, List.copyOf(identities));
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.datnm23.accountservice.search;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Nơi nhận {@link UserDocument} từ {@link UserSearchIndexer}: index tìm kiếm, cấu trúc gợi ý...
+ */
+public interface UserDocumentSink {
+
+    void upsert(UserDocument document);
+
+    void remove(UUID userId);
+
+    /**
+     * true nếu dữ liệu nằm ngoài JVM và dùng chung giữa các instance (Elasticsearch): thay đổi do instance khác
+     * thực hiện không cần áp dụng lại.
+     */
+    default boolean shared() {
+        return false;
+    }
+
+    /**
+     * Bắt đầu dựng lại toàn bộ dữ liệu. Cập nhật đơn lẻ trong lúc rebuild vẫn được phục vụ trên dữ liệu cũ
+     * và được áp dụng lại sau khi {@link RebuildSession#commit()}.
+     */
+    RebuildSession beginRebuild();
+
+    interface RebuildSession {
+
+        // Có thể được gọi đồng thời từ nhiều thread
+        void addBatch(List<UserDocument> documents);
+
+        void commit();
+
+        void abort();
+    }
+}
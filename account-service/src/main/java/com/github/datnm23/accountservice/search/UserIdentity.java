@@ -0,0 +1,9 @@
+package com.github.datnm23.accountservice.search;
+
+import java.util.UUID;
+
+/**
+ * Email/tên hiển thị của một liên kết OAuth, đọc bằng projection để gắn vào {@link UserDocument}.
+ */
+public record UserIdentity(UUID userId, String email, String displayName) {
+}
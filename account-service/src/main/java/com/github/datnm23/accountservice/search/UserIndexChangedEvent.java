@@ -0,0 +1,9 @@
+package com.github.datnm23.accountservice.search;
+
+import java.util.UUID;
+
+/**
+ * Phát ra từ các write path của user/profile; {@link UserSearchIndexer} nạp lại document sau khi transaction commit.
+ */
+public record UserIndexChangedEvent(UUID userId) {
+}
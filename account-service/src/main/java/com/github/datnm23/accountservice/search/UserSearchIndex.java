@@ -0,0 +1,24 @@
+package com.github.datnm23.accountservice.search;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Index full-text cho user (tên, email, profile, danh tính OAuth). Triển khai được chọn bằng {@code app.search.backend}:
+ * {@code memory} (mặc định, {@link InMemoryUserSearchIndex}) hoặc {@code elasticsearch}.
+ */
+public interface UserSearchIndex extends UserDocumentSink {
+
+    /**
+     * @return tối đa {@code limit} id user bắt đầu từ vị trí {@code offset}, theo thứ tự liên quan giảm dần,
+     * cùng tổng số kết quả
+     */
+    Hits search(String query, int offset, int limit);
+
+    // false cho tới khi lần build đầu tiên hoàn tất: caller dùng truy vấn DB thay thế
+    boolean isReady();
+
+    record Hits(List<UUID> userIds, long totalHits) {
+        public static final Hits EMPTY = new Hits(List.of(), 0);
+    }
+}
@@ -0,0 +1,245 @@
+package com.github.datnm23.accountservice.search;
+
+import com.github.datnm23.accountservice.cache.CacheKey;
+import com.github.datnm23.accountservice.repository.OAuthProviderRepository;
+import com.github.datnm23.accountservice.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Đổ dữ liệu user vào mọi {@link UserDocumentSink} (index tìm kiếm, gợi ý...).
+ * <p>
+ * Lúc khởi động: đọc user + profile bằng projection theo lô keyset ({@code batch-size} dòng), nạp danh tính OAuth
+ * của riêng lô đó bằng một query IN rồi giao lô cho {@code parallelism} thread ghi vào các sink; bộ nhớ chỉ giữ vài
+ * lô, không phải toàn bộ danh tính. Sau đó mỗi {@link UserIndexChangedEvent} được xử lý sau khi
+ * transaction commit, trên một thread riêng, bằng cách đọc lại document từ DB (xoá khỏi sink nếu user không còn).
+ * <p>
+ * userId thay đổi được phát qua Redis pub/sub ({@code <instanceId>|<userId>}) để các instance khác cũng đọc lại và cập
+ * nhật các sink cục bộ của mình (index trong bộ nhớ, gợi ý); sink dùng chung ({@link UserDocumentSink#shared()}) chỉ
+ * được cập nhật bởi instance thực hiện ghi. Mất message (Redis gián đoạn) thì sink cục bộ cũ cho tới lần rebuild sau.
+ * Tắt {@code app.search.sync.enabled} (chạy một instance) thì không phát/nghe pub/sub.
+ */
+@Component
+@Slf4j
+public class UserSearchIndexer implements MessageListener {
+
+    private final List<UserDocumentSink> sinks;
+    private final UserRepository userRepository;
+    private final OAuthProviderRepository oauthProviderRepository;
+    private final TransactionTemplate readOnlyTx;
+    private final TransactionTemplate primaryTx;
+    private final MeterRegistry meterRegistry;
+    private final StringRedisTemplate redisTemplate;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final int batchSize;
+    private final int parallelism;
+    private final boolean syncEnabled;
+    private final ExecutorService updateExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-index-update");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public UserSearchIndexer(List<UserDocumentSink> sinks,
+                             UserRepository userRepository,
+                             OAuthProviderRepository oauthProviderRepository,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             StringRedisTemplate redisTemplate,
+                             ObjectProvider<RedisMessageListenerContainer> listenerContainer,
+                             @Value("${app.search.sync.enabled:true}") boolean syncEnabled,
+                             @Value("${app.search.rebuild.batch-size:1000}") int batchSize,
+                             @Value("${app.search.rebuild.parallelism:2}") int parallelism) {
+        this.sinks = sinks;
+        this.userRepository = userRepository;
+        this.oauthProviderRepository = oauthProviderRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        // Cập nhật sau commit chạy trên thread khác, không có trạng thái read-your-writes: replica trễ sẽ trả về
+        // user chưa tồn tại (bị xoá khỏi index) hoặc dòng cũ. Không read-only để routing luôn đọc từ primary.
+        this.primaryTx = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.redisTemplate = redisTemplate;
+        this.batchSize = Math.max(1, batchSize);
+        this.parallelism = Math.max(1, parallelism);
+        this.syncEnabled = syncEnabled;
+        if (syncEnabled) {
+            listenerContainer.getObject()
+                    .addMessageListener(this, new ChannelTopic(CacheKey.SEARCH_INDEX_CHANNEL.format()));
+        }
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        List<UserDocumentSink.RebuildSession> sessions = new ArrayList<>();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "search-index-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Giới hạn số batch đang chờ ghi để stream từ DB không chạy quá xa so với các sink
+        Semaphore inFlight = new Semaphore(parallelism * 2);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        AtomicLong indexed = new AtomicLong();
+        try {
+            for (UserDocumentSink sink : sinks) {
+                sessions.add(sink.beginRebuild());
+            }
+            readOnlyTx.executeWithoutResult(status -> {
+                List<UserDocument> page;
+                UUID after = null;
+                do {
+                    page = after == null
+                            ? userRepository.findSearchDocumentsFirst(PageRequest.ofSize(batchSize))
+                            : userRepository.findSearchDocumentsAfter(after, PageRequest.ofSize(batchSize));
+                    if (page.isEmpty()) break;
+                    dispatch(executor, inFlight, sessions, withIdentities(page), failure, indexed);
+                    after = page.get(page.size() - 1).userId();
+                } while (page.size() == batchSize);
+            });
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+            sessions.forEach(UserDocumentSink.RebuildSession::commit);
+            log.info("Search index rebuild finished: {} users", indexed.get());
+        } catch (Exception e) {
+            log.error("Search index rebuild failed, searches fall back to the database", e);
+            sessions.forEach(UserDocumentSink.RebuildSession::abort);
+        } finally {
+            executor.shutdownNow();
+            sample.stop(meterRegistry.timer("search.index.rebuild.duration"));
+        }
+    }
+
+    private void dispatch(ExecutorService executor, Semaphore inFlight, List<UserDocumentSink.RebuildSession> sessions,
+                          List<UserDocument> batch, AtomicReference<Exception> failure, AtomicLong indexed) {
+        if (failure.get() != null) {
+            throw new IllegalStateException("Search index rebuild aborted", failure.get());
+        }
+        inFlight.acquireUninterruptibly();
+        executor.execute(() -> {
+            try {
+                sessions.forEach(session -> session.addBatch(batch));
+                indexed.addAndGet(batch.size());
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    private List<UserDocument> withIdentities(List<UserDocument> page) {
+        Map<UUID, List<String>> identities = new HashMap<>();
+        List<UUID> userIds = page.stream().map(UserDocument::userId).toList();
+        for (UserIdentity identity : oauthProviderRepository.findSearchIdentitiesByUserIds(userIds)) {
+            identities.computeIfAbsent(identity.userId(), id -> new ArrayList<>()).addAll(identityTerms(identity));
+        }
+        List<UserDocument> batch = new ArrayList<>(page.size());
+        for (UserDocument document : page) {
+            batch.add(document.withIdentities(identities.getOrDefault(document.userId(), List.of())));
+        }
+        return batch;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserIndexChanged(UserIndexChangedEvent event) {
+        refresh(event.userId(), true);
+        if (!syncEnabled) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(CacheKey.SEARCH_INDEX_CHANNEL.format(), instanceId + "|" + event.userId());
+        } catch (Exception e) {
+            log.error("Failed to broadcast search index change for user {}", event.userId(), e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 2);
+        if (parts.length < 2 || instanceId.equals(parts[0])) {
+            return;
+        }
+        try {
+            refresh(UUID.fromString(parts[1]), false);
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring malformed search index message: {}", parts[1]);
+        }
+    }
+
+    private void refresh(UUID userId, boolean includeShared) {
+        updateExecutor.execute(() -> {
+            try {
+                Optional<UserDocument> document = primaryTx.execute(status -> userRepository
+                        .findSearchDocument(userId)
+                        .map(found -> found.withIdentities(oauthProviderRepository.findSearchIdentities(userId)
+                                .stream()
+                                .flatMap(identity -> identityTerms(identity).stream())
+                                .toList())));
+                for (UserDocumentSink sink : sinks) {
+                    if (!includeShared && sink.shared()) continue;
+                    if (document != null && document.isPresent()) {
+                        sink.upsert(document.get());
+                    } else {
+                        sink.remove(userId);
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("Failed to update search index for user {}", userId, e);
+            }
+        });
+    }
+
+    private static List<String> identityTerms(UserIdentity identity) {
+        List<String> terms = new ArrayList<>(2);
+        if (identity.email() != null) terms.add(identity.email());
+        if (identity.displayName() != null) terms.add(identity.displayName());
+        return terms;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        updateExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,213 @@
+package com.github.datnm23.accountservice.search;
+
+import com.github.datnm23.accountservice.dto.UserSuggestionDTO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gợi ý user theo tiền tố tên/email, phục vụ hoàn toàn từ bộ nhớ (không truy vấn MySQL).
+ * <p>
+ * Mỗi user có một key cho mỗi vị trí bắt đầu từ trong họ tên đã chuẩn hoá ("nguyen van an", "van an", "an")
+ * và một key cho email (chỉ chuẩn hoá chữ thường/bỏ dấu, giữ nguyên {@code .} và {@code @}); key được lưu trong {@link ConcurrentSkipListMap} dạng {@code <key>\0<userId>} nên tra tiền tố
+ * là một lần duyệt subMap có thứ tự. Tiền tố được tra hai lần nếu cần: dạng token ("john d") cho tên và dạng
+ * nguyên văn ("john.d", "john@ex") cho email. Mỗi lần tra chỉ xét tối đa {@code limit * scan-factor} key đầu tiên rồi xếp hạng:
+ * khớp đầu họ tên > khớp một từ khác trong tên > khớp email, key ngắn hơn (gần khớp đúng hơn) đứng trước.
+ * <p>
+ * Đọc không cần lock; rebuild dựng state mới rồi thay thế, các thay đổi trong lúc rebuild được phát lại lên state mới.
+ */
+@Component
+@Slf4j
+public class UserSuggester implements UserDocumentSink {
+
+    private static final char SEPARATOR = '\0';
+    private static final byte FULL_NAME = 0;
+    private static final byte NAME_TOKEN = 1;
+    private static final byte EMAIL = 2;
+    // Ước lượng overhead mỗi key (node skip list + String + record), dùng cho metric bộ nhớ
+    private static final int KEY_OVERHEAD_BYTES = 120;
+    private static final int USER_OVERHEAD_BYTES = 160;
+
+    private final int maxLimit;
+    private final int scanFactor;
+
+    private volatile State state = new State();
+    // Khác null khi đang rebuild: các document đã đổi (empty = đã xoá)
+    private Map<UUID, Optional<UserDocument>> changedDuringRebuild;
+    private final Object rebuildLock = new Object();
+
+    public UserSuggester(MeterRegistry meterRegistry,
+                         @Value("${app.search.suggest.max-limit:20}") int maxLimit,
+                         @Value("${app.search.suggest.scan-factor:20}") int scanFactor) {
+        this.maxLimit = maxLimit;
+        this.scanFactor = scanFactor;
+        Gauge.builder("search.suggest.users", this, suggester -> suggester.state.users.size()).register(meterRegistry);
+        Gauge.builder("search.suggest.keys", this, suggester -> suggester.state.keys.size()).register(meterRegistry);
+        Gauge.builder("search.suggest.memory", this, suggester -> suggester.state.estimatedBytes.get())
+                .baseUnit("bytes")
+                .description("Ước lượng bộ nhớ của cấu trúc gợi ý")
+                .register(meterRegistry);
+    }
+
+    public List<UserSuggestionDTO> suggest(String prefix, int limit) {
+        String normalized = String.join(" ", SearchTextAnalyzer.tokens(prefix));
+        // Email được lưu cùng dấu câu nên không thể tra bằng dạng token
+        String emailPrefix = SearchTextAnalyzer.normalize(prefix).strip();
+        int k = Math.min(Math.max(limit, 1), maxLimit);
+        if (normalized.isEmpty() && emailPrefix.isEmpty()) {
+            return List.of();
+        }
+        State current = state;
+        Map<UUID, Candidate> best = new HashMap<>();
+        if (!normalized.isEmpty()) {
+            scan(current, normalized, k * scanFactor, false, best);
+        }
+        if (!emailPrefix.isEmpty() && !emailPrefix.equals(normalized)) {
+            scan(current, emailPrefix, k * scanFactor, true, best);
+        }
+        List<Candidate> ranked = new ArrayList<>(best.values());
+        ranked.sort(RANKING);
+        List<UserSuggestionDTO> suggestions = new ArrayList<>(Math.min(k, ranked.size()));
+        for (Candidate candidate : ranked) {
+            if (suggestions.size() == k) break;
+            UserSuggestionDTO suggestion = current.users.get(candidate.userId());
+            if (suggestion != null) suggestions.add(suggestion);
+        }
+        return suggestions;
+    }
+
+    private static void scan(State current, String prefix, int maxKeys, boolean emailOnly, Map<UUID, Candidate> best) {
+        int scanned = 0;
+        for (Map.Entry<String, Byte> entry : current.keys
+                .subMap(prefix, true, prefix + Character.MAX_VALUE, false).entrySet()) {
+            if (scanned++ >= maxKeys) break;
+            if (emailOnly && entry.getValue() != EMAIL) continue;
+            String key = entry.getKey();
+            int separator = key.lastIndexOf(SEPARATOR);
+            UUID userId = UUID.fromString(key.substring(separator + 1));
+            Candidate candidate = new Candidate(userId, entry.getValue(), separator);
+            best.merge(userId, candidate, (a, b) -> RANKING.compare(a, b) <= 0 ? a : b);
+        }
+    }
+
+    @Override
+    public void upsert(UserDocument document) {
+        synchronized (rebuildLock) {
+            state.put(document);
+            if (changedDuringRebuild != null) changedDuringRebuild.put(document.userId(), Optional.of(document));
+        }
+    }
+
+    @Override
+    public void remove(UUID userId) {
+        synchronized (rebuildLock) {
+            state.remove(userId);
+            if (changedDuringRebuild != null) changedDuringRebuild.put(userId, Optional.empty());
+        }
+    }
+
+    @Override
+    public RebuildSession beginRebuild() {
+        synchronized (rebuildLock) {
+            if (changedDuringRebuild != null) {
+                throw new IllegalStateException("Suggester rebuild already in progress");
+            }
+            changedDuringRebuild = new HashMap<>();
+        }
+        State next = new State();
+        return new RebuildSession() {
+            @Override
+            public void addBatch(List<UserDocument> documents) {
+                documents.forEach(next::put);
+            }
+
+            @Override
+            public void commit() {
+                synchronized (rebuildLock) {
+                    changedDuringRebuild.forEach((userId, document) ->
+                            document.ifPresentOrElse(next::put, () -> next.remove(userId)));
+                    changedDuringRebuild = null;
+                    state = next;
+                }
+                log.info("User suggester rebuilt: {} users, {} keys, ~{} KB",
+                        next.users.size(), next.keys.size(), next.estimatedBytes.get() / 1024);
+            }
+
+            @Override
+            public void abort() {
+                synchronized (rebuildLock) {
+                    changedDuringRebuild = null;
+                }
+            }
+        };
+    }
+
+    private static final Comparator<Candidate> RANKING = Comparator
+            .comparingInt(Candidate::field)
+            .thenComparingInt(Candidate::keyLength)
+            .thenComparing(Candidate::userId);
+
+    private record Candidate(UUID userId, byte field, int keyLength) {
+    }
+
+    private static final class State {
+        final ConcurrentSkipListMap<String, Byte> keys = new ConcurrentSkipListMap<>();
+        final Map<UUID, UserSuggestionDTO> users = new ConcurrentHashMap<>();
+        final Map<UUID, List<String>> keysByUser = new ConcurrentHashMap<>();
+        final AtomicLong estimatedBytes = new AtomicLong();
+
+        void put(UserDocument document) {
+            remove(document.userId());
+            String suffix = SEPARATOR + document.userId().toString();
+            List<String> userKeys = new ArrayList<>();
+            List<String> nameTokens = new ArrayList<>(SearchTextAnalyzer.tokens(document.firstName()));
+            nameTokens.addAll(SearchTextAnalyzer.tokens(document.lastName()));
+            for (int i = 0; i < nameTokens.size(); i++) {
+                String key = String.join(" ", nameTokens.subList(i, nameTokens.size())) + suffix;
+                keys.put(key, i == 0 ? FULL_NAME : NAME_TOKEN);
+                userKeys.add(key);
+            }
+            String email = SearchTextAnalyzer.normalize(document.email());
+            if (!email.isEmpty()) {
+                String key = email + suffix;
+                keys.putIfAbsent(key, EMAIL);
+                userKeys.add(key);
+            }
+            String fullName = String.join(" ",
+                    document.firstName() == null ? "" : document.firstName(),
+                    document.lastName() == null ? "" : document.lastName()).trim();
+            users.put(document.userId(), new UserSuggestionDTO(document.userId(), document.email(), fullName));
+            keysByUser.put(document.userId(), userKeys);
+            estimatedBytes.addAndGet(footprint(userKeys, document.email(), fullName));
+        }
+
+        void remove(UUID userId) {
+            UserSuggestionDTO removed = users.remove(userId);
+            List<String> userKeys = keysByUser.remove(userId);
+            if (userKeys == null) return;
+            userKeys.forEach(keys::remove);
+            estimatedBytes.addAndGet(-footprint(userKeys, removed.getEmail(), removed.getFullName()));
+        }
+
+        private static long footprint(List<String> userKeys, String email, String fullName) {
+            long bytes = USER_OVERHEAD_BYTES + 2L * ((email == null ? 0 : email.length()) + fullName.length());
+            for (String key : userKeys) {
+                bytes += KEY_OVERHEAD_BYTES + 2L * key.length();
+            }
+            return bytes;
+        }
+    }
+}
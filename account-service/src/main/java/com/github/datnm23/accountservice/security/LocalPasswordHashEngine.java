@@ -0,0 +1,152 @@
+package com.github.datnm23.accountservice.security;
+
+import com.github.datnm23.accountservice.exception.PasswordHashingUnavailableException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hash mật khẩu BCrypt ngay trong process thay vì gọi security-service (bật bằng
+ * {@code app.password-hashing.engine=local}).
+ * <p>
+ * BCrypt thuần CPU nên chạy trên pool riêng có số thread bằng số core, hàng đợi giới hạn
+ * {@code app.password-hashing.local.queue-capacity}: khi đầy thì từ chối ngay
+ * ({@link PasswordHashingUnavailableException}) thay vì để request đăng ký chất đống và chiếm thread của Tomcat.
+ * Hash theo danh sách (bulk import) chỉ chiếm tối đa {@code app.password-hashing.local.bulk-parallelism} thread
+ * (luôn nhỏ hơn số thread của pool) để request đăng ký vẫn còn thread rảnh.
+ * <p>
+ * Cost: nếu {@code app.password-hashing.local.strength} &gt; 0 thì dùng đúng giá trị đó, ngược lại lúc khởi động đo thử
+ * và chọn cost cao nhất trong [min-strength, max-strength] mà một lần hash không vượt {@code target-latency}.
+ * Hash sinh ra có định dạng {@code $2a$} chuẩn nên security-service kiểm tra được với bất kỳ cost nào.
+ */
+@Component
+@ConditionalOnProperty(name = "app.password-hashing.engine", havingValue = "local")
+@Slf4j
+public class LocalPasswordHashEngine {
+
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final Timer hashTimer;
+    private final int strength;
+    private final int bulkParallelism;
+
+    public LocalPasswordHashEngine(MeterRegistry meterRegistry,
+                                   @Value("${app.password-hashing.local.strength:0}") int fixedStrength,
+                                   @Value("${app.password-hashing.local.min-strength:10}") int minStrength,
+                                   @Value("${app.password-hashing.local.max-strength:14}") int maxStrength,
+                                   @Value("${app.password-hashing.local.target-latency:250ms}") Duration targetLatency,
+                                   @Value("${app.password-hashing.local.queue-capacity:256}") int queueCapacity,
+                                   @Value("${app.password-hashing.local.bulk-parallelism:0}") int bulkParallelism) {
+        this.strength = fixedStrength > 0 ? fixedStrength : calibrate(minStrength, maxStrength, targetLatency);
+        this.encoder = new BCryptPasswordEncoder(strength);
+        int threads = Runtime.getRuntime().availableProcessors();
+        // 0: một nửa số thread; luôn chừa ít nhất một thread cho đăng ký (trừ khi pool chỉ có một thread)
+        int bulkLimit = bulkParallelism > 0 ? bulkParallelism : threads / 2;
+        this.bulkParallelism = Math.max(1, Math.min(bulkLimit, threads - 1));
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.hashTimer = meterRegistry.timer("password.hash.local.duration");
+        Gauge.builder("password.hash.local.queue", executor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("password.hash.local.strength", () -> strength).register(meterRegistry);
+        log.info("Local BCrypt password hashing enabled: strength {}, {} threads ({} for bulk), queue {}",
+                strength, threads, this.bulkParallelism, queueCapacity);
+    }
+
+    public CompletableFuture<String> hash(String plainPassword) {
+        try {
+            return CompletableFuture.supplyAsync(() -> hashTimer.record(() -> encoder.encode(plainPassword)), executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(
+                    new PasswordHashingUnavailableException("Password hashing queue is full, try again later"));
+        }
+    }
+
+    /**
+     * Hash cả danh sách (bulk import): mỗi mật khẩu là một task riêng, chạy theo tối đa {@code bulkParallelism} làn
+     * tuần tự. Mỗi làn chỉ gửi task kế tiếp khi task trước xong, nên lô import không bao giờ chiếm hết thread và
+     * request đăng ký chỉ phải chờ sau tối đa một lần hash của mỗi làn thay vì cả một phần danh sách.
+     */
+    public CompletableFuture<List<String>> hashAll(List<String> plainPasswords) {
+        if (plainPasswords.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        int lanes = Math.min(bulkParallelism, plainPasswords.size());
+        String[] hashed = new String[plainPasswords.size()];
+        AtomicBoolean failed = new AtomicBoolean();
+        List<CompletableFuture<Void>> futures = new ArrayList<>(lanes);
+        for (int lane = 0; lane < lanes; lane++) {
+            CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+            for (int i = lane; i < plainPasswords.size(); i += lanes) {
+                int index = i;
+                // Một làn lỗi (hàng đợi đầy) thì các làn khác dừng ở task kế tiếp thay vì hash nốt phần còn lại
+                chain = chain.thenCompose(ignored -> failed.get()
+                        ? CompletableFuture.failedFuture(
+                                new PasswordHashingUnavailableException("Password hashing queue is full, try again later"))
+                        : hash(plainPasswords.get(index)).thenAccept(hash -> hashed[index] = hash));
+            }
+            futures.add(chain.whenComplete((ignored, error) -> {
+                if (error != null) {
+                    failed.set(true);
+                }
+            }));
+        }
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> List.of(hashed));
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    // Mỗi bậc cost gấp đôi thời gian; đo từ min lên và dừng ở bậc cuối cùng còn dưới ngưỡng
+    private static int calibrate(int minStrength, int maxStrength, Duration targetLatency) {
+        int chosen = minStrength;
+        // Hash đầu tiên chậm hơn hẳn (JIT), không tính
+        new BCryptPasswordEncoder(minStrength).encode("calibration-warmup");
+        for (int candidate = minStrength; candidate <= maxStrength; candidate++) {
+            BCryptPasswordEncoder probe = new BCryptPasswordEncoder(candidate);
+            long start = System.nanoTime();
+            probe.encode("calibration-password");
+            long elapsedNanos = System.nanoTime() - start;
+            if (elapsedNanos > targetLatency.toNanos()) {
+                break;
+            }
+            chosen = candidate;
+            // Bậc kế tiếp chắc chắn vượt ngưỡng, không cần đo
+            if (elapsedNanos * 2 > targetLatency.toNanos()) {
+                break;
+            }
+        }
+        log.info("Calibrated BCrypt strength {} for target latency {} ms", chosen, targetLatency.toMillis());
+        return chosen;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,176 @@
+package com.github.datnm23.accountservice.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Token xác thực email tự chứa, ký HMAC-SHA256: không cần bảng {@code email_verification_tokens}.
+ * <p>
+ * Định dạng: {@code base64url(payload) "." base64url(hmac(payload))}, payload gồm
+ * {@code version(1) | kidLength(1) | kid | userId(16) | expiresAt epoch giây(8) | nonce(4)}.
+ * {@code nonce} là {@code User.verificationNonce}: gửi lại email thì nonce tăng nên token cũ hết hiệu lực mà không phải
+ * xoá gì. Token cũ dạng UUID (không có dấu chấm) vẫn được kiểm tra qua bảng trong thời gian chuyển đổi.
+ * <p>
+ * Xoay khoá: {@code app.email.verification.signing.keys} là danh sách {@code kid:secretBase64}; token mới ký bằng
+ * {@code active-key-id}, token cũ vẫn hợp lệ chừng nào kid của nó còn trong danh sách. Thêm khoá mới, chuyển active,
+ * rồi bỏ khoá cũ sau ít nhất một vòng đời token.
+ */
+@Component
+@Slf4j
+public class SignedVerificationTokens {
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_BYTES = 32;
+
+    public record Claims(UUID userId, Instant expiresAt, int nonce, String keyId) {
+    }
+
+    private final Map<String, SecretKeySpec> keys;
+    private final String activeKeyId;
+    private final boolean enabled;
+    private final MeterRegistry meterRegistry;
+
+    public SignedVerificationTokens(MeterRegistry meterRegistry,
+                                    @Value("${app.email.verification.token.format:table}") String format,
+                                    @Value("${app.email.verification.signing.keys:}") String keys,
+                                    @Value("${app.email.verification.signing.active-key-id:}") String activeKeyId) {
+        this.meterRegistry = meterRegistry;
+        this.keys = parseKeys(keys);
+        this.activeKeyId = activeKeyId;
+        this.enabled = "signed".equalsIgnoreCase(format);
+        if (enabled && !this.keys.containsKey(activeKeyId)) {
+            throw new IllegalStateException("app.email.verification.signing.active-key-id '" + activeKeyId
+                    + "' is not one of app.email.verification.signing.keys");
+        }
+        if (enabled) {
+            log.info("Signed email verification tokens enabled: active key {}, {} verification keys", activeKeyId, this.keys.size());
+        }
+    }
+
+    /**
+     * true khi token mới phải phát hành dạng ký ({@code app.email.verification.token.format=signed}).
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Token dạng ký có dấu chấm; token của bảng là UUID.
+     */
+    public static boolean isSigned(String token) {
+        return token != null && token.indexOf('.') > 0;
+    }
+
+    public String issue(UUID userId, int nonce, Instant expiresAt) {
+        byte[] kid = activeKeyId.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(2 + kid.length + 16 + 8 + 4)
+                .put(FORMAT_VERSION)
+                .put((byte) kid.length)
+                .put(kid)
+                .putLong(userId.getMostSignificantBits())
+                .putLong(userId.getLeastSignificantBits())
+                .putLong(expiresAt.getEpochSecond())
+                .putInt(nonce);
+        byte[] bytes = payload.array();
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(bytes) + "." + encoder.encodeToString(sign(keys.get(activeKeyId), bytes));
+    }
+
+    /**
+     * Kiểm tra chữ ký và hạn; không chạm DB. Nonce do câu UPDATE trên users kiểm tra.
+     */
+    public Optional<Claims> verify(String token, Instant now) {
+        int dot = token == null ? -1 : token.indexOf('.');
+        if (dot <= 0) {
+            return reject("malformed");
+        }
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = Base64.getUrlDecoder().decode(token.substring(0, dot));
+            signature = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return reject("malformed");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        if (payload.length < 2 || buffer.get() != FORMAT_VERSION) {
+            return reject("malformed");
+        }
+        int kidLength = buffer.get() & 0xFF;
+        if (buffer.remaining() != kidLength + 16 + 8 + 4) {
+            return reject("malformed");
+        }
+        byte[] kid = new byte[kidLength];
+        buffer.get(kid);
+        String keyId = new String(kid, StandardCharsets.UTF_8);
+        SecretKeySpec key = keys.get(keyId);
+        if (key == null) {
+            return reject("unknown-key");
+        }
+        if (!MessageDigest.isEqual(sign(key, payload), signature)) {
+            return reject("bad-signature");
+        }
+        UUID userId = new UUID(buffer.getLong(), buffer.getLong());
+        Instant expiresAt = Instant.ofEpochSecond(buffer.getLong());
+        int nonce = buffer.getInt();
+        if (!expiresAt.isAfter(now)) {
+            return reject("expired");
+        }
+        meterRegistry.counter("email.verification.signed", "result", "valid").increment();
+        return Optional.of(new Claims(userId, expiresAt, nonce, keyId));
+    }
+
+    private Optional<Claims> reject(String reason) {
+        meterRegistry.counter("email.verification.signed", "result", reason).increment();
+        return Optional.empty();
+    }
+
+    // Mac không thread-safe; tạo mới mỗi lần rẻ hơn nhiều so với một lần hash BCrypt hay một query
+    private static byte[] sign(SecretKeySpec key, byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    private static Map<String, SecretKeySpec> parseKeys(String keys) {
+        Map<String, SecretKeySpec> parsed = new LinkedHashMap<>();
+        Arrays.stream(keys.split(","))
+                .map(String::trim)
+                .filter(entry -> !entry.isEmpty())
+                .forEach(entry -> {
+                    int colon = entry.indexOf(':');
+                    if (colon <= 0) {
+                        throw new IllegalStateException("Signing key must be 'kid:secretBase64'");
+                    }
+                    String kid = entry.substring(0, colon);
+                    byte[] secret = Base64.getDecoder().decode(entry.substring(colon + 1));
+                    if (kid.getBytes(StandardCharsets.UTF_8).length > 255 || secret.length < MIN_SECRET_BYTES) {
+                        throw new IllegalStateException("Signing key '" + kid + "' needs a kid of at most 255 bytes and a secret of at least "
+                                + MIN_SECRET_BYTES + " bytes");
+                    }
+                    parsed.put(kid, new SecretKeySpec(secret, ALGORITHM));
+                });
+        return Map.copyOf(parsed);
+    }
+}
@@ -1,6 +1,7 @@
 package com.github.datnm23.accountservice.service;
 
 import com.github.datnm23.accountservice.dto.*;
+import com.github.datnm23.accountservice.pagination.CountMode;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -22,6 +23,13 @@ public interface UserService {
 
     PageResponse<UserDTO> searchUsers(String query, int page, int size);
 
+    // Phân trang theo cursor: cursor null/rỗng = trang đầu, lấy trang sau bằng nextCursor của trang trước
+    CursorPageResponse<UserDTO> getUsers(String cursor, int size, CountMode countMode);
+
+    CursorPageResponse<UserDTO> searchUsers(String query, String cursor, int size, CountMode countMode);
+
+    List<UserSuggestionDTO> suggestUsers(String prefix, int limit);
+
     UserDTO activeUser(UUID userId);
 
     UserDTO deactivateUser(UUID userId);
@@ -1,5 +1,6 @@
 package com.github.datnm23.accountservice.service.impl;
 
+import com.github.datnm23.accountservice.cache.NegativeLookupCache;
 import com.github.datnm23.accountservice.dto.UserDetailDTO;
 import com.github.datnm23.accountservice.dto.UserProfileDTO;
 import com.github.datnm23.accountservice.dto.UserProfileUpdateDTO;
@@ -10,18 +11,19 @@ import com.github.datnm23.accountservice.event.UserProfileUpdatedEvent;
 import com.github.datnm23.accountservice.exception.ProfileNotFoundException;
 import com.github.datnm23.accountservice.exception.UserNotFoundException;
 import com.github.datnm23.accountservice.mapper.UserProfileMapper;
+import com.github.datnm23.accountservice.outbox.UserEventOutbox;
 import com.github.datnm23.accountservice.repository.UserProfileRepository;
 import com.github.datnm23.accountservice.repository.UserRepository;
+import com.github.datnm23.accountservice.search.UserIndexChangedEvent;
 import com.github.datnm23.accountservice.security.SecurityUtils;
 import com.github.datnm23.accountservice.security.YourCustomUserDetails;
 import com.github.datnm23.accountservice.service.UserProfileService;
 import com.github.datnm23.accountservice.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -42,20 +44,25 @@ public class UserProfileServiceImpl implements UserProfileService {
     private final UserProfileRepository userProfileRepository;
     private final UserRepository userRepository;
     private final UserProfileMapper userProfileMapper;
-    private final KafkaTemplate<String, UserDomainEvent> kafkaTemplate;
+    private final UserEventOutbox userEventOutbox;
     private final UserService userService;
-
-    @Value("${kafka.topic.user-events:" + AppConstants.KAFKA_TOPIC_USER_EVENTS + "}")
-    private String userEventsTopic;
+    private final NegativeLookupCache negativeLookupCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Cacheable(value = AppConstants.CACHE_PROFILE_BY_USER_ID, key = "#userId", unless = "#result == null")
-    @Transactional(readOnly = true)
+    // Không read-only: giá trị nạp vào cache phải đọc từ primary (xem ReplicaRoutingDataSource)
+    @Transactional
     public UserProfileDTO getProfileByUserId(UUID userId) {
         log.debug("Fetching profile for user ID: {}", userId);
+        if (negativeLookupCache.isKnownMissing(AppConstants.CACHE_PROFILE_BY_USER_ID, userId)) {
+            log.debug("Profile for user ID {} is cached as not found", userId);
+            throw new ProfileNotFoundException(userId);
+        }
         UserProfile userProfile = userProfileRepository.findByUserId(userId)
                 .orElseThrow(() -> {
                     log.warn("Profile not found for user ID: {}", userId);
+                    negativeLookupCache.markMissing(AppConstants.CACHE_PROFILE_BY_USER_ID, userId);
                     return new ProfileNotFoundException(userId);
                 });
         return userProfileMapper.toUserProfileDTO(userProfile);
@@ -98,6 +105,8 @@ public class UserProfileServiceImpl implements UserProfileService {
 
         userProfileMapper.updateUserProfileFromDto(dto, userProfile);
         UserProfile savedProfile = userProfileRepository.save(userProfile);
+        negativeLookupCache.invalidate(AppConstants.CACHE_PROFILE_BY_USER_ID, userIdToUpdate);
+        eventPublisher.publishEvent(new UserIndexChangedEvent(userIdToUpdate));
 
         log.info("Profile for user ID: {} updated by actor ID: {}", userIdToUpdate, actorId);
 
@@ -130,14 +139,10 @@ public class UserProfileServiceImpl implements UserProfileService {
         return userProfileMapper.toUserDetailDTO(user, profile);
     }
 
+    // Ghi vào outbox cùng transaction với thay đổi profile; OutboxRelay gửi lên Kafka sau khi commit
     private void publishUserProfileEvent(UserDomainEvent event) {
-        try {
-            log.info("Publishing {} to Kafka topic {}: {}", event.getEventType(), userEventsTopic, event);
-            kafkaTemplate.send(userEventsTopic, event.getUserId().toString(), event);
-        } catch (Exception e) {
-            log.error("Failed to publish profile event {} to Kafka topic {}: {}", 
-                event.getEventType(), userEventsTopic, e.getMessage(), e);
-        }
+        log.info("Queueing profile event {} for user {}: {}", event.getEventType(), event.getUserId(), event);
+        userEventOutbox.append(event);
     }
 
     private UUID getUserIdFromAuthPrincipal(Authentication authentication) {
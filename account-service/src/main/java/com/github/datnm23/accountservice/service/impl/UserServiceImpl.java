@@ -1,9 +1,13 @@
 package com.github.datnm23.accountservice.service.impl;
 
+import com.github.datnm23.accountservice.cache.EmailMembershipFilter;
+import com.github.datnm23.accountservice.cache.NegativeLookupCache;
 import com.github.datnm23.accountservice.client.NotificationServiceClient;
-import com.github.datnm23.accountservice.client.SecurityServiceClient;
+import com.github.datnm23.accountservice.client.PasswordHasher;
 import com.github.datnm23.accountservice.dto.UserCreateDTO; 
+import com.github.datnm23.accountservice.dto.CursorPageResponse;
 import com.github.datnm23.accountservice.dto.UserDTO;
+import com.github.datnm23.accountservice.dto.UserSuggestionDTO;
 import com.github.datnm23.accountservice.dto.UserUpdateDTO; 
 import com.github.datnm23.accountservice.entity.User; 
 import com.github.datnm23.accountservice.entity.UserProfile;
@@ -16,23 +20,45 @@ import com.github.datnm23.accountservice.event.UserEmailVerificationRequestedEve
 import com.github.datnm23.accountservice.exception.DuplicateResourceException;
 import com.github.datnm23.accountservice.exception.UserNotFoundException; 
 import com.github.datnm23.accountservice.exception.ActionNotAllowedException;
+import com.github.datnm23.accountservice.exception.InvalidCursorException;
 import com.github.datnm23.accountservice.mapper.UserMapper; 
+import com.github.datnm23.accountservice.outbox.UserEventOutbox;
+import com.github.datnm23.accountservice.pagination.CountMode;
+import com.github.datnm23.accountservice.pagination.UserCountEstimator;
+import com.github.datnm23.accountservice.pagination.UserCursor;
+import com.github.datnm23.accountservice.pagination.UserListRow;
 import com.github.datnm23.accountservice.repository.UserRepository;
 import com.github.datnm23.accountservice.repository.EmailVerificationTokenRepository;
+import com.github.datnm23.accountservice.repository.UniqueViolations;
+import com.github.datnm23.accountservice.search.UserIndexChangedEvent;
+import com.github.datnm23.accountservice.search.UserSearchIndex;
+import com.github.datnm23.accountservice.search.UserSuggester;
+import com.github.datnm23.accountservice.security.SignedVerificationTokens;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page; 
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;  
 import java.util.UUID;
@@ -55,25 +81,41 @@ public class UserServiceImpl implements UserService { // Đổi tên interface
 
     private final UserRepository userRepository; // Đổi tên repository
     private final UserMapper userMapper;         // Đổi tên mapper
-    private final KafkaTemplate<String, UserDomainEvent> kafkaTemplate;
-    private final SecurityServiceClient securityServiceClient; // Inject client
+    private final UserEventOutbox userEventOutbox;
     private final NotificationServiceClient notificationServiceClient; // Inject client
     private final EmailVerificationTokenRepository emailVerificationTokenRepository;
-
-    @Value("${kafka.topic.user-events:" + AppConstants.KAFKA_TOPIC_USER_EVENTS + "}")
-    private String userEventsTopic;
+    private final NegativeLookupCache negativeLookupCache;
+    private final EmailMembershipFilter emailMembershipFilter;
+    private final UserSearchIndex userSearchIndex;
+    private final UserSuggester userSuggester;
+    private final UserCountEstimator userCountEstimator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PasswordHasher passwordHasher;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final SignedVerificationTokens signedVerificationTokens;
+    private final CacheManager cacheManager;
 
     @Value("${app.email.verification.token.expiration-minutes:1440}")
     private long tokenExpirationMinutes;
 
+    @Value("${app.pagination.max-size:100}")
+    private int maxPageSize;
+
     @Cacheable(value = AppConstants.CACHE_USER_BY_ID, key = "#userId", unless = "#result == null")
-    @Transactional(readOnly = true)
+    // Không read-only: giá trị nạp vào cache phải đọc từ primary (xem ReplicaRoutingDataSource)
+    @Transactional
     @Override
     public UserDTO getUserById(UUID userId) {
         log.debug("Fetching user by ID: {}", userId);
-        User user = userRepository.findById(userId)
+        if (negativeLookupCache.isKnownMissing(AppConstants.CACHE_USER_BY_ID, userId)) {
+            log.debug("User ID {} is cached as not found", userId);
+            throw new UserNotFoundException(userId);
+        }
+        User user = userRepository.findWithRelationsByUserId(userId)
                 .orElseThrow(() -> {
                     log.warn("User not found with ID: {}", userId);
+                    negativeLookupCache.markMissing(AppConstants.CACHE_USER_BY_ID, userId);
                     return new UserNotFoundException(userId);
                 });
         return userMapper.toUserDTO(user);
@@ -81,20 +123,30 @@ public class UserServiceImpl implements UserService { // Đổi tên interface
 
     @Override
     @Cacheable(value = AppConstants.CACHE_USER_BY_EMAIL, key = "#email.toLowerCase()", unless = "#result == null")
-    @Transactional(readOnly = true)
+    // Không read-only: giá trị nạp vào cache phải đọc từ primary (xem ReplicaRoutingDataSource)
+    @Transactional
     public UserDTO getUserByEmail(String email) {
         log.debug("Fetching user by email: {}", email);
+        String emailKey = email.toLowerCase();
+        if (negativeLookupCache.isKnownMissing(AppConstants.CACHE_USER_BY_EMAIL, emailKey)) {
+            log.debug("Email {} is cached as not found", email);
+            throw new UserNotFoundException(email);
+        }
         User user = userRepository.findByEmailIgnoreCase(email)
                 .orElseThrow(() -> {
                     log.warn("User not found with email: {}", email);
+                    negativeLookupCache.markMissing(AppConstants.CACHE_USER_BY_EMAIL, emailKey);
                     return new UserNotFoundException(email);
                 });
         return userMapper.toUserDTO(user);
     }
 
     @Override
-    @CachePut(value = AppConstants.CACHE_USER_BY_ID, key = "#userId") // Cập nhật cache userCache
-    @CacheEvict(value = AppConstants.CACHE_USER_BY_EMAIL, key = "#result.email.toLowerCase()", condition = "#result != null && #result.email != null") // Vô hiệu hóa cache userEmailCache nếu email thay đổi (hiếm khi)
+    // Ghi đè cả hai cache bằng DTO mới; VersionedCache bỏ qua mọi lần ghi mang version cũ hơn
+    @Caching(put = {
+            @CachePut(value = AppConstants.CACHE_USER_BY_ID, key = "#userId"),
+            @CachePut(value = AppConstants.CACHE_USER_BY_EMAIL, key = "#result.email.toLowerCase()", unless = "#result.email == null")
+    })
     public UserDTO updateUser(UUID userId, UserUpdateDTO userUpdateDTO) {
         log.info("Attempting to update user with ID: {}", userId);
         User existingUser = userRepository.findById(userId)
@@ -112,12 +164,14 @@ public class UserServiceImpl implements UserService { // Đổi tên interface
         }
 
         userMapper.updateUserFromDto(userUpdateDTO, existingUser);
-        User updatedUser = userRepository.save(existingUser);
+        // Flush để @Version được tăng trước khi map sang DTO ghi vào cache
+        User updatedUser = userRepository.saveAndFlush(existingUser);
         log.info("User updated successfully for ID: {}", userId);
 
         if (!changedFields.isEmpty()) {
             publishUserEvent(new UserProfileUpdatedEvent(updatedUser.getUserId(), changedFields));
         }
+        eventPublisher.publishEvent(new UserIndexChangedEvent(userId));
         return userMapper.toUserDTO(updatedUser);
     }
 
@@ -151,6 +205,7 @@ public class UserServiceImpl implements UserService { // Đổi tên interface
 
         // Ghi log đã soft delete (thay vì dùng @SQLDelete)
         log.info("User {} soft deleted successfully by user {}", userId, effectiveActorId);
+        eventPublisher.publishEvent(new UserIndexChangedEvent(userId));
 
         // Publish UserDeletedEvent (hoặc UserSoftDeletedEvent)
         // publishUserEvent(new UserDeletedEvent(userId, deletedBy));
@@ -160,8 +215,8 @@ public class UserServiceImpl implements UserService { // Đổi tên interface
     @Transactional(readOnly = true)
     public Page<UserDTO> getAllUsers(Pageable pageable) {
         log.debug("Fetching all users with pagination: {}", pageable);
-        Page<User> userPage = userRepository.findAll(pageable); // Query đã tự lọc deleted_at IS NULL nhờ @Where
-        return userPage.map(userMapper::toUserDTO);
+        // Projection: query đã tự lọc deleted_at IS NULL nhờ @SQLRestriction
+        return userRepository.findListRows(pageable).map(userMapper::toUserDTO);
     }
 
     @Override
@@ -174,6 +229,10 @@ public class UserServiceImpl implements UserService { // Đổi tên interface
     @Transactional
     public boolean verifyEmail(String tokenValue) {
         log.debug("Attempting to verify email with token: {}", tokenValue);
+        if (SignedVerificationTokens.isSigned(tokenValue)) {
+            return verifySignedEmailToken(tokenValue);
+        }
+        // Token UUID từ bảng (định dạng table, hoặc link gửi trước khi chuyển sang signed)
         Optional<EmailVerificationToken> tokenOpt = emailVerificationTokenRepository.findByToken(tokenValue);
 
         if (tokenOpt.isEmpty()) {
@@ -214,6 +273,44 @@ public class UserServiceImpl implements UserService { // Đổi tên interface
         return true;
     }
 
+    // Chữ ký + hạn kiểm tra trong bộ nhớ, nonce kiểm tra trong chính câu UPDATE: một round trip, không đọc/xoá token
+    private boolean verifySignedEmailToken(String tokenValue) {
+        OffsetDateTime now = OffsetDateTime.now();
+        Optional<SignedVerificationTokens.Claims> claims = signedVerificationTokens.verify(tokenValue, now.toInstant());
+        if (claims.isEmpty()) {
+            log.warn("Email verification failed: signed token is invalid or expired.");
+            return false;
+        }
+        UUID userId = claims.get().userId();
+        int updated = userRepository.verifyEmailIfNonceMatches(userId, claims.get().nonce(), now,
+                AccountStatus.PENDING_VERIFICATION, AccountStatus.ACTIVE);
+        if (updated == 0) {
+            // Nonce cũ hoặc user đã xoá thì từ chối; đã xác thực trước đó thì vẫn trả true như token trong bảng
+            boolean alreadyVerified = userRepository.existsByUserIdAndEmailVerifiedTrue(userId);
+            log.info("Signed verification token for user {} not applied (already verified: {}).", userId, alreadyVerified);
+            return alreadyVerified;
+        }
+        evictUserAfterCommit(userId);
+        log.info("Email for user {} verified successfully via signed token (key {}).", userId, claims.get().keyId());
+        return true;
+    }
+
+    // UPDATE bulk không đi qua entity nên không có @CachePut; bỏ entry userCache sau commit để lần đọc sau lấy bản mới
+    private void evictUserAfterCommit(UUID userId) {
+        Cache cache = cacheManager.getCache(AppConstants.CACHE_USER_BY_ID);
+        if (cache == null) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.evict(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.evict(userId);
+            }
+        });
+    }
+
     @Override
     @Transactional
     public void resendVerificationEmail(String email) {
@@ -226,7 +323,9 @@ public class UserServiceImpl implements UserService { // Đổi tên interface
             throw new ActionNotAllowedException("Email is already verified.");
         }
 
+        // Vô hiệu link đã gửi: token trong bảng bị xoá, token ký mang nonce cũ không còn khớp
         emailVerificationTokenRepository.deleteAllByUser(user);
+        user.setVerificationNonce(user.getVerificationNonce() + 1);
 
         String verificationTokenValue = generateAndSaveVerificationToken(user);
         publishUserEvent(new UserEmailVerificationRequestedEvent(
@@ -249,8 +348,9 @@ public class UserServiceImpl implements UserService { // Đổi tên interface
     }
 
     @Override
+    @Transactional(readOnly = true)
     public boolean isEmailAvailable(String email) {
-        return !userRepository.existsByEmailIgnoreCase(email);
+        return !emailExists(email);
     }
 
     @Override
@@ -269,9 +369,14 @@ public class UserServiceImpl implements UserService { // Đổi tên interface
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PageResponse<UserDTO> searchUsers(String query, int page, int size) {
+        if (userSearchIndex.isReady()) {
+            return searchUsersInIndex(query, page, size);
+        }
+        // Index chưa build xong (vừa khởi động): quét LIKE trên DB như trước
         Pageable pageable = PageRequest.of(page, size);
-        Page<User> userPage = userRepository.searchUsers(query, pageable);
+        Page<UserListRow> userPage = userRepository.searchListRows(query, pageable);
         
         List<UserDTO> users = userPage.getContent().stream()
             .map(userMapper::toUserDTO)
@@ -286,6 +391,53 @@ public class UserServiceImpl implements UserService { // Đổi tên interface
             userPage.isLast());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<UserDTO> getUsers(String cursor, int size, CountMode countMode) {
+        int limit = clampPageSize(size);
+        UserCursor position = UserCursor.decode(cursor);
+        List<UserListRow> rows;
+        if (position == null) {
+            rows = userRepository.findKeysetFirstPage(PageRequest.ofSize(limit + 1));
+        } else if (position instanceof UserCursor.Keyset keyset) {
+            rows = userRepository.findKeysetPageAfter(keyset.createdAt(), keyset.userId(), PageRequest.ofSize(limit + 1));
+        } else {
+            throw new InvalidCursorException("Cursor does not belong to the user listing");
+        }
+        Long total = switch (countMode) {
+            case NONE -> null;
+            case APPROXIMATE -> userCountEstimator.countUsers();
+            case EXACT -> userRepository.count();
+        };
+        return toKeysetPage(rows, limit, total, countMode == CountMode.APPROXIMATE);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<UserDTO> searchUsers(String query, String cursor, int size, CountMode countMode) {
+        int limit = clampPageSize(size);
+        UserCursor position = UserCursor.decode(cursor);
+        // Cursor offset chỉ do index tạo ra; cursor keyset tiếp tục trên DB kể cả khi index vừa sẵn sàng giữa chừng
+        if (position instanceof UserCursor.Offset || (position == null && userSearchIndex.isReady())) {
+            int from = position == null ? 0 : ((UserCursor.Offset) position).offset();
+            return searchIndexCursorPage(query, from, limit, countMode);
+        }
+        UserCursor.Keyset keyset = (UserCursor.Keyset) position;
+        List<UserListRow> rows = keyset == null
+                ? userRepository.searchKeysetFirstPage(query, PageRequest.ofSize(limit + 1))
+                : userRepository.searchKeysetPageAfter(query, keyset.createdAt(), keyset.userId(), PageRequest.ofSize(limit + 1));
+        // Không có ước lượng rẻ cho LIKE: APPROXIMATE được xử lý như NONE
+        Long total = countMode == CountMode.EXACT ? userRepository.countSearch(query) : null;
+        return toKeysetPage(rows, limit, total, false);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<UserSuggestionDTO> suggestUsers(String prefix, int limit) {
+        // Phục vụ hoàn toàn từ bộ nhớ, không cần transaction/kết nối DB
+        return userSuggester.suggest(prefix, limit);
+    }
+
     @Override
     public UserDTO activeUser(UUID userId) {
         User user = userRepository.findById(userId)
@@ -313,7 +465,7 @@ public class UserServiceImpl implements UserService { // Đổi tên interface
     @Override
     @Transactional(readOnly = true)
     public UserDetailDTO getUserDetails(UUID userId) {
-        User user = userRepository.findById(userId)
+        User user = userRepository.findWithProfileByUserId(userId)
                 .orElseThrow(() -> new UserNotFoundException(userId));
         
         UserProfile profile = user.getProfile();
@@ -325,7 +477,7 @@ public class UserServiceImpl implements UserService { // Đổi tên interface
     @Transactional(readOnly = true)
     public PageResponse<UserDTO> getUsers(int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<User> userPage = userRepository.findAll(pageable);
+        Page<UserListRow> userPage = userRepository.findListRows(pageable);
         
         List<UserDTO> users = userPage.getContent().stream()
             .map(userMapper::toUserDTO)
@@ -356,67 +508,187 @@ public class UserServiceImpl implements UserService { // Đổi tên interface
         user.setStatus(AccountStatus.ACTIVE);
         user.updateActiveStatus();
         userRepository.save(user);
+
+        invalidateNegativeLookups(user);
+        eventPublisher.publishEvent(new UserIndexChangedEvent(userId));
     }
 
+    // Không chạy trong transaction của class: hash mật khẩu (gọi security-service hoặc BCrypt cục bộ, có thể mất vài
+    // giây khi retry) xong rồi mới mở transaction, để connection DB chỉ bị giữ trong lúc insert
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public UserDTO createUser(UserCreateDTO userCreateDTO) {
         log.info("Attempting to create user for email: {}", userCreateDTO.getEmail());
+        Timer.Sample registration = Timer.start(meterRegistry);
+        String outcome = "failed";
+        try {
+            if (emailExists(userCreateDTO.getEmail())) {
+                log.warn("User creation failed: Email {} already exists", userCreateDTO.getEmail());
+                outcome = "duplicate";
+                throw new DuplicateResourceException("Email address already in use: " + userCreateDTO.getEmail());
+            }
+
+            // Hash password (ngoài transaction), trên thread của request
+            Timer.Sample hashing = Timer.start(meterRegistry);
+            String passwordHash;
+            try {
+                passwordHash = passwordHasher.hash(userCreateDTO.getPassword());
+            } finally {
+                hashing.stop(meterRegistry.timer("user.registration.hash.duration"));
+            }
+
+            User user = userMapper.toUser(userCreateDTO);
+            user.setPasswordHash(passwordHash);
+            user.setStatus(AccountStatus.PENDING_VERIFICATION);
+            user.setEmailVerified(false);
+            user.updateActiveStatus();
+
+            // Create UserProfile
+            UserProfile profile = new UserProfile();
+            user.setUserProfile(profile);
+
+            User savedUser = persistNewUser(user, userCreateDTO.getEmail());
+            emailMembershipFilter.add(savedUser.getEmail());
+            log.info("User created successfully with ID: {}", savedUser.getUserId());
+            invalidateNegativeLookups(savedUser);
+            eventPublisher.publishEvent(new UserIndexChangedEvent(savedUser.getUserId()));
+
+            outcome = "created";
+            return userMapper.toUserDTO(savedUser);
+        } finally {
+            registration.stop(meterRegistry.timer("user.registration.duration", "outcome", outcome));
+        }
+    }
 
-        if (userRepository.existsByEmailIgnoreCase(userCreateDTO.getEmail())) {
-            log.warn("User creation failed: Email {} already exists", userCreateDTO.getEmail());
-            throw new DuplicateResourceException("Email address already in use: " + userCreateDTO.getEmail());
+    // Transaction ngắn chỉ gồm insert user + token + outbox; thời gian giữ connection được đo riêng
+    private User persistNewUser(User user, String email) {
+        Timer.Sample connectionHold = Timer.start(meterRegistry);
+        try {
+            return transactionTemplate.execute(status -> {
+                User savedUser;
+                try {
+                    // Flush ngay để bắt vi phạm unique email (filter của instance khác có thể chưa kịp nhận email mới)
+                    savedUser = userRepository.saveAndFlush(user);
+                } catch (DataIntegrityViolationException e) {
+                    if (!UniqueViolations.isViolationOf(e, UniqueViolations.USER_EMAIL)) {
+                        throw e;
+                    }
+                    log.warn("User creation failed: Email {} already exists (unique constraint)", email);
+                    throw new DuplicateResourceException("Email address already in use: " + email);
+                }
+
+                // Publish event
+                publishUserEvent(new UserCreatedEvent(
+                        savedUser.getUserId(),
+                        savedUser.getEmail(),
+                        savedUser.getFirstName(),
+                        savedUser.getLastName()
+                ));
+
+                // Send verification email
+                String verificationTokenValue = generateAndSaveVerificationToken(savedUser);
+                publishUserEvent(new UserEmailVerificationRequestedEvent(
+                        savedUser.getUserId(),
+                        savedUser.getEmail(),
+                        savedUser.getFullName(),
+                        verificationTokenValue
+                ));
+                return savedUser;
+            });
+        } finally {
+            connectionHold.stop(meterRegistry.timer("user.registration.transaction.duration"));
         }
+    }
 
-        User user = userMapper.toUser(userCreateDTO);
-        
-        // Hash password
-        SecurityServiceClient.HashResponse hashResponse = securityServiceClient.hashPassword(
-                new SecurityServiceClient.HashRequest(userCreateDTO.getPassword())
-        );
-        user.setPasswordHash(hashResponse.hashedPassword());
+    // --- Private Helper Methods ---
+    private PageResponse<UserDTO> searchUsersInIndex(String query, int page, int size) {
+        UserSearchIndex.Hits hits = userSearchIndex.search(query, page * size, size);
+        List<UserDTO> users = loadRanked(hits.userIds());
+        int totalPages = size == 0 ? 0 : (int) ((hits.totalHits() + size - 1) / size);
+        return new PageResponse<UserDTO>(users,
+            page,
+            size,
+            hits.totalHits(),
+            totalPages,
+            page == 0,
+            page + 1 >= totalPages);
+    }
 
-        user.setStatus(AccountStatus.PENDING_VERIFICATION);
-        user.setEmailVerified(false);
-        user.updateActiveStatus();
+    private CursorPageResponse<UserDTO> searchIndexCursorPage(String query, int offset, int limit, CountMode countMode) {
+        UserSearchIndex.Hits hits = userSearchIndex.search(query, offset, limit);
+        int next = offset + hits.userIds().size();
+        boolean hasNext = next < hits.totalHits();
+        // Tổng số hit có sẵn từ index (không tốn query); index cập nhật sau commit nên APPROXIMATE được đánh dấu gần đúng
+        Long total = countMode == CountMode.NONE ? null : hits.totalHits();
+        return new CursorPageResponse<>(loadRanked(hits.userIds()), limit,
+                hasNext ? UserCursor.encode(new UserCursor.Offset(next)) : null,
+                hasNext, total, countMode == CountMode.APPROXIMATE);
+    }
 
-        // Create UserProfile
-        UserProfile profile = new UserProfile();
-        user.setUserProfile(profile);
+    // Index trả về id theo thứ tự liên quan; nạp bằng một query IN trên projection danh sách rồi sắp lại theo thứ tự đó
+    private List<UserDTO> loadRanked(List<UUID> userIds) {
+        if (userIds.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, Integer> rank = new HashMap<>();
+        for (int i = 0; i < userIds.size(); i++) {
+            rank.put(userIds.get(i), i);
+        }
+        return userRepository.findListRowsByIds(userIds).stream()
+                .sorted(Comparator.comparing(row -> rank.get(row.userId())))
+                .map(userMapper::toUserDTO)
+                .collect(Collectors.toList());
+    }
 
-        User savedUser = userRepository.save(user);
-        log.info("User created successfully with ID: {}", savedUser.getUserId());
+    // rows chứa tối đa limit + 1 dòng: dòng thừa chỉ để biết còn trang sau
+    private CursorPageResponse<UserDTO> toKeysetPage(List<UserListRow> rows, int limit, Long total, boolean approximate) {
+        boolean hasNext = rows.size() > limit;
+        List<UserListRow> page = hasNext ? rows.subList(0, limit) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            UserListRow last = page.get(page.size() - 1);
+            nextCursor = UserCursor.encode(new UserCursor.Keyset(last.createdAt(), last.userId()));
+        }
+        List<UserDTO> users = page.stream().map(userMapper::toUserDTO).collect(Collectors.toList());
+        return new CursorPageResponse<>(users, limit, nextCursor, hasNext, total, approximate);
+    }
 
-        // Publish event
-        publishUserEvent(new UserCreatedEvent(
-                savedUser.getUserId(),
-                savedUser.getEmail(),
-                savedUser.getFirstName(),
-                savedUser.getLastName()
-        ));
+    private int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, maxPageSize));
+    }
 
-        // Send verification email
-        String verificationTokenValue = generateAndSaveVerificationToken(savedUser);
-        publishUserEvent(new UserEmailVerificationRequestedEvent(
-                savedUser.getUserId(),
-                savedUser.getEmail(),
-                savedUser.getFullName(),
-                verificationTokenValue
-        ));
+    // Filter trả lời "chắc chắn chưa có" thì bỏ qua query existsByEmailIgnoreCase (không dùng được index)
+    private boolean emailExists(String email) {
+        if (!emailMembershipFilter.mightContain(email)) {
+            return false;
+        }
+        boolean exists = userRepository.existsByEmailIgnoreCase(email);
+        if (!exists) {
+            emailMembershipFilter.recordFalsePositive();
+        }
+        return exists;
+    }
 
-        return userMapper.toUserDTO(savedUser);
+    // Tài khoản mới tạo/khôi phục phải thấy được ngay, kể cả khi id/email vừa bị cache là "không tồn tại"
+    private void invalidateNegativeLookups(User user) {
+        negativeLookupCache.invalidate(AppConstants.CACHE_USER_BY_ID, user.getUserId());
+        negativeLookupCache.invalidate(AppConstants.CACHE_USER_BY_EMAIL, user.getEmail().toLowerCase());
+        negativeLookupCache.invalidate(AppConstants.CACHE_PROFILE_BY_USER_ID, user.getUserId());
     }
 
-    // --- Private Helper Methods ---
+    // Ghi vào outbox trong transaction hiện tại; OutboxRelay gửi lên Kafka sau khi commit
     private void publishUserEvent(UserDomainEvent event) {
-        try {
-            log.info("Publishing {} to Kafka topic {}: {}", event.getEventType(), userEventsTopic, event);
-            kafkaTemplate.send(userEventsTopic, event.getUserId().toString(), event);
-        } catch (Exception e) {
-            log.error("Failed to publish event {} to Kafka topic {}: {}", event.getEventType(), userEventsTopic, e.getMessage(), e);
-        }
+        log.info("Queueing {} for user {}: {}", event.getEventType(), event.getUserId(), event);
+        userEventOutbox.append(event);
     }
 
     private String generateAndSaveVerificationToken(User user) {
+        if (signedVerificationTokens.isEnabled()) {
+            String tokenValue = signedVerificationTokens.issue(user.getUserId(), user.getVerificationNonce(),
+                    OffsetDateTime.now().plusMinutes(tokenExpirationMinutes).toInstant());
+            log.debug("Issued signed verification token for user {}", user.getUserId());
+            return tokenValue;
+        }
         String tokenValue = UUID.randomUUID().toString();
         EmailVerificationToken verificationToken = new EmailVerificationToken(
                 tokenValue,
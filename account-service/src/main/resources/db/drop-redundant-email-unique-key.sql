@@ -0,0 +1,17 @@
+-- Bảng users từng có hai unique key trên email: idx_user_email (@Index) và khoá Hibernate tự đặt tên (UK...) sinh từ
+-- @Column(unique = true). Email trùng chỉ được báo là "đã tồn tại" khi constraint vi phạm là idx_user_email
+-- (UniqueViolations), nên khoá thừa phải được xoá. Chạy một lần trên schema cũ; chạy lại không làm gì.
+
+SET @redundant = NULL;
+SELECT index_name INTO @redundant
+FROM information_schema.statistics
+WHERE table_schema = DATABASE() AND table_name = 'users' AND non_unique = 0
+  AND index_name NOT IN ('PRIMARY', 'idx_user_email')
+GROUP BY index_name
+HAVING COUNT(*) = 1 AND MAX(column_name) = 'email'
+LIMIT 1;
+
+SET @ddl = IF(@redundant IS NULL, 'DO 0', CONCAT('ALTER TABLE users DROP INDEX `', @redundant, '`'));
+PREPARE drop_redundant_key FROM @ddl;
+EXECUTE drop_redundant_key;
+DEALLOCATE PREPARE drop_redundant_key;
@@ -0,0 +1,168 @@
+-- Chuyển khoá UUID từ CHAR(36) sang BINARY(16) cho users, user_profiles, oauth_providers, email_verification_tokens.
+--
+-- Thứ tự byte: UUID_TO_BIN(x) không đảo byte (swap_flag = 0), khớp với cách Hibernate ghi java.util.UUID
+-- (mostSignificantBits rồi leastSignificantBits, big-endian). Không dùng swap_flag = 1: UUIDv7 đã tăng theo thời gian.
+-- Dòng cũ giữ nguyên giá trị v4 (chỉ đổi cách lưu), dòng mới do ứng dụng sinh v7.
+--
+-- Các bước 1-2 chạy online khi bản cũ của ứng dụng vẫn đang chạy. Bước 3 đổi khoá chính nên cần copy bảng: dùng
+-- pt-online-schema-change, không dùng gh-ost (gh-ost không hỗ trợ bảng có khoá ngoại, mà users là bảng cha của ba
+-- bảng con). Đổi tên cột chỉ làm sau khi copy xong (4): pt-osc chép dữ liệu theo tên cột. Lúc duy nhất phải dừng ghi
+-- là bước 4: dừng bản cũ, đổi cột (chỉ metadata), khởi động bản mới (đọc/ghi BINARY(16)). Cần MySQL >= 8.0.29
+-- (DROP COLUMN ALGORITHM=INSTANT).
+
+-- ---------------------------------------------------------------------------------------------------------------
+-- 1. Expand: thêm cột nhị phân song song (ALGORITHM=INSTANT trên MySQL 8) và trigger giữ chúng đồng bộ với cột cũ
+-- ---------------------------------------------------------------------------------------------------------------
+ALTER TABLE users ADD COLUMN user_id_bin BINARY(16) NULL, ADD COLUMN deleted_by_bin BINARY(16) NULL, ALGORITHM=INSTANT;
+ALTER TABLE user_profiles ADD COLUMN user_id_bin BINARY(16) NULL, ALGORITHM=INSTANT;
+ALTER TABLE email_verification_tokens ADD COLUMN id_bin BINARY(16) NULL, ADD COLUMN user_id_bin BINARY(16) NULL, ALGORITHM=INSTANT;
+-- oauth_providers trước đây không có khoá riêng (field @Id trùng cột user_id): thêm id mới
+ALTER TABLE oauth_providers ADD COLUMN id BINARY(16) NULL, ADD COLUMN user_id_bin BINARY(16) NULL, ALGORITHM=INSTANT;
+
+DELIMITER //
+CREATE TRIGGER trg_users_uuid_bin_ins BEFORE INSERT ON users FOR EACH ROW
+BEGIN
+    SET NEW.user_id_bin = UUID_TO_BIN(NEW.user_id), NEW.deleted_by_bin = UUID_TO_BIN(NEW.deleted_by);
+END//
+CREATE TRIGGER trg_users_uuid_bin_upd BEFORE UPDATE ON users FOR EACH ROW
+BEGIN
+    SET NEW.deleted_by_bin = UUID_TO_BIN(NEW.deleted_by);
+END//
+CREATE TRIGGER trg_profiles_uuid_bin_ins BEFORE INSERT ON user_profiles FOR EACH ROW
+BEGIN
+    SET NEW.user_id_bin = UUID_TO_BIN(NEW.user_id);
+END//
+CREATE TRIGGER trg_tokens_uuid_bin_ins BEFORE INSERT ON email_verification_tokens FOR EACH ROW
+BEGIN
+    SET NEW.id_bin = UUID_TO_BIN(NEW.id), NEW.user_id_bin = UUID_TO_BIN(NEW.user_id);
+END//
+CREATE TRIGGER trg_oauth_uuid_bin_ins BEFORE INSERT ON oauth_providers FOR EACH ROW
+BEGIN
+    SET NEW.id = COALESCE(NEW.id, UUID_TO_BIN(UUID())), NEW.user_id_bin = UUID_TO_BIN(NEW.user_id);
+END//
+DELIMITER ;
+
+-- ---------------------------------------------------------------------------------------------------------------
+-- 2. Backfill theo lô nhỏ (mỗi câu một transaction ngắn); lặp lại từng câu cho tới khi ROW_COUNT() = 0
+-- ---------------------------------------------------------------------------------------------------------------
+UPDATE users SET user_id_bin = UUID_TO_BIN(user_id), deleted_by_bin = UUID_TO_BIN(deleted_by)
+WHERE user_id_bin IS NULL LIMIT 5000;
+UPDATE user_profiles SET user_id_bin = UUID_TO_BIN(user_id) WHERE user_id_bin IS NULL LIMIT 5000;
+UPDATE email_verification_tokens SET id_bin = UUID_TO_BIN(id), user_id_bin = UUID_TO_BIN(user_id)
+WHERE id_bin IS NULL LIMIT 5000;
+UPDATE oauth_providers SET id = UUID_TO_BIN(UUID()), user_id_bin = UUID_TO_BIN(user_id)
+WHERE user_id_bin IS NULL LIMIT 5000;
+
+-- Kiểm tra trước cut-over: cả bốn câu phải trả về 0
+SELECT COUNT(*) FROM users WHERE user_id_bin IS NULL;
+SELECT COUNT(*) FROM user_profiles WHERE user_id_bin IS NULL;
+SELECT COUNT(*) FROM email_verification_tokens WHERE id_bin IS NULL OR user_id_bin IS NULL;
+SELECT COUNT(*) FROM oauth_providers WHERE id IS NULL OR user_id_bin IS NULL;
+
+-- ---------------------------------------------------------------------------------------------------------------
+-- 3a. Xoá khoá ngoại trỏ tới users (chỉ metadata). Tên thật do Hibernate/môi trường đặt (FK...) nên tra từ
+--     information_schema, không đoán; chạy lại không làm gì. Tới bước 5 bảng con không có khoá ngoại.
+-- ---------------------------------------------------------------------------------------------------------------
+SET @fks = NULL;
+SELECT GROUP_CONCAT(DISTINCT CONCAT('DROP FOREIGN KEY `', constraint_name, '`')) INTO @fks
+FROM information_schema.key_column_usage
+WHERE table_schema = DATABASE() AND table_name = 'oauth_providers' AND referenced_table_name = 'users';
+SET @ddl = IF(@fks IS NULL, 'DO 0', CONCAT('ALTER TABLE oauth_providers ', @fks));
+PREPARE drop_fks FROM @ddl;
+EXECUTE drop_fks;
+DEALLOCATE PREPARE drop_fks;
+
+SET @fks = NULL;
+SELECT GROUP_CONCAT(DISTINCT CONCAT('DROP FOREIGN KEY `', constraint_name, '`')) INTO @fks
+FROM information_schema.key_column_usage
+WHERE table_schema = DATABASE() AND table_name = 'email_verification_tokens' AND referenced_table_name = 'users';
+SET @ddl = IF(@fks IS NULL, 'DO 0', CONCAT('ALTER TABLE email_verification_tokens ', @fks));
+PREPARE drop_fks FROM @ddl;
+EXECUTE drop_fks;
+DEALLOCATE PREPARE drop_fks;
+
+SET @fks = NULL;
+SELECT GROUP_CONCAT(DISTINCT CONCAT('DROP FOREIGN KEY `', constraint_name, '`')) INTO @fks
+FROM information_schema.key_column_usage
+WHERE table_schema = DATABASE() AND table_name = 'user_profiles' AND referenced_table_name = 'users';
+SET @ddl = IF(@fks IS NULL, 'DO 0', CONCAT('ALTER TABLE user_profiles ', @fks));
+PREPARE drop_fks FROM @ddl;
+EXECUTE drop_fks;
+DEALLOCATE PREPARE drop_fks;
+
+-- Phải trả về 0 trước khi sang 3b
+SELECT COUNT(*) FROM information_schema.key_column_usage
+WHERE table_schema = DATABASE() AND referenced_table_name = 'users';
+
+-- ---------------------------------------------------------------------------------------------------------------
+-- 3b. Đổi khoá chính sang cột nhị phân bằng pt-online-schema-change, bảng con trước, users sau cùng; bản cũ vẫn chạy.
+--     Tên cột giữ nguyên nên pt-osc chép đúng dữ liệu, trigger trg_* vẫn điền cột _bin cho dòng mới. Index tạm
+--     tmp_* giữ truy vấn theo cột CHAR(36) của bản cũ dùng được index cho tới bước 4.
+--     --no-check-alter: bắt buộc khi --alter có DROP PRIMARY KEY; an toàn vì khoá mới đã có trên bảng gốc nên trigger
+--     DELETE/UPDATE của pt-osc khớp đúng dòng.
+--     --alter-foreign-keys-method=auto: không còn bảng con nào sau 3a; nếu còn sót pt-osc tự sửa khoá ngoại thay vì
+--     để chúng trỏ vào bảng cũ đã bị đổi tên.
+-- ---------------------------------------------------------------------------------------------------------------
+-- pt-online-schema-change --execute --no-check-alter D=<schema>,t=oauth_providers --alter "
+--     DROP PRIMARY KEY, MODIFY id BINARY(16) NOT NULL, MODIFY user_id_bin BINARY(16) NOT NULL, ADD PRIMARY KEY (id),
+--     ADD INDEX idx_oauth_user (user_id_bin), ADD INDEX tmp_oauth_user_id_char (user_id)"
+--
+-- pt-online-schema-change --execute --no-check-alter D=<schema>,t=email_verification_tokens --alter "
+--     DROP PRIMARY KEY, MODIFY id_bin BINARY(16) NOT NULL, MODIFY user_id_bin BINARY(16) NOT NULL,
+--     ADD PRIMARY KEY (id_bin), ADD UNIQUE INDEX tmp_tokens_id_char (id)"
+--
+-- pt-online-schema-change --execute --no-check-alter D=<schema>,t=user_profiles --alter "
+--     DROP PRIMARY KEY, MODIFY user_id_bin BINARY(16) NOT NULL, ADD PRIMARY KEY (user_id_bin),
+--     ADD UNIQUE INDEX tmp_profiles_user_id_char (user_id)"
+--
+-- pt-online-schema-change --execute --no-check-alter --alter-foreign-keys-method=auto D=<schema>,t=users --alter "
+--     DROP PRIMARY KEY, MODIFY user_id_bin BINARY(16) NOT NULL, ADD PRIMARY KEY (user_id_bin),
+--     ADD UNIQUE INDEX tmp_users_user_id_char (user_id), ADD INDEX idx_user_created_at_user_id (created_at, user_id_bin)"
+
+-- ---------------------------------------------------------------------------------------------------------------
+-- 4. Cut-over (dừng ghi): dừng bản cũ, bỏ trigger và index tạm, thay cột cũ bằng cột nhị phân. Mọi câu chỉ đổi
+--    metadata nên cửa sổ dừng ghi không phụ thuộc kích thước bảng.
+-- ---------------------------------------------------------------------------------------------------------------
+DROP TRIGGER trg_users_uuid_bin_ins;
+DROP TRIGGER trg_users_uuid_bin_upd;
+DROP TRIGGER trg_profiles_uuid_bin_ins;
+DROP TRIGGER trg_tokens_uuid_bin_ins;
+DROP TRIGGER trg_oauth_uuid_bin_ins;
+
+ALTER TABLE oauth_providers DROP INDEX tmp_oauth_user_id_char, ALGORITHM=INPLACE, LOCK=NONE;
+ALTER TABLE oauth_providers
+    DROP COLUMN user_id,
+    RENAME COLUMN user_id_bin TO user_id,
+    ALGORITHM=INSTANT;
+
+ALTER TABLE email_verification_tokens DROP INDEX tmp_tokens_id_char, ALGORITHM=INPLACE, LOCK=NONE;
+ALTER TABLE email_verification_tokens
+    DROP COLUMN id,
+    DROP COLUMN user_id,
+    RENAME COLUMN id_bin TO id,
+    RENAME COLUMN user_id_bin TO user_id,
+    ALGORITHM=INSTANT;
+
+ALTER TABLE user_profiles DROP INDEX tmp_profiles_user_id_char, ALGORITHM=INPLACE, LOCK=NONE;
+ALTER TABLE user_profiles
+    DROP COLUMN user_id,
+    RENAME COLUMN user_id_bin TO user_id,
+    ALGORITHM=INSTANT;
+
+ALTER TABLE users DROP INDEX tmp_users_user_id_char, ALGORITHM=INPLACE, LOCK=NONE;
+ALTER TABLE users
+    DROP COLUMN user_id,
+    DROP COLUMN deleted_by,
+    RENAME COLUMN user_id_bin TO user_id,
+    RENAME COLUMN deleted_by_bin TO deleted_by,
+    ALGORITHM=INSTANT;
+
+-- ---------------------------------------------------------------------------------------------------------------
+-- 5. Tạo lại khoá ngoại. Dữ liệu đã được trigger giữ nhất quán nên tắt foreign_key_checks để MySQL thêm khoá tại chỗ
+--    (INPLACE) thay vì copy bảng. Có thể chạy sau khi bản mới đã khởi động.
+-- ---------------------------------------------------------------------------------------------------------------
+SET foreign_key_checks = 0;
+ALTER TABLE user_profiles ADD CONSTRAINT fk_profile_user FOREIGN KEY (user_id) REFERENCES users (user_id);
+ALTER TABLE email_verification_tokens ADD CONSTRAINT fk_token_user FOREIGN KEY (user_id) REFERENCES users (user_id);
+ALTER TABLE oauth_providers ADD CONSTRAINT fk_oauth_user FOREIGN KEY (user_id) REFERENCES users (user_id);
+SET foreign_key_checks = 1;
@@ -0,0 +1,145 @@
+package com.github.datnm23.accountservice.bulkimport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.datnm23.accountservice.cache.EmailMembershipFilter;
+import com.github.datnm23.accountservice.cache.NegativeLookupCache;
+import com.github.datnm23.accountservice.client.PasswordHasher;
+import com.github.datnm23.accountservice.client.SecurityServiceClient.HashResult;
+import com.github.datnm23.accountservice.dto.BulkImportResultDTO;
+import com.github.datnm23.accountservice.entity.User;
+import com.github.datnm23.accountservice.mapper.UserMapper;
+import com.github.datnm23.accountservice.outbox.UserEventOutbox;
+import com.github.datnm23.accountservice.repository.EmailVerificationTokenRepository;
+import com.github.datnm23.accountservice.repository.UserRepository;
+import com.github.datnm23.accountservice.security.SignedVerificationTokens;
+import com.github.datnm23.accountservice.statics.AccountStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Email bị một request đăng ký đồng thời chiếm sau khi lô đã kiểm tra trùng với DB: lô được insert lại từng dòng,
+ * chỉ dòng trùng bị báo lỗi và import tiếp tục với các lô sau.
+ */
+// spring.config.name riêng: không nạp application.yml (import config server)
+@DataJpaTest(properties = "spring.config.name=bulk-user-import-duplicate-test")
+// Mỗi lô chạy transaction thật của chính nó như khi chạy thật, không gộp vào transaction của test
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BulkUserImportDuplicateTest {
+
+    private static final String TAKEN_EMAIL = "taken@example.com";
+
+    @Configuration(proxyBeanMethods = false)
+    @EnableJpaAuditing
+    @EntityScan(basePackageClasses = User.class)
+    @EnableJpaRepositories(basePackageClasses = UserRepository.class,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+                    classes = {UserRepository.class, EmailVerificationTokenRepository.class}))
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EmailVerificationTokenRepository tokenRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void concurrentDuplicateFailsOnlyItsRow() {
+        PasswordHasher passwordHasher = mock(PasswordHasher.class);
+        AtomicInteger hashCalls = new AtomicInteger();
+        when(passwordHasher.hashAll(anyList())).thenAnswer(invocation -> {
+            List<String> passwords = invocation.getArgument(0);
+            if (hashCalls.incrementAndGet() == 2) {
+                // Lô thứ hai đã qua bước findExistingEmails: email bị chiếm ngay sau đó
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> userRepository.save(user(TAKEN_EMAIL)));
+            }
+            return CompletableFuture.completedFuture(passwords.stream()
+                    .map(password -> new HashResult("$2a$10$hash", null))
+                    .toList());
+        });
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        BulkUserImportService service = new BulkUserImportService(
+                userRepository,
+                tokenRepository,
+                new SignedVerificationTokens(meterRegistry, "table", "", ""),
+                Mappers.getMapper(UserMapper.class),
+                passwordHasher,
+                mock(UserEventOutbox.class),
+                mock(EmailMembershipFilter.class),
+                mock(NegativeLookupCache.class),
+                mock(ApplicationEventPublisher.class),
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                new ObjectMapper(),
+                entityManager,
+                transactionManager,
+                meterRegistry,
+                2,
+                100,
+                1440);
+
+        String ndjson = String.join("\n",
+                row("first@example.com"),
+                row("second@example.com"),
+                row(TAKEN_EMAIL),
+                row("fourth@example.com"));
+        BulkImportResultDTO result = service.importUsers(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), false, true);
+
+        assertThat(result.getCreated()).isEqualTo(3);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getRow()).isEqualTo(3);
+            assertThat(error.getMessage()).isEqualTo("Email address already in use");
+        });
+        assertThat(userRepository.findExistingEmails(List.of("first@example.com", "second@example.com",
+                TAKEN_EMAIL, "fourth@example.com"))).hasSize(4);
+        assertThat(tokenRepository.count()).isEqualTo(3);
+    }
+
+    private static String row(String email) {
+        return "{\"email\":\"" + email + "\",\"password\":\"Passw0rd!\",\"firstName\":\"Van\",\"lastName\":\"Nguyen\"}";
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPasswordHash("$2a$10$hash");
+        user.setFirstName("Concurrent");
+        user.setLastName("Signup");
+        user.setStatus(AccountStatus.PENDING_VERIFICATION);
+        return user;
+    }
+}
@@ -0,0 +1,148 @@
+package com.github.datnm23.accountservice.cache.codec;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.datnm23.accountservice.dto.UserDTO;
+import com.github.datnm23.accountservice.dto.UserDetailDTO;
+import com.github.datnm23.accountservice.dto.UserProfileDTO;
+import com.github.datnm23.accountservice.statics.AccountStatus;
+import com.github.datnm23.accountservice.statics.Gender;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * So sánh kích thước và chi phí encode/decode giữa GenericJackson2JsonRedisSerializer và
+ * BinaryCacheValueSerializer. Chạy thủ công (main), không nằm trong test suite:
+ * <pre>
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.github.datnm23.accountservice.cache.codec.CacheCodecBenchmark
+ * </pre>
+ */
+public class CacheCodecBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 50_000;
+    private static final int MEASURED_ITERATIONS = 200_000;
+
+    public static void main(String[] args) {
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+        mapper.activateDefaultTyping(mapper.getPolymorphicTypeValidator(),
+                ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+        RedisSerializer<Object> json = new GenericJackson2JsonRedisSerializer(mapper);
+        RedisSerializer<Object> binary = new BinaryCacheValueSerializer(
+                BinaryCacheValueSerializer.defaultCodecs(), json, true, 512);
+
+        List<Object> samples = List.of(
+                sampleUser(null),
+                sampleUser(sampleProfile("Short bio.")),
+                sampleProfile("Short bio."),
+                sampleProfile("Giảng viên lập trình Java với hơn 10 năm kinh nghiệm. ".repeat(40)),
+                sampleDetail("Giảng viên lập trình Java với hơn 10 năm kinh nghiệm. ".repeat(40)));
+
+        System.out.printf("%-32s %10s %10s %12s %12s %12s %12s%n",
+                "sample", "json B", "binary B", "json enc ns", "bin enc ns", "json dec ns", "bin dec ns");
+        for (Object sample : samples) {
+            byte[] jsonBytes = json.serialize(sample);
+            byte[] binaryBytes = binary.serialize(sample);
+            if (!sample.equals(binary.deserialize(binaryBytes))) {
+                throw new IllegalStateException("Binary round trip mismatch for " + sample.getClass().getSimpleName());
+            }
+            // Entry JSON cũ vẫn phải đọc được qua fallback
+            if (binary.deserialize(jsonBytes).getClass() != sample.getClass()) {
+                throw new IllegalStateException("JSON fallback mismatch for " + sample.getClass().getSimpleName());
+            }
+            String label = sample.getClass().getSimpleName();
+            System.out.printf("%-32s %10d %10d %12.0f %12.0f %12.0f %12.0f%n",
+                    label, jsonBytes.length, binaryBytes.length,
+                    encodeNanos(json, sample), encodeNanos(binary, sample),
+                    decodeNanos(json, jsonBytes), decodeNanos(binary, binaryBytes));
+        }
+    }
+
+    private static double encodeNanos(RedisSerializer<Object> serializer, Object value) {
+        long sink = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink += serializer.serialize(value).length;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            sink += serializer.serialize(value).length;
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink == 42) System.out.print("");
+        return (double) elapsed / MEASURED_ITERATIONS;
+    }
+
+    private static double decodeNanos(RedisSerializer<Object> serializer, byte[] bytes) {
+        int sink = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink += serializer.deserialize(bytes).hashCode();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            sink += serializer.deserialize(bytes).hashCode();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink == 42) System.out.print("");
+        return (double) elapsed / MEASURED_ITERATIONS;
+    }
+
+    private static UserDTO sampleUser(UserProfileDTO profile) {
+        UserDTO user = new UserDTO();
+        user.setUserId(UUID.randomUUID());
+        user.setEmail("nguyen.van.a@example.com");
+        user.setFirstName("Văn A");
+        user.setLastName("Nguyễn");
+        user.setFullName("Nguyễn Văn A");
+        user.setStatus(AccountStatus.ACTIVE);
+        user.setActive(true);
+        user.setEmailVerified(true);
+        user.setCreatedAt(OffsetDateTime.now().minusDays(30));
+        user.setUpdatedAt(OffsetDateTime.now().minusDays(1));
+        user.setLastLoginAt(OffsetDateTime.now());
+        user.setProfile(profile);
+        return user;
+    }
+
+    private static UserProfileDTO sampleProfile(String bio) {
+        UserProfileDTO profile = new UserProfileDTO();
+        profile.setUserId(UUID.randomUUID());
+        profile.setAvatarUrl("https://cdn.example.com/avatars/nguyen-van-a.png");
+        profile.setBio(bio);
+        profile.setDateOfBirth(LocalDate.of(1990, 5, 17));
+        profile.setGender(Gender.MALE);
+        profile.setPhone("+84901234567");
+        profile.setAddress("123 Lê Lợi, Quận 1");
+        profile.setCity("Hồ Chí Minh");
+        profile.setCountry("VN");
+        profile.setLanguage("vi");
+        profile.setEmailNotifications(true);
+        profile.setCreatedAt(OffsetDateTime.now().minusDays(30));
+        profile.setUpdatedAt(OffsetDateTime.now());
+        return profile;
+    }
+
+    private static UserDetailDTO sampleDetail(String bio) {
+        UserDetailDTO detail = new UserDetailDTO();
+        detail.setUserId(UUID.randomUUID());
+        detail.setEmail("nguyen.van.a@example.com");
+        detail.setFirstName("Văn A");
+        detail.setLastName("Nguyễn");
+        detail.setFullName("Nguyễn Văn A");
+        detail.setActive(true);
+        detail.setEmailVerified(true);
+        detail.setCreatedAt(OffsetDateTime.now().minusDays(30));
+        detail.setAvatarUrl("https://cdn.example.com/avatars/nguyen-van-a.png");
+        detail.setBio(bio);
+        detail.setDateOfBirth(LocalDate.of(1990, 5, 17));
+        detail.setGender(Gender.MALE);
+        detail.setCity("Hồ Chí Minh");
+        detail.setCountry("VN");
+        detail.setLanguage("vi");
+        return detail;
+    }
+}
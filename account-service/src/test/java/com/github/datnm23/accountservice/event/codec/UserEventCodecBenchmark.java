@@ -0,0 +1,116 @@
+package com.github.datnm23.accountservice.event.codec;
+
+import com.github.datnm23.accountservice.event.UserCreatedEvent;
+import com.github.datnm23.accountservice.event.UserDomainEvent;
+import com.github.datnm23.accountservice.event.UserEmailVerificationRequestedEvent;
+import com.github.datnm23.accountservice.event.UserProfileUpdatedEvent;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * So sánh kích thước message (body + header) và thông lượng encode/decode giữa định dạng JSON (JsonSerializer kèm
+ * type header) và định dạng nhị phân của UserEventSerializer. Chạy thủ công (main), không nằm trong test suite:
+ * <pre>
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.github.datnm23.accountservice.event.codec.UserEventCodecBenchmark
+ * </pre>
+ */
+public class UserEventCodecBenchmark {
+
+    private static final String TOPIC = "user-events";
+    private static final int WARMUP_ITERATIONS = 50_000;
+    private static final int MEASURED_ITERATIONS = 200_000;
+
+    public static void main(String[] args) {
+        UserEventSerializer json = new UserEventSerializer().binary(false);
+        UserEventSerializer binary = new UserEventSerializer().binary(true);
+        UserEventDeserializer deserializer = new UserEventDeserializer();
+
+        Map<String, Object> smallDelta = new LinkedHashMap<>();
+        smallDelta.put("firstName", "Văn B");
+        Map<String, Object> largeDelta = new LinkedHashMap<>();
+        largeDelta.put("avatarUrl", "https://cdn.example.com/avatars/nguyen-van-a.png");
+        largeDelta.put("bio", "Giảng viên lập trình Java với hơn 10 năm kinh nghiệm.");
+        largeDelta.put("phone", "+84901234567");
+        largeDelta.put("emailNotifications", false);
+        largeDelta.put("dateOfBirth", LocalDate.of(1990, 5, 17));
+        largeDelta.put("city", "Hồ Chí Minh");
+
+        UUID userId = UUID.randomUUID();
+        List<UserDomainEvent> samples = List.of(
+                new UserCreatedEvent(userId, "nguyen.van.a@example.com", "Văn A", "Nguyễn"),
+                new UserEmailVerificationRequestedEvent(userId, "nguyen.van.a@example.com", "Nguyễn Văn A",
+                        UUID.randomUUID().toString()),
+                new UserProfileUpdatedEvent(userId, smallDelta),
+                new UserProfileUpdatedEvent(userId, largeDelta));
+
+        System.out.printf("%-40s %8s %8s %12s %12s %12s %12s%n",
+                "sample", "json B", "bin B", "json enc/s", "bin enc/s", "json dec/s", "bin dec/s");
+        for (UserDomainEvent sample : samples) {
+            Headers jsonHeaders = new RecordHeaders();
+            byte[] jsonBytes = json.serialize(TOPIC, jsonHeaders, sample);
+            Headers binaryHeaders = new RecordHeaders();
+            byte[] binaryBytes = binary.serialize(TOPIC, binaryHeaders, sample);
+
+            UserDomainEvent decoded = deserializer.deserialize(TOPIC, binaryHeaders, binaryBytes);
+            if (!sample.getEventId().equals(decoded.getEventId()) || sample.getClass() != decoded.getClass()) {
+                throw new IllegalStateException("Binary round trip mismatch for " + sample.getEventType());
+            }
+            // Message JSON cũ vẫn phải đọc được qua header
+            if (deserializer.deserialize(TOPIC, jsonHeaders, jsonBytes).getClass() != sample.getClass()) {
+                throw new IllegalStateException("JSON fallback mismatch for " + sample.getEventType());
+            }
+
+            String label = sample.getEventType()
+                    + (sample instanceof UserProfileUpdatedEvent updated ? " (" + updated.getChangedFields().size() + " fields)" : "");
+            System.out.printf("%-40s %8d %8d %12.0f %12.0f %12.0f %12.0f%n",
+                    label, jsonBytes.length + size(jsonHeaders), binaryBytes.length + size(binaryHeaders),
+                    encodePerSecond(json, sample), encodePerSecond(binary, sample),
+                    decodePerSecond(deserializer, jsonHeaders, jsonBytes),
+                    decodePerSecond(deserializer, binaryHeaders, binaryBytes));
+        }
+    }
+
+    private static int size(Headers headers) {
+        int size = 0;
+        for (Header header : headers) {
+            size += header.key().length() + header.value().length;
+        }
+        return size;
+    }
+
+    private static double encodePerSecond(UserEventSerializer serializer, UserDomainEvent event) {
+        long sink = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink += serializer.serialize(TOPIC, new RecordHeaders(), event).length;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            sink += serializer.serialize(TOPIC, new RecordHeaders(), event).length;
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink == 42) System.out.print("");
+        return MEASURED_ITERATIONS * 1e9 / elapsed;
+    }
+
+    private static double decodePerSecond(UserEventDeserializer deserializer, Headers headers, byte[] bytes) {
+        int sink = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink += deserializer.deserialize(TOPIC, headers, bytes).hashCode();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            sink += deserializer.deserialize(TOPIC, headers, bytes).hashCode();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink == 42) System.out.print("");
+        return MEASURED_ITERATIONS * 1e9 / elapsed;
+    }
+}
@@ -0,0 +1,162 @@
+package com.github.datnm23.accountservice.id;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * So sánh khoá CHAR(36) + UUID v4 (cách cũ) với BINARY(16) + UUID v7 trên MySQL: thời gian insert theo lô, thời gian
+ * tra cứu theo khoá và dung lượng bảng/index; kèm thông lượng sinh id nhiều thread của {@link UUID#randomUUID()} và
+ * {@link UuidV7#generate()}. Chạy thủ công (main) trên một schema trống, không nằm trong test suite:
+ * <pre>
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.github.datnm23.accountservice.id.UuidKeyLayoutBenchmark \
+ *     -Dexec.args="jdbc:mysql://localhost:3306/uuid_bench root secret 1000000"
+ * </pre>
+ */
+public class UuidKeyLayoutBenchmark {
+
+    private static final int BATCH_SIZE = 1_000;
+    private static final int LOOKUPS = 100_000;
+    private static final int GENERATE_PER_THREAD = 1_000_000;
+
+    public static void main(String[] args) throws Exception {
+        generationThroughput();
+        if (args.length < 3) {
+            System.out.println("Skip MySQL part: pass <jdbcUrl> <user> <password> [rows]");
+            return;
+        }
+        int rows = args.length > 3 ? Integer.parseInt(args[3]) : 1_000_000;
+        String url = args[0] + (args[0].contains("?") ? "&" : "?") + "rewriteBatchedStatements=true";
+        try (Connection connection = DriverManager.getConnection(url, args[1], args[2])) {
+            System.out.printf("%-24s %12s %14s %12s %12s%n", "layout", "insert ms", "lookups/s", "data MB", "index MB");
+            run(connection, "bench_char36_v4", "CHAR(36)", rows, UUID::randomUUID, false);
+            run(connection, "bench_binary16_v7", "BINARY(16)", rows, UuidV7::generate, true);
+        }
+    }
+
+    private static void run(Connection connection, String table, String keyType, int rows,
+                            Supplier<UUID> ids, boolean binary) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + table);
+            // Hình dạng giống bảng users: khoá chính + index phụ chứa khoá (mỗi index phụ InnoDB đều mang theo PK)
+            statement.execute("CREATE TABLE " + table + " (id " + keyType + " NOT NULL PRIMARY KEY, "
+                    + "email VARCHAR(255) NOT NULL, created_at DATETIME(6) NOT NULL, "
+                    + "UNIQUE KEY uk_email (email), KEY idx_created_id (created_at, id)) ENGINE=InnoDB");
+        }
+
+        List<UUID> sample = new ArrayList<>(LOOKUPS);
+        connection.setAutoCommit(false);
+        long start = System.nanoTime();
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO " + table + " (id, email, created_at) VALUES (?, ?, NOW(6))")) {
+            for (int i = 0; i < rows; i++) {
+                UUID id = ids.get();
+                if (sample.size() < LOOKUPS && ThreadLocalRandom.current().nextInt(rows) < LOOKUPS) {
+                    sample.add(id);
+                }
+                bind(insert, 1, id, binary);
+                insert.setString(2, "user" + i + "@example.com");
+                insert.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+        long insertMillis = (System.nanoTime() - start) / 1_000_000;
+        connection.setAutoCommit(true);
+
+        long found = 0;
+        start = System.nanoTime();
+        try (PreparedStatement lookup = connection.prepareStatement("SELECT email FROM " + table + " WHERE id = ?")) {
+            for (UUID id : sample) {
+                bind(lookup, 1, id, binary);
+                try (ResultSet resultSet = lookup.executeQuery()) {
+                    if (resultSet.next()) found++;
+                }
+            }
+        }
+        double lookupsPerSecond = sample.size() * 1e9 / (System.nanoTime() - start);
+        if (found != sample.size()) {
+            throw new IllegalStateException("Lookup mismatch in " + table + ": " + found + "/" + sample.size());
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE TABLE " + table);
+            try (ResultSet resultSet = statement.executeQuery("SELECT data_length, index_length "
+                    + "FROM information_schema.tables WHERE table_schema = DATABASE() AND table_name = '" + table + "'")) {
+                resultSet.next();
+                System.out.printf("%-24s %12d %14.0f %12.1f %12.1f%n", keyType + " " + (binary ? "v7" : "v4"),
+                        insertMillis, lookupsPerSecond,
+                        resultSet.getLong(1) / 1048576.0, resultSet.getLong(2) / 1048576.0);
+            }
+        }
+    }
+
+    // Cùng thứ tự byte với Hibernate (msb rồi lsb, big-endian) và UUID_TO_BIN(x) của script migration
+    private static void bind(PreparedStatement statement, int index, UUID id, boolean binary) throws SQLException {
+        if (binary) {
+            statement.setBytes(index, ByteBuffer.allocate(16)
+                    .putLong(id.getMostSignificantBits())
+                    .putLong(id.getLeastSignificantBits())
+                    .array());
+        } else {
+            statement.setString(index, id.toString());
+        }
+    }
+
+    private static void generationThroughput() throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%-24s %16s (%d threads)%n", "generator", "ids/s", threads);
+        for (int round = 0; round < 2; round++) {
+            // Vòng đầu là warm-up
+            double v4 = generatePerSecond(UUID::randomUUID, threads);
+            double v7 = generatePerSecond(UuidV7::generate, threads);
+            if (round == 1) {
+                System.out.printf("%-24s %16.0f%n", "UUID.randomUUID", v4);
+                System.out.printf("%-24s %16.0f%n", "UuidV7.generate", v7);
+            }
+        }
+    }
+
+    private static double generatePerSecond(Supplier<UUID> generator, int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Long>> results = new ArrayList<>(threads);
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    long sink = 0;
+                    for (int i = 0; i < GENERATE_PER_THREAD; i++) {
+                        sink += generator.get().getLeastSignificantBits();
+                    }
+                    return sink;
+                }));
+            }
+            long sink = 0;
+            for (Future<Long> result : results) {
+                sink += result.get();
+            }
+            long elapsed = System.nanoTime() - start;
+            if (sink == 42) System.out.print("");
+            return (double) threads * GENERATE_PER_THREAD * 1e9 / elapsed;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
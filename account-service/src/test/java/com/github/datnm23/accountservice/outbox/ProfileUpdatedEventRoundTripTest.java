@@ -0,0 +1,103 @@
+package com.github.datnm23.accountservice.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.github.datnm23.accountservice.entity.OutboxEvent;
+import com.github.datnm23.accountservice.event.UserDomainEvent;
+import com.github.datnm23.accountservice.event.UserProfileUpdatedEvent;
+import com.github.datnm23.accountservice.event.codec.UserEventDeserializer;
+import com.github.datnm23.accountservice.event.codec.UserEventSerializer;
+import com.github.datnm23.accountservice.repository.OutboxEventRepository;
+import com.github.datnm23.accountservice.statics.Gender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * {@code changedFields} đi qua outbox (JSON), relay (đọc lại vào Map), Kafka serializer và deserializer của consumer mà
+ * vẫn giữ kiểu: ngày là {@link LocalDate}, giới tính là {@link Gender}, chuỗi số điện thoại không bị đổi.
+ */
+class ProfileUpdatedEventRoundTripTest {
+
+    // Cấu hình ObjectMapper của Spring Boot: JavaTimeModule, ngày ghi dạng ISO
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void changedFieldsKeepTheirTypes(boolean binary) {
+        Map<String, Object> changedFields = new LinkedHashMap<>();
+        changedFields.put("dateOfBirth", LocalDate.of(1990, 1, 31));
+        changedFields.put("gender", Gender.FEMALE);
+        changedFields.put("emailNotifications", false);
+        changedFields.put("phone", "+84901234567");
+        changedFields.put("bio", null);
+        UserProfileUpdatedEvent published = new UserProfileUpdatedEvent(UUID.randomUUID(), changedFields);
+
+        OutboxEvent row = appendToOutbox(published);
+        UserDomainEvent relayed = relay().decode(row);
+        UserDomainEvent consumed = deliver(relayed, binary);
+
+        assertThat(consumed).isInstanceOfSatisfying(UserProfileUpdatedEvent.class, event -> {
+            assertThat(event.getEventId()).isEqualTo(published.getEventId());
+            assertThat(event.getChangedFields()).containsExactlyEntriesOf(changedFields);
+        });
+    }
+
+    private OutboxEvent appendToOutbox(UserDomainEvent event) {
+        OutboxEventRepository repository = mock(OutboxEventRepository.class);
+        new UserEventOutbox(repository, mock(JdbcTemplate.class), objectMapper).append(event);
+        ArgumentCaptor<OutboxEvent> saved = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(repository).save(saved.capture());
+        return saved.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private OutboxRelay relay() {
+        return new OutboxRelay(
+                mock(OutboxEventRepository.class),
+                mock(KafkaTemplate.class),
+                objectMapper,
+                mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry(),
+                "user-events",
+                false,
+                500,
+                20,
+                Duration.ofSeconds(30),
+                Duration.ofHours(1),
+                5000,
+                false,
+                Duration.ofSeconds(2),
+                Duration.ofSeconds(10));
+    }
+
+    private static UserDomainEvent deliver(UserDomainEvent event, boolean binary) {
+        RecordHeaders headers = new RecordHeaders();
+        try (UserEventSerializer serializer = new UserEventSerializer();
+             UserEventDeserializer deserializer = new UserEventDeserializer()) {
+            serializer.configure(Map.of(UserEventSerializer.FORMAT_CONFIG,
+                    binary ? UserEventSerializer.FORMAT_BINARY : "json"), false);
+            byte[] data = serializer.serialize("user-events", headers, event);
+            return deserializer.deserialize("user-events", headers, data);
+        }
+    }
+}
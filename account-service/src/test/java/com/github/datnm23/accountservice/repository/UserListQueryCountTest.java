@@ -0,0 +1,224 @@
+package com.github.datnm23.accountservice.repository;
+
+import com.github.datnm23.accountservice.cache.EmailMembershipFilter;
+import com.github.datnm23.accountservice.cache.NegativeLookupCache;
+import com.github.datnm23.accountservice.client.NotificationServiceClient;
+import com.github.datnm23.accountservice.client.PasswordHasher;
+import com.github.datnm23.accountservice.dto.PageResponse;
+import com.github.datnm23.accountservice.dto.UserDTO;
+import com.github.datnm23.accountservice.entity.OAuthProvider;
+import com.github.datnm23.accountservice.entity.User;
+import com.github.datnm23.accountservice.entity.UserProfile;
+import com.github.datnm23.accountservice.mapper.UserMapper;
+import com.github.datnm23.accountservice.outbox.UserEventOutbox;
+import com.github.datnm23.accountservice.pagination.UserCountEstimator;
+import com.github.datnm23.accountservice.pagination.UserListRow;
+import com.github.datnm23.accountservice.search.UserSearchIndex;
+import com.github.datnm23.accountservice.search.UserSuggester;
+import com.github.datnm23.accountservice.security.SignedVerificationTokens;
+import com.github.datnm23.accountservice.service.impl.UserServiceImpl;
+import com.github.datnm23.accountservice.statics.AccountStatus;
+import com.github.datnm23.accountservice.statics.Provider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Danh sách/tìm kiếm user đọc bằng projection: mỗi trang đúng một câu SQL (trang offset thêm một COUNT), không nạp
+ * entity nào và việc map sang {@link UserDTO} không kích hoạt lazy load.
+ */
+// spring.config.name riêng: không nạp application.yml (import config server)
+@DataJpaTest(properties = {
+        "spring.config.name=user-list-query-count-test",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class UserListQueryCountTest {
+
+    private static final int USERS = 30;
+    private static final int PAGE_SIZE = 10;
+
+    @Configuration(proxyBeanMethods = false)
+    @EnableJpaAuditing
+    @EntityScan(basePackageClasses = User.class)
+    @EnableJpaRepositories(basePackageClasses = UserRepository.class,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = UserRepository.class))
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final UserMapper userMapper = Mappers.getMapper(UserMapper.class);
+
+    private Statistics statistics;
+    private UUID firstUserId;
+    private final List<UUID> userIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@example.com");
+            user.setPasswordHash("$2a$10$hash");
+            user.setFirstName("Van " + i);
+            user.setLastName("Nguyen");
+            user.setStatus(AccountStatus.ACTIVE);
+            user.setActive(true);
+            entityManager.persist(user);
+            userIds.add(user.getUserId());
+
+            UserProfile profile = new UserProfile();
+            profile.setUser(user);
+            profile.setCity("Ha Noi");
+            entityManager.persist(profile);
+
+            for (Provider provider : List.of(Provider.GOOGLE, Provider.GITHUB)) {
+                entityManager.persist(OAuthProvider.builder()
+                        .user(user)
+                        .provider(provider)
+                        .externalId(provider.name().toLowerCase() + "-" + i)
+                        .build());
+            }
+            if (i == 0) {
+                firstUserId = user.getUserId();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void keysetPagesUseOneQueryEach() {
+        List<UserListRow> first = userRepository.findKeysetFirstPage(PageRequest.ofSize(PAGE_SIZE + 1));
+        List<UserDTO> firstPage = first.stream().limit(PAGE_SIZE).map(userMapper::toUserDTO).toList();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(firstPage).hasSize(PAGE_SIZE)
+                .allSatisfy(dto -> assertThat(dto.getProfile()).isNotNull());
+
+        UserListRow last = first.get(PAGE_SIZE - 1);
+        statistics.clear();
+        List<UserListRow> next = userRepository.findKeysetPageAfter(
+                last.createdAt(), last.userId(), PageRequest.ofSize(PAGE_SIZE + 1));
+        next.forEach(userMapper::toUserDTO);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(next).extracting(UserListRow::userId)
+                .doesNotContainAnyElementsOf(firstPage.stream().map(UserDTO::getUserId).toList());
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void keysetSearchUsesOneQuery() {
+        List<UserListRow> rows = userRepository.searchKeysetFirstPage("van 1", PageRequest.ofSize(PAGE_SIZE + 1));
+        rows.forEach(userMapper::toUserDTO);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        // "Van 1", "Van 10".."Van 19"
+        assertThat(rows).hasSize(PAGE_SIZE + 1);
+    }
+
+    @Test
+    void offsetPageUsesOneQueryPlusCount() {
+        Page<UserDTO> page = userRepository.findListRows(PageRequest.of(0, PAGE_SIZE)).map(userMapper::toUserDTO);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(page.getTotalElements()).isEqualTo(USERS);
+        assertThat(page.getContent()).allSatisfy(dto -> {
+            assertThat(dto.getFullName()).startsWith("Van ");
+            assertThat(dto.getOauthProviders()).isNull();
+        });
+    }
+
+    @Test
+    void offsetSearchUsesOneQueryPlusCount() {
+        Page<UserListRow> page = userRepository.searchListRows("user2", PageRequest.of(0, PAGE_SIZE));
+        page.map(userMapper::toUserDTO);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(page.getTotalElements()).isEqualTo(11);
+    }
+
+    @Test
+    void indexSearchLoadsRankedRowsInOneQuery() {
+        // Index trả id theo thứ tự liên quan, không trùng thứ tự chèn
+        List<UUID> ranked = List.of(userIds.get(7), userIds.get(2), userIds.get(19));
+        UserSearchIndex searchIndex = mock(UserSearchIndex.class);
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.search("nguyen", 0, 3)).thenReturn(new UserSearchIndex.Hits(ranked, USERS));
+
+        PageResponse<UserDTO> page = userService(searchIndex).searchUsers("nguyen", 0, 3);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(page.getContent()).extracting(UserDTO::getUserId).containsExactlyElementsOf(ranked);
+        assertThat(page.getContent()).allSatisfy(dto -> assertThat(dto.getProfile()).isNotNull());
+        assertThat(page.getTotalElements()).isEqualTo(USERS);
+    }
+
+    @Test
+    void userWithRelationsLoadsInOneQuery() {
+        User user = userRepository.findWithRelationsByUserId(firstUserId).orElseThrow();
+        UserDTO dto = userMapper.toUserDTO(user);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(dto.getProfile()).isNotNull();
+        assertThat(dto.getOauthProviders()).hasSize(2)
+                .allSatisfy(provider -> assertThat(provider.getUserId()).isEqualTo(firstUserId));
+    }
+
+    // Chỉ repository và mapper là thật: đường tìm kiếm qua index không dùng các dependency còn lại
+    private UserServiceImpl userService(UserSearchIndex searchIndex) {
+        return new UserServiceImpl(
+                userRepository,
+                userMapper,
+                mock(UserEventOutbox.class),
+                mock(NotificationServiceClient.class),
+                mock(EmailVerificationTokenRepository.class),
+                mock(NegativeLookupCache.class),
+                mock(EmailMembershipFilter.class),
+                searchIndex,
+                mock(UserSuggester.class),
+                mock(UserCountEstimator.class),
+                mock(ApplicationEventPublisher.class),
+                mock(PasswordHasher.class),
+                mock(TransactionTemplate.class),
+                new SimpleMeterRegistry(),
+                mock(SignedVerificationTokens.class),
+                mock(CacheManager.class));
+    }
+}
@@ -0,0 +1,156 @@
+package com.github.datnm23.accountservice.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Token xác thực email ký HMAC: round trip, mọi kiểu token sửa đổi/hết hạn/không hợp lệ bị từ chối, và xoay khoá.
+ */
+class SignedVerificationTokensTest {
+
+    private static final String KEY_1 = "k1:" + secret("first-secret");
+    private static final String KEY_2 = "k2:" + secret("second-secret");
+    private static final Instant NOW = Instant.parse("2026-10-18T10:00:00Z");
+    private static final Instant EXPIRES_AT = NOW.plus(Duration.ofDays(1));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UUID userId = UUID.randomUUID();
+
+    @Test
+    void issuedTokenVerifiesWithItsClaims() {
+        SignedVerificationTokens tokens = tokens(KEY_1, "k1");
+        String token = tokens.issue(userId, 3, EXPIRES_AT);
+
+        assertThat(SignedVerificationTokens.isSigned(token)).isTrue();
+        assertThat(tokens.verify(token, NOW))
+                .contains(new SignedVerificationTokens.Claims(userId, EXPIRES_AT, 3, "k1"));
+        assertThat(meterRegistry.counter("email.verification.signed", "result", "valid").count()).isEqualTo(1);
+    }
+
+    @Test
+    void legacyTableTokenIsNotSigned() {
+        assertThat(SignedVerificationTokens.isSigned(UUID.randomUUID().toString())).isFalse();
+        assertThat(SignedVerificationTokens.isSigned(null)).isFalse();
+    }
+
+    @Test
+    void tamperedPayloadIsRejected() {
+        SignedVerificationTokens tokens = tokens(KEY_1, "k1");
+        String[] parts = tokens.issue(userId, 0, EXPIRES_AT).split("\\.");
+        byte[] payload = Base64.getUrlDecoder().decode(parts[0]);
+        payload[payload.length - 1] ^= 1; // nonce 0 -> 1
+
+        String tampered = encode(payload) + "." + parts[1];
+
+        assertThat(tokens.verify(tampered, NOW)).isEmpty();
+        assertThat(meterRegistry.counter("email.verification.signed", "result", "bad-signature").count()).isEqualTo(1);
+    }
+
+    @Test
+    void tamperedSignatureIsRejected() {
+        SignedVerificationTokens tokens = tokens(KEY_1, "k1");
+        String[] parts = tokens.issue(userId, 0, EXPIRES_AT).split("\\.");
+        byte[] signature = Base64.getUrlDecoder().decode(parts[1]);
+        signature[0] ^= 1;
+
+        assertThat(tokens.verify(parts[0] + "." + encode(signature), NOW)).isEmpty();
+        assertThat(tokens.verify(parts[0] + ".", NOW)).isEmpty();
+    }
+
+    @Test
+    void unknownKeyIdIsRejected() {
+        String foreignToken = tokens("k3:" + secret("unknown-secret"), "k3").issue(userId, 0, EXPIRES_AT);
+
+        assertThat(tokens(KEY_1 + "," + KEY_2, "k1").verify(foreignToken, NOW)).isEmpty();
+        assertThat(meterRegistry.counter("email.verification.signed", "result", "unknown-key").count()).isEqualTo(1);
+    }
+
+    @Test
+    void sameKeyIdWithDifferentSecretIsRejected() {
+        String forged = tokens("k1:" + secret("attacker-secret"), "k1").issue(userId, 0, EXPIRES_AT);
+
+        assertThat(tokens(KEY_1, "k1").verify(forged, NOW)).isEmpty();
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        SignedVerificationTokens tokens = tokens(KEY_1, "k1");
+        String token = tokens.issue(userId, 0, EXPIRES_AT);
+
+        assertThat(tokens.verify(token, EXPIRES_AT.minusSeconds(1))).isPresent();
+        assertThat(tokens.verify(token, EXPIRES_AT)).isEmpty();
+        assertThat(tokens.verify(token, EXPIRES_AT.plusSeconds(60))).isEmpty();
+        assertThat(meterRegistry.counter("email.verification.signed", "result", "expired").count()).isEqualTo(2);
+    }
+
+    @Test
+    void tokenSignedWithPreviousKeyStillVerifiesAfterRotation() {
+        String oldToken = tokens(KEY_1, "k1").issue(userId, 5, EXPIRES_AT);
+
+        SignedVerificationTokens rotated = tokens(KEY_1 + "," + KEY_2, "k2");
+        String newToken = rotated.issue(userId, 5, EXPIRES_AT);
+
+        assertThat(rotated.verify(oldToken, NOW)).map(SignedVerificationTokens.Claims::keyId).contains("k1");
+        assertThat(rotated.verify(newToken, NOW)).map(SignedVerificationTokens.Claims::keyId).contains("k2");
+        // Khoá cũ đã bỏ khỏi danh sách: token cũ hết hiệu lực
+        assertThat(tokens(KEY_2, "k2").verify(oldToken, NOW)).isEmpty();
+    }
+
+    @Test
+    void malformedTokensAreRejected() {
+        SignedVerificationTokens tokens = tokens(KEY_1, "k1");
+        String valid = tokens.issue(userId, 0, EXPIRES_AT);
+        String[] parts = valid.split("\\.");
+
+        for (String token : new String[]{
+                "",
+                ".",
+                "no-dot-at-all",
+                ".abc",
+                "not*base64.also*not",
+                parts[0] + "." + parts[1] + ".extra",
+                parts[0] + ".." + parts[1],
+                encode("short".getBytes(StandardCharsets.US_ASCII)) + "." + parts[1],
+                parts[0] + "AAAA." + parts[1]}) {
+            assertThat(tokens.verify(token, NOW)).as(token).isEqualTo(Optional.empty());
+        }
+        assertThat(tokens.verify(null, NOW)).isEmpty();
+    }
+
+    @Test
+    void signedFormatRequiresConfiguredActiveKey() {
+        assertThatThrownBy(() -> new SignedVerificationTokens(meterRegistry, "signed", KEY_1, "k2"))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new SignedVerificationTokens(meterRegistry, "signed", "k1:" + encode(new byte[16]), "k1"))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(new SignedVerificationTokens(meterRegistry, "table", "", "").isEnabled()).isFalse();
+    }
+
+    private SignedVerificationTokens tokens(String keys, String activeKeyId) {
+        return new SignedVerificationTokens(meterRegistry, "signed", keys, activeKeyId);
+    }
+
+    // 32 byte xác định từ một nhãn, đủ độ dài tối thiểu của khoá
+    private static String secret(String label) {
+        byte[] bytes = new byte[32];
+        byte[] source = label.getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = source[i % source.length];
+        }
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}